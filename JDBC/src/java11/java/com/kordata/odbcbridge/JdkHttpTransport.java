@@ -0,0 +1,244 @@
+package com.kordata.odbcbridge;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// An HttpTransport on java.net.http, selected with httpTransport=jdk. It needs
+// Java 11, so it's compiled apart from the rest of the driver and loaded by
+// name. The JDK client negotiates HTTP/2 where the bridge offers it (over
+// cleartext by upgrading, as it has no prior knowledge mode), but doesn't expose
+// its connection pool, so Stats reports connections as -1. Its stream windows
+// are set JVM-wide with the jdk.httpclient.windowsize system properties.
+public final class JdkHttpTransport implements HttpTransport {
+    private static final int PIPE_SIZE = 64 * 1024;
+
+    private final HttpClient client;
+    private final AtomicLong completedCalls = new AtomicLong();
+    private final AtomicInteger activeCalls = new AtomicInteger();
+
+    public JdkHttpTransport() {
+        this(Http2Mode.AUTO);
+    }
+
+    public JdkHttpTransport(Http2Mode http2) {
+        this(HttpClient.newBuilder().version(version(http2)).build());
+    }
+
+    public JdkHttpTransport(HttpClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public Call newCall(Request request) {
+        return new JdkCall(request);
+    }
+
+    @Override
+    public Stats getStats() {
+        return new Stats(completedCalls.get(), activeCalls.get(), -1, -1);
+    }
+
+    private static HttpClient.Version version(Http2Mode http2) {
+        switch (http2) {
+            case OFF:
+                return HttpClient.Version.HTTP_1_1;
+            case PRIOR_KNOWLEDGE:
+                throw new IllegalArgumentException(
+                        "The jdk transport can't use HTTP/2 with prior knowledge");
+            default:
+                return HttpClient.Version.HTTP_2;
+        }
+    }
+
+    private static HttpRequest toHttpRequest(Request request) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(request.getUrl()));
+        Body body = request.getBody();
+
+        if (body == null)
+            return builder.GET().build();
+
+        return builder.header("Content-Type", BridgeAPI.JSON.toString())
+                .POST(publisher(body))
+                .build();
+    }
+
+    private static HttpRequest.BodyPublisher publisher(Body body) throws IOException {
+        if (!body.isOneShot()) {
+            ByteArrayOutputStream bytes =
+                    new ByteArrayOutputStream((int) Math.max(body.contentLength(), 32));
+            body.writeTo(bytes);
+
+            return HttpRequest.BodyPublishers.ofByteArray(bytes.toByteArray());
+        }
+
+        // Streamed bodies are written on a thread of their own through a pipe.
+        return HttpRequest.BodyPublishers.ofInputStream(() -> {
+            PipedInputStream in = new PipedInputStream(PIPE_SIZE);
+
+            try {
+                OutputStream out = new PipedOutputStream(in);
+                Thread writer = new Thread(() -> {
+                    try (OutputStream pipe = out) {
+                        body.writeTo(pipe);
+                    } catch (IOException e) {
+                        // The request fails on the broken pipe.
+                    }
+                }, "odbcbridge-body");
+
+                writer.setDaemon(true);
+                writer.start();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            return in;
+        });
+    }
+
+    private static IOException toIOException(Throwable e) {
+        if (e instanceof CompletionException || e instanceof ExecutionException) {
+            e = e.getCause();
+        }
+
+        if (e instanceof IOException)
+            return (IOException) e;
+
+        if (e instanceof CancellationException)
+            return new IOException("Canceled");
+
+        return new IOException(e);
+    }
+
+    // Sent asynchronously even for execute, so cancel works the same for both.
+    private final class JdkCall implements Call {
+        private final Request request;
+        private volatile CompletableFuture<HttpResponse<InputStream>> future;
+        private volatile boolean canceled;
+
+        JdkCall(Request request) {
+            this.request = request;
+        }
+
+        private synchronized CompletableFuture<HttpResponse<InputStream>> send()
+                throws IOException {
+            if (canceled)
+                throw new IOException("Canceled");
+
+            if (future != null)
+                throw new IllegalStateException("Already executed");
+
+            activeCalls.incrementAndGet();
+            future = client.sendAsync(toHttpRequest(request),
+                    HttpResponse.BodyHandlers.ofInputStream());
+            future.whenComplete((response, e) -> {
+                activeCalls.decrementAndGet();
+                completedCalls.incrementAndGet();
+            });
+
+            return future;
+        }
+
+        @Override
+        public Response execute() throws IOException {
+            CompletableFuture<HttpResponse<InputStream>> sent = send();
+
+            try {
+                return new JdkResponse(sent.get());
+            } catch (InterruptedException e) {
+                sent.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for the bridge");
+            } catch (ExecutionException | CancellationException e) {
+                throw toIOException(e);
+            }
+        }
+
+        @Override
+        public void enqueue(Callback callback) {
+            CompletableFuture<HttpResponse<InputStream>> sent;
+
+            try {
+                sent = send();
+            } catch (IOException e) {
+                callback.onFailure(e);
+                return;
+            }
+
+            sent.whenComplete((response, e) -> {
+                if (e == null) {
+                    callback.onResponse(new JdkResponse(response));
+                } else {
+                    callback.onFailure(toIOException(e));
+                }
+            });
+        }
+
+        @Override
+        public synchronized void cancel() {
+            canceled = true;
+
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private static final class JdkResponse implements Response {
+        private final HttpResponse<InputStream> response;
+
+        JdkResponse(HttpResponse<InputStream> response) {
+            this.response = response;
+        }
+
+        @Override
+        public int code() {
+            return response.statusCode();
+        }
+
+        // HTTP/2 has no reason phrases, and the JDK client drops HTTP/1's.
+        @Override
+        public String message() {
+            return "HTTP " + response.statusCode();
+        }
+
+        @Override
+        public String protocol() {
+            return response.version() == HttpClient.Version.HTTP_2 ? "h2" : "http/1.1";
+        }
+
+        @Override
+        public String header(String name) {
+            return response.headers().firstValue(name).orElse(null);
+        }
+
+        @Override
+        public InputStream body() {
+            return response.body();
+        }
+
+        @Override
+        public void close() {
+            try {
+                response.body().close();
+            } catch (IOException e) {
+                // The connection is discarded either way.
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.kordata.odbcbridge;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+// Round trips a query-sized POST through each transport against a local server
+// answering with a fixed body, so the difference is the client's own overhead.
+// Run on several threads to compare how the pools hold up under concurrency.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class HttpTransportBenchmark {
+    @Param({"okhttp", "jdk"})
+    public String transport;
+
+    // Size of the response body in bytes.
+    @Param({"256", "65536", "1048576"})
+    public int responseBytes;
+
+    private final MockWebServer server = new MockWebServer();
+    private HttpTransport client;
+    private String url;
+    private byte[] request;
+
+    @Setup
+    public void start() throws IOException {
+        StringBuilder body = new StringBuilder("{\"schema\":[],\"results\":[\"");
+        while (body.length() < responseBytes - 3) {
+            body.append('x');
+        }
+        String response = body.append("\"]}").toString();
+
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest recorded) {
+                return new MockResponse().setBody(response);
+            }
+        });
+        server.start();
+
+        client = BridgeAPI.transport(transport);
+        url = server.url("/query").toString();
+        request = "{\"query\":\"SELECT * FROM Customers WHERE ID = ?\",\"parameters\":[42]}"
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void stop() throws IOException {
+        server.shutdown();
+    }
+
+    @Benchmark
+    public long roundTrip() throws IOException {
+        HttpTransport.Request post =
+                HttpTransport.Request.post(url, HttpTransport.Body.of(request));
+        byte[] buffer = new byte[8192];
+        long read = 0;
+
+        try (HttpTransport.Response response = client.newCall(post).execute();
+                InputStream in = response.body()) {
+            for (int n; (n = in.read(buffer)) != -1;) {
+                read += n;
+            }
+        }
+
+        return read;
+    }
+}
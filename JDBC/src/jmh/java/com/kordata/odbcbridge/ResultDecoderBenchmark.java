@@ -0,0 +1,110 @@
+package com.kordata.odbcbridge;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
+
+// Compares the ways a buffered query response can be decoded, on the shapes of
+// result the bridge typically returns:
+//   narrow - a key, a short name and a flag, as from lookup tables
+//   wide   - 24 mixed columns with NULLs, dates and currency, as from SELECT *
+//   memo   - a key and a long text column with the odd escaped character
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResultDecoderBenchmark {
+    @Param({"narrow", "wide", "memo"})
+    public String shape;
+
+    @Param({"jackson", "swar", "parallel"})
+    public String decoder;
+
+    @Param({"20000"})
+    public int rows;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ResultDecoder swar = new SwarResultDecoder();
+    private byte[] body;
+
+    @Setup
+    public void buildResponse() throws IOException {
+        Random random = new Random(42);
+        ObjectNode response = mapper.createObjectNode();
+        ArrayNode schema = response.putArray("schema");
+        ArrayNode results = response.putArray("results");
+
+        schema.addObject().put("columnName", "ID").put("dataType", "int");
+
+        for (int i = 0; i < rows; i++) {
+            ObjectNode row = results.addObject().put("ID", i);
+
+            switch (shape) {
+                case "narrow":
+                    row.put("Name", "Item " + random.nextInt(500));
+                    row.put("Active", random.nextBoolean());
+                    break;
+                case "wide":
+                    for (int column = 0; column < 6; column++) {
+                        row.put("Code" + column, "C" + random.nextInt(40));
+                        row.put("Quantity" + column, random.nextInt(100000));
+                        row.put("Ratio" + column, random.nextDouble());
+                        row.putNull("Unused" + column);
+                    }
+                    row.put("Created", "2019-04-0" + (1 + random.nextInt(9)) + " 10:15:00");
+                    row.putRawValue("Amount", new RawValue(
+                            random.nextInt(1000000) + "." + (1000 + random.nextInt(9000))));
+                    break;
+                default:
+                    StringBuilder notes = new StringBuilder();
+                    while (notes.length() < 2000) {
+                        notes.append("Inspected unit ").append(random.nextInt(10000))
+                                .append(random.nextInt(20) == 0 ? " \"ok\"\n" : ", ");
+                    }
+                    row.put("Notes", notes.toString());
+                    break;
+            }
+        }
+
+        if (shape.equals("wide")) {
+            schema.addObject().put("columnName", "Amount").put("dataType", "decimal");
+        }
+
+        body = mapper.writeValueAsString(response).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public ObjectNode decode() throws IOException {
+        ResponseReader reader = new ResponseReader(mapper, LobBuffer.DEFAULT_SPILL_THRESHOLD);
+
+        switch (decoder) {
+            case "swar":
+                return reader.readWith(body, swar);
+            case "parallel":
+                return reader.readInParallel(body, ForkJoinPool.commonPool(),
+                        ResponseReader.PARSE_CHUNK_BYTES);
+            default:
+                return reader.read(new ByteArrayInputStream(body));
+        }
+    }
+}
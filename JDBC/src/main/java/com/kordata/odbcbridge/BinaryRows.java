@@ -0,0 +1,520 @@
+package com.kordata.odbcbridge;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.POJONode;
+
+// Rows kept outside the Java heap in a compact binary form, indexed by row
+// offset. Subclasses decide where the bytes go; rows never straddle one of the
+// buffers they hand back, so any row decodes from a single buffer. The heap
+// holds only the offsets, the column names and any LOB handles.
+//
+// Each row is a varint field count followed by, per field, a varint index into
+// the column names, a tag byte and the value. Text from low-cardinality columns
+// is stored as a varint code into the column's StringDictionary.
+abstract class BinaryRows implements RowStore {
+    private static final byte NULL = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte TEXT = 5;
+    private static final byte BIG_INTEGER = 6;
+    private static final byte DECIMAL = 7;
+    private static final byte POJO = 8;
+    private static final byte JSON = 9;
+    private static final byte DICTIONARY_TEXT = 10;
+    private static final byte SCALED_DECIMAL = 11;
+
+    private final ObjectMapper mapper;
+    private final JsonNodeFactory factory;
+
+    private final Map<String, Integer> nameIndexes = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private final List<StringDictionary> dictionaries = new ArrayList<>();
+    private final List<Object> pojos = new ArrayList<>();
+
+    private long[] offsets = new long[1024];
+    private int size;
+    private long length;
+    private byte[] scratch = new byte[256];
+    private int scratchLength;
+
+    private int[] segmentFirstRows = new int[0];
+    private long[] segmentBases = new long[0];
+    private ByteBuffer[] segments = new ByteBuffer[0];
+
+    private MemoryBudget.Reservation reservation;
+    private Runnable onClose;
+    private boolean closed;
+
+    BinaryRows(ObjectMapper mapper) {
+        this.mapper = mapper;
+        this.factory = mapper.getNodeFactory();
+    }
+
+    // Stores one encoded row, which starts at byte offset of the whole store.
+    protected abstract void write(byte[] row, int length, int index, long offset)
+            throws IOException;
+
+    // Frees whatever write allocated.
+    protected abstract void release();
+
+    // Makes rows from firstRow on, starting at byte base, readable from buffer.
+    protected void addSegment(int firstRow, long base, ByteBuffer buffer) {
+        int count = segments.length;
+
+        segmentFirstRows = Arrays.copyOf(segmentFirstRows, count + 1);
+        segmentBases = Arrays.copyOf(segmentBases, count + 1);
+        segments = Arrays.copyOf(segments, count + 1);
+
+        segmentFirstRows[count] = firstRow;
+        segmentBases[count] = base;
+        segments[count] = buffer;
+    }
+
+    protected long getOffset(int row) {
+        return offsets[row];
+    }
+
+    protected long getLength() {
+        return length;
+    }
+
+    void append(ObjectNode row) throws IOException {
+        scratchLength = 0;
+        writeVarint(row.size());
+
+        Iterator<Map.Entry<String, JsonNode>> fields = row.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            int nameIndex = nameIndex(field.getKey());
+            writeVarint(nameIndex);
+            writeValue(nameIndex, field.getValue());
+        }
+
+        if (size == offsets.length) {
+            offsets = Arrays.copyOf(offsets, size * 2);
+        }
+
+        write(scratch, scratchLength, size, length);
+        offsets[size++] = length;
+        length += scratchLength;
+    }
+
+    // Called once every row has been appended.
+    void finish() throws IOException {
+        scratch = null;
+    }
+
+    // Returned to the budget when the rows are closed.
+    void holdReservation(MemoryBudget.Reservation reservation) {
+        this.reservation = reservation;
+    }
+
+    // Appends every row to target and frees this store, leaving its LOB cells
+    // open for target to own.
+    void moveTo(BinaryRows target) throws IOException {
+        for (int row = 0; row < size; row++) {
+            target.append(get(row));
+        }
+
+        pojos.clear();
+        close();
+    }
+
+    private int nameIndex(String name) {
+        Integer index = nameIndexes.get(name);
+
+        if (index == null) {
+            index = names.size();
+            names.add(name);
+            dictionaries.add(new StringDictionary(factory));
+            nameIndexes.put(name, index);
+        }
+
+        return index;
+    }
+
+    private void writeValue(int nameIndex, JsonNode value) throws IOException {
+        if (value.isNull()) {
+            writeByte(NULL);
+        } else if (value.isBoolean()) {
+            writeByte(value.booleanValue() ? TRUE : FALSE);
+        } else if (value.canConvertToLong() && value.isIntegralNumber()) {
+            writeByte(LONG);
+            long v = value.longValue();
+            writeVarint((v << 1) ^ (v >> 63));
+        } else if (value.isDouble() || value.isFloat()) {
+            writeByte(DOUBLE);
+            long bits = Double.doubleToRawLongBits(value.doubleValue());
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                writeByte((byte) (bits >>> shift));
+            }
+        } else if (value.isTextual()) {
+            int code = dictionaries.get(nameIndex).encode(value.textValue());
+
+            if (code >= 0) {
+                writeByte(DICTIONARY_TEXT);
+                writeVarint(code);
+            } else {
+                writeByte(TEXT);
+                writeText(value.textValue());
+            }
+        } else if (value.isBigInteger()) {
+            writeByte(BIG_INTEGER);
+            writeText(value.bigIntegerValue().toString());
+        } else if (value instanceof ScaledDecimalNode) {
+            ScaledDecimalNode decimal = (ScaledDecimalNode) value;
+            long v = decimal.unscaledValue();
+            writeByte(SCALED_DECIMAL);
+            writeVarint((v << 1) ^ (v >> 63));
+            writeByte((byte) decimal.scale());
+        } else if (value.isBigDecimal()) {
+            writeByte(DECIMAL);
+            writeText(value.decimalValue().toString());
+        } else if (value instanceof POJONode) {
+            writeByte(POJO);
+            writeVarint(pojos.size());
+            pojos.add(((POJONode) value).getPojo());
+        } else {
+            writeByte(JSON);
+            writeText(mapper.writeValueAsString(value));
+        }
+    }
+
+    private void writeText(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length);
+        reserve(bytes.length);
+        System.arraycopy(bytes, 0, scratch, scratchLength, bytes.length);
+        scratchLength += bytes.length;
+    }
+
+    private void writeVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            writeByte((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        writeByte((byte) value);
+    }
+
+    private void writeByte(byte b) {
+        reserve(1);
+        scratch[scratchLength++] = b;
+    }
+
+    private void reserve(int count) {
+        if (scratchLength + count > scratch.length) {
+            scratch = Arrays.copyOf(scratch, Math.max(scratch.length * 2, scratchLength + count));
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public ObjectNode get(int row) {
+        int segment = segment(row);
+
+        // A duplicate keeps concurrent readers from sharing a position.
+        ByteBuffer buffer = segments[segment].duplicate();
+        buffer.position((int) (offsets[row] - segmentBases[segment]));
+
+        return readRow(buffer);
+    }
+
+    @Override
+    public int columnIndex(String name) {
+        Integer index = nameIndexes.get(name);
+        return index != null ? index : -1;
+    }
+
+    @Override
+    public List<String> columnNames() {
+        List<String> columnNames = new ArrayList<>();
+
+        if (size > 0) {
+            int segment = segment(0);
+            ByteBuffer buffer = segments[segment];
+            int at = (int) (offsets[0] - segmentBases[segment]);
+            int fields = (int) readVarint(buffer, at);
+            at = skipVarint(buffer, at);
+
+            for (int i = 0; i < fields; i++) {
+                columnNames.add(names.get((int) readVarint(buffer, at)));
+                at = skipValue(buffer, skipVarint(buffer, at));
+            }
+        }
+
+        return columnNames;
+    }
+
+    // Single cells are read with absolute gets on the shared buffer, so they
+    // neither move its position nor build the rest of the row.
+    @Override
+    public JsonNode get(int row, int column) {
+        int segment = segment(row);
+        int at = findCell(row, segment, column);
+
+        if (at < 0)
+            return null;
+
+        ByteBuffer buffer = segments[segment].duplicate();
+        buffer.position(at);
+
+        return readValue(buffer, column);
+    }
+
+    @Override
+    public boolean has(int row, int column) {
+        return findCell(row, segment(row), column) >= 0;
+    }
+
+    @Override
+    public boolean isNull(int row, int column) {
+        int segment = segment(row);
+        int at = findCell(row, segment, column);
+
+        return at < 0 || segments[segment].get(at) == NULL;
+    }
+
+    @Override
+    public long getLong(int row, int column) {
+        int segment = segment(row);
+        int at = findCell(row, segment, column);
+
+        if (at < 0)
+            return 0;
+
+        ByteBuffer buffer = segments[segment];
+        switch (buffer.get(at)) {
+            case NULL:
+            case FALSE:
+                return 0;
+            case TRUE:
+                return 1;
+            case LONG:
+                long zigzag = readVarint(buffer, at + 1);
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            case DOUBLE:
+                return (long) buffer.getDouble(at + 1);
+            default:
+                return get(row, column).asLong();
+        }
+    }
+
+    @Override
+    public double getDouble(int row, int column) {
+        int segment = segment(row);
+        int at = findCell(row, segment, column);
+
+        if (at < 0)
+            return 0;
+
+        ByteBuffer buffer = segments[segment];
+        switch (buffer.get(at)) {
+            case NULL:
+            case FALSE:
+                return 0;
+            case TRUE:
+                return 1;
+            case LONG:
+                long zigzag = readVarint(buffer, at + 1);
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            case DOUBLE:
+                return buffer.getDouble(at + 1);
+            default:
+                return get(row, column).asDouble();
+        }
+    }
+
+    private int segment(int row) {
+        if (closed) {
+            throw new IllegalStateException("Result has been closed");
+        }
+
+        int segment = Arrays.binarySearch(segmentFirstRows, row);
+        return segment < 0 ? -segment - 2 : segment;
+    }
+
+    // The position of the column's tag byte in the row's segment, or -1.
+    private int findCell(int row, int segment, int column) {
+        ByteBuffer buffer = segments[segment];
+        int at = (int) (offsets[row] - segmentBases[segment]);
+        int fields = (int) readVarint(buffer, at);
+        at = skipVarint(buffer, at);
+
+        for (int i = 0; i < fields; i++) {
+            int nameIndex = (int) readVarint(buffer, at);
+            at = skipVarint(buffer, at);
+
+            if (nameIndex == column)
+                return at;
+
+            at = skipValue(buffer, at);
+        }
+
+        return -1;
+    }
+
+    private static int skipValue(ByteBuffer buffer, int at) {
+        switch (buffer.get(at++)) {
+            case NULL:
+            case FALSE:
+            case TRUE:
+                return at;
+            case LONG:
+            case POJO:
+            case DICTIONARY_TEXT:
+                return skipVarint(buffer, at);
+            case DOUBLE:
+                return at + 8;
+            case SCALED_DECIMAL:
+                return skipVarint(buffer, at) + 1;
+            default:
+                int length = (int) readVarint(buffer, at);
+                return skipVarint(buffer, at) + length;
+        }
+    }
+
+    private ObjectNode readRow(ByteBuffer buffer) {
+        ObjectNode row = factory.objectNode();
+        int fields = (int) readVarint(buffer);
+
+        for (int i = 0; i < fields; i++) {
+            int nameIndex = (int) readVarint(buffer);
+            row.set(names.get(nameIndex), readValue(buffer, nameIndex));
+        }
+
+        return row;
+    }
+
+    private JsonNode readValue(ByteBuffer buffer, int nameIndex) {
+        byte tag = buffer.get();
+
+        switch (tag) {
+            case NULL:
+                return factory.nullNode();
+            case FALSE:
+                return factory.booleanNode(false);
+            case TRUE:
+                return factory.booleanNode(true);
+            case LONG:
+                long zigzag = readVarint(buffer);
+                long value = (zigzag >>> 1) ^ -(zigzag & 1);
+                return value == (int) value ? factory.numberNode((int) value)
+                        : factory.numberNode(value);
+            case DOUBLE:
+                return factory.numberNode(Double.longBitsToDouble(buffer.getLong()));
+            case TEXT:
+                return factory.textNode(readText(buffer));
+            case BIG_INTEGER:
+                return factory.numberNode(new BigInteger(readText(buffer)));
+            case DECIMAL:
+                return factory.numberNode(new BigDecimal(readText(buffer)));
+            case POJO:
+                return factory.pojoNode(pojos.get((int) readVarint(buffer)));
+            case SCALED_DECIMAL:
+                long unscaled = readVarint(buffer);
+                return new ScaledDecimalNode((unscaled >>> 1) ^ -(unscaled & 1), buffer.get());
+            case DICTIONARY_TEXT:
+                return dictionaries.get(nameIndex).decode((int) readVarint(buffer));
+            default:
+                try {
+                    return mapper.readTree(readText(buffer));
+                } catch (IOException e) {
+                    throw new IllegalStateException(e.getMessage(), e);
+                }
+        }
+    }
+
+    private static String readText(ByteBuffer buffer) {
+        int length = (int) readVarint(buffer);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long readVarint(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+
+        return value;
+    }
+
+    private static long readVarint(ByteBuffer buffer, int at) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+
+        do {
+            b = buffer.get(at++);
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+
+        return value;
+    }
+
+    private static int skipVarint(ByteBuffer buffer, int at) {
+        while ((buffer.get(at++) & 0x80) != 0) {
+        }
+
+        return at;
+    }
+
+    @Override
+    public void setOnClose(Runnable onClose) {
+        this.onClose = onClose;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed)
+            return;
+
+        closed = true;
+        segments = null;
+
+        for (Object pojo : pojos) {
+            if (pojo instanceof LobBuffer) {
+                ((LobBuffer) pojo).close();
+            }
+        }
+
+        release();
+
+        if (reservation != null) {
+            reservation.close();
+        }
+
+        if (onClose != null) {
+            onClose.run();
+        }
+    }
+}
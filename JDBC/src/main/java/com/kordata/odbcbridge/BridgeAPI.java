@@ -1,24 +1,60 @@
 package com.kordata.odbcbridge;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.sql.SQLException;
+import java.time.DateTimeException;
+import java.time.ZoneId;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParseException;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import okhttp3.*;
+import com.fasterxml.jackson.databind.node.POJONode;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
+import com.kordata.odbcbridge.HttpTransport.Request;
+import com.kordata.odbcbridge.HttpTransport.Response;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
 
 public class BridgeAPI {
     public static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    private static final int STATEMENT_HANDLE_CACHE_SIZE = 256;
 
-    private final OkHttpClient httpClient;
+    // The largest array the JVM reliably allocates.
+    static final int MAX_BUFFERED_BODY = Integer.MAX_VALUE - 8;
+
+    // Connections share a transport so they also share its connection pool.
+    private static final ConcurrentMap<String, HttpTransport> transports =
+            new ConcurrentHashMap<>();
+
+    private HttpTransport transport = transport("okhttp");
+    private String transportName = "okhttp";
+    private HttpTransport.Http2Mode http2 = HttpTransport.Http2Mode.AUTO;
 
     private HttpUrl remoteUrl;
 
     private String host;
     private final ObjectMapper mapper = new ObjectMapper();
+    private final QueryMonitor queryMonitor = new QueryMonitor();
 
     public String getHost() {
         return host;
@@ -54,7 +90,7 @@ public class BridgeAPI {
         return url;
     }
 
-    public void setURL(String url) {
+    public void setURL(String url) throws SQLException {
         this.url = url;
         remoteUrl = null;
         host = null;
@@ -63,14 +99,43 @@ public class BridgeAPI {
         username = null;
         password = null;
         useSsl = true;
+        catalogTtlSeconds = SchemaCatalog.DEFAULT_TTL_SECONDS;
+        useStatementHandles = false;
+        statementHandles.invalidateAll();
+        lobSpillThreshold = LobBuffer.DEFAULT_SPILL_THRESHOLD;
+        resultHeapBudget = SpilledRows.DEFAULT_HEAP_BUDGET;
+        resultStorage = "heap";
+        parallelParse = false;
+        transport = transport("okhttp");
+        transportName = "okhttp";
+        http2 = HttpTransport.Http2Mode.AUTO;
+        resultDecoder = null;
+        memoryAccount.setPolicy(MemoryBudget.Policy.SPILL);
+        memoryAccount.setWaitMillis(MemoryBudget.DEFAULT_WAIT_MILLIS);
+        maxScanConcurrency = PartitionedScan.DEFAULT_MAX_CONCURRENCY;
+        timeZone = ZoneId.systemDefault();
+        dateTimeDecoder = new DateTimeDecoder(timeZone);
+        queryMonitor.setSlowQueryThreshold(0);
+        queryMonitor.setRedactParameters(true);
 
         if (url == null) {
             return;
         }
 
         String[] components = url.split(";");
-        Arrays.asList(components).stream().skip(1).map(ConnectionProperty::Create)
-                .forEach(this::applyConnectionProperty);
+        for (int i = 1; i < components.length; i++) {
+            applyConnectionProperty(ConnectionProperty.Create(components[i]));
+        }
+
+        if (!timeZone.equals(dateTimeDecoder.getZone())) {
+            dateTimeDecoder = new DateTimeDecoder(timeZone);
+        }
+
+        // There's no prior knowledge over TLS; ALPN negotiates HTTP/2 there.
+        transport = transport(transportName,
+                useSsl && http2 == HttpTransport.Http2Mode.PRIOR_KNOWLEDGE
+                        ? HttpTransport.Http2Mode.AUTO
+                        : http2);
 
         String[] baseComponents = components[0].split("//");
         if (baseComponents.length > 1) {
@@ -100,11 +165,130 @@ public class BridgeAPI {
         return "/v1/" + database + "/mutate";
     }
 
+    public String getSchemaEndpoint() {
+        return "/v1/" + database + "/schema";
+    }
+
+    public String getBatchEndpoint() {
+        return "/v1/" + database + "/batch";
+    }
+
+    public String getTableEndpoint(String table) {
+        return "/v1/" + database + "/" + table;
+    }
+
+    public String getStatementsEndpoint() {
+        return "/v1/" + database + "/statements";
+    }
+
+    public String getStatementEndpoint(String handle, String action) {
+        return getStatementsEndpoint() + "/" + handle + "/" + action;
+    }
+
+    private boolean useStatementHandles;
+
+    public boolean getUseStatementHandles() {
+        return useStatementHandles;
+    }
+
+    private final Cache<String, String> statementHandles =
+            CacheBuilder.newBuilder().maximumSize(STATEMENT_HANDLE_CACHE_SIZE).build();
+
+    private long catalogTtlSeconds;
+
+    public long getCatalogTtl() {
+        return catalogTtlSeconds;
+    }
+
+    // Identifies the database independent of credentials so connections to the
+    // same Access file can share cached state such as the schema catalog.
+    public String getDatabaseKey() {
+        return remoteUrl == null ? database : remoteUrl.resolve(getSchemaEndpoint()).toString();
+    }
+
+    private long lobSpillThreshold = LobBuffer.DEFAULT_SPILL_THRESHOLD;
+
+    // LOB cells larger than this many bytes are buffered in temp files.
+    public long getLobSpillThreshold() {
+        return lobSpillThreshold;
+    }
+
+    private long resultHeapBudget = SpilledRows.DEFAULT_HEAP_BUDGET;
+    private final Set<RowStore> openResults = ConcurrentHashMap.newKeySet();
+    private final MemoryBudget.Account memoryAccount = MemoryBudget.global().newAccount();
+
+    // Results estimated to need more heap than this are spilled to a temp file.
+    public long getResultHeapBudget() {
+        return resultHeapBudget;
+    }
+
+    private String resultStorage = "heap";
+
+    // How result sets keep their rows: "heap" as JSON nodes, "offheap" in
+    // direct buffers, or "lazy" as the raw response, decoding cells on read.
+    public String getResultStorage() {
+        return resultStorage;
+    }
+
+    private boolean parallelParse;
+
+    // Whether responses are buffered whole and their rows decoded on several
+    // cores, for results large enough that parsing outlasts the transfer.
+    public boolean getParallelParse() {
+        return parallelParse;
+    }
+
+    private ResultDecoder resultDecoder;
+
+    // Decodes buffered results instead of Jackson's streaming parser; null
+    // when the default reader is used.
+    public ResultDecoder getResultDecoder() {
+        return resultDecoder;
+    }
+
+    // The transport this connection sends its requests through.
+    public HttpTransport getHttpTransport() {
+        return transport;
+    }
+
+    // Replaces the shared transport until the next setURL.
+    void setHttpTransport(HttpTransport transport) {
+        this.transport = transport;
+    }
+
+    public HttpTransport.Http2Mode getHttp2() {
+        return http2;
+    }
+
+    // This connection's share of the driver-wide budget for buffered results.
+    public MemoryBudget.Account getMemoryAccount() {
+        return memoryAccount;
+    }
+
+    private int maxScanConcurrency = PartitionedScan.DEFAULT_MAX_CONCURRENCY;
+
+    // Range queries a partitioned scan may run at once against this database.
+    public int getMaxScanConcurrency() {
+        return maxScanConcurrency;
+    }
+
+    private ZoneId timeZone = ZoneId.systemDefault();
+    private DateTimeDecoder dateTimeDecoder = new DateTimeDecoder(timeZone);
+
+    // Access stores date/times without a zone; this is the zone they're read in.
+    public DateTimeDecoder getDateTimeDecoder() {
+        return dateTimeDecoder;
+    }
+
     public ObjectMapper getMapper() {
         return mapper;
     }
 
-    private void applyConnectionProperty(ConnectionProperty property) {
+    public QueryMonitor getQueryMonitor() {
+        return queryMonitor;
+    }
+
+    private void applyConnectionProperty(ConnectionProperty property) throws SQLException {
         switch (property.getKey()) {
             case "databaseName":
                 database = property.getValue();
@@ -116,21 +300,142 @@ public class BridgeAPI {
                 password = property.getValue();
                 break;
             case "useSsl":
-                useSsl = property.getValue() == "true";
+                useSsl = Boolean.parseBoolean(property.getValue());
+                break;
+            case "slowQueryThreshold":
+                queryMonitor.setSlowQueryThreshold(parse(property, Long::parseLong));
+                break;
+            case "catalogTtl":
+                catalogTtlSeconds = parse(property, Long::parseLong);
+                break;
+            case "lobSpillThreshold":
+                lobSpillThreshold = parse(property, Long::parseLong);
+                break;
+            case "resultHeapBudget":
+                resultHeapBudget = parse(property, Long::parseLong);
+                break;
+            case "resultStorage":
+                resultStorage = property.getValue().toLowerCase(Locale.ROOT);
+                break;
+            case "parallelParse":
+                parallelParse = Boolean.parseBoolean(property.getValue());
+                break;
+            case "httpTransport":
+                transportName = property.getValue();
+                break;
+            case "http2":
+                http2 = parse(property, value -> HttpTransport.Http2Mode.valueOf(
+                        value.toUpperCase(Locale.ROOT)));
+                break;
+            case "resultDecoder":
+                resultDecoder = createResultDecoder(property.getValue());
+                break;
+            case "memoryPolicy":
+                memoryAccount.setPolicy(parse(property, value -> MemoryBudget.Policy.valueOf(
+                        value.toUpperCase(Locale.ROOT))));
+                break;
+            case "memoryWaitTimeout":
+                memoryAccount.setWaitMillis(parse(property, Long::parseLong));
+                break;
+            case "maxScanConcurrency":
+                maxScanConcurrency = parse(property, Integer::parseInt);
+                break;
+            case "useStatementHandles":
+                useStatementHandles = Boolean.parseBoolean(property.getValue());
+                break;
+            case "timeZone":
+                timeZone = parse(property, ZoneId::of);
+                break;
+            case "redactParameters":
+                queryMonitor.setRedactParameters(Boolean.parseBoolean(property.getValue()));
                 break;
             default:
                 break;
         }
     }
 
-    public BridgeAPI() {
-        httpClient = new OkHttpClient();
+    private static <T> T parse(ConnectionProperty property, Function<String, T> parser)
+            throws SQLException {
+        try {
+            return parser.apply(property.getValue());
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new SQLException("Invalid value for connection property "
+                    + property.getKey() + ": " + property.getValue(), e);
+        }
+    }
+
+    static HttpTransport transport(String name) {
+        return transport(name, HttpTransport.Http2Mode.AUTO);
+    }
+
+    // The shared transport for "okhttp", "jdk" or the name of an HttpTransport
+    // class with a public no-argument constructor, which ignores the http2 mode.
+    static HttpTransport transport(String name, HttpTransport.Http2Mode http2) {
+        String lowerName = name.toLowerCase(Locale.ROOT);
+        if (!lowerName.equals("okhttp") && !lowerName.equals("jdk"))
+            return transports.computeIfAbsent(name, BridgeAPI::createTransport);
+
+        return transports.computeIfAbsent(lowerName + "/" + http2,
+                key -> createTransport(lowerName, http2));
+    }
+
+    // As with result decoders, the type is checked before the class is initialized.
+    private static HttpTransport createTransport(String className) {
+        try {
+            Class<?> type = Class.forName(className, false, BridgeAPI.class.getClassLoader());
+            if (!HttpTransport.class.isAssignableFrom(type))
+                throw new IllegalArgumentException("Unavailable HTTP transport " + className);
+
+            return type.asSubclass(HttpTransport.class).getConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new IllegalArgumentException("Unavailable HTTP transport " + className, e);
+        }
+    }
+
+    private static HttpTransport createTransport(String name, HttpTransport.Http2Mode http2) {
+        if (name.equals("okhttp"))
+            return new OkHttpTransport(http2);
+
+        // Built for Java 11 apart from the rest of the driver.
+        try {
+            return Class.forName("com.kordata.odbcbridge.JdkHttpTransport")
+                    .asSubclass(HttpTransport.class)
+                    .getConstructor(HttpTransport.Http2Mode.class).newInstance(http2);
+        } catch (InvocationTargetException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new IllegalArgumentException("Unavailable HTTP transport " + name, e);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new IllegalArgumentException("Unavailable HTTP transport " + name, e);
+        }
+    }
+
+    // "jackson", "swar", or the name of a ResultDecoder class with a public
+    // no-argument constructor.
+    private static ResultDecoder createResultDecoder(String name) {
+        switch (name.toLowerCase(Locale.ROOT)) {
+            case "jackson":
+                return null;
+            case "swar":
+                return new SwarResultDecoder();
+            default:
+                // The type is checked before the class is initialized, so a URL
+                // can't run the static initializer of any class it names.
+                try {
+                    Class<?> type = Class.forName(name, false, BridgeAPI.class.getClassLoader());
+                    if (!ResultDecoder.class.isAssignableFrom(type))
+                        throw new IllegalArgumentException("Unknown result decoder " + name);
+
+                    return type.asSubclass(ResultDecoder.class).getConstructor().newInstance();
+                } catch (ReflectiveOperationException | LinkageError e) {
+                    throw new IllegalArgumentException("Unknown result decoder " + name, e);
+                }
+        }
     }
 
     public boolean remoteIsReachable() {
         Request request = createGet(getHealthCheckEndpoint());
 
-        try (Response response = httpClient.newCall(request).execute()) {
+        try (Response response = transport.newCall(request).execute()) {
             return response.isSuccessful();
         } catch (IOException e) {
             return false;
@@ -138,67 +443,406 @@ public class BridgeAPI {
     }
 
     public ObjectNode query(String sql, ArrayNode parameters) throws IOException {
-        ObjectNode bodyNode = mapper.createObjectNode();
-        bodyNode.put("command", sql);
+        return query(sql, parameters == null ? null : ParameterWriter.of(parameters));
+    }
 
-        if (parameters != null) {
-            bodyNode.set("parameters", parameters);
-        }
+    public ObjectNode query(String sql, ParameterWriter parameters) throws IOException {
+        return query(sql, parameters, resultHeapBudget, null, "heap");
+    }
 
-        Request request = createPost(getQueryEndpoint(), bodyNode);
-        Response response = httpClient.newCall(request).execute();
+    // Reads a query for a result set, holding its rows against the driver's
+    // memory budget until the result set is closed.
+    ObjectNode bufferQuery(String sql, ParameterWriter parameters) throws IOException {
+        long heapBudget = memoryAccount.admit() ? resultHeapBudget : 0;
+        return query(sql, parameters, heapBudget, memoryAccount.newReservation(),
+                resultStorage);
+    }
 
-        if (!response.isSuccessful()) {
-            throw new IOException(response.message());
+    private ObjectNode query(String sql, ParameterWriter parameters, long heapBudget,
+            MemoryBudget.Reservation reservation, String storage) throws IOException {
+        long start = System.nanoTime();
+        CountingInputStream body = null;
+        // Held only while a whole body is buffered and parsed.
+        MemoryBudget.Reservation bodyReservation =
+                reservation != null ? memoryAccount.newReservation() : null;
+
+        try (Response response = execute(getQueryEndpoint(), "query", sql, parameters)) {
+            if (!response.isSuccessful()) {
+                throw new IOException(response.message());
+            }
+
+            body = new CountingInputStream(response.body());
+            ResponseReader reader = new ResponseReader(mapper, lobSpillThreshold, heapBudget,
+                    reservation, storage.equals("offheap"));
+            BufferedBody buffered = storage.equals("lazy") || parallelParse
+                    || resultDecoder != null
+                            ? bufferBody(body, contentLength(response), heapBudget,
+                                    bodyReservation)
+                            : new BufferedBody(null, body);
+            ObjectNode result;
+
+            if (buffered.bytes == null) {
+                result = reader.read(buffered.stream);
+            } else if (storage.equals("lazy")) {
+                result = reader.readLazily(buffered.bytes);
+            } else if (parallelParse) {
+                result = reader.readInParallel(buffered.bytes, ForkJoinPool.commonPool(),
+                        ResponseReader.PARSE_CHUNK_BYTES);
+            } else {
+                result = reader.readWith(buffered.bytes, resultDecoder);
+            }
+
+            track(result.get("results"));
+
+            return result;
+        } catch (JsonParseException e) {
+            // Shouldn't happen because we manually constructed the object.
+            throw new IllegalStateException(e.getMessage());
+        } finally {
+            if (bodyReservation != null) {
+                bodyReservation.close();
+            }
+
+            queryMonitor.record(sql, parameters, System.nanoTime() - start,
+                    body == null ? 0 : body.getCount());
         }
+    }
+
+    private static long contentLength(Response response) {
+        String length = response.header("Content-Length");
 
         try {
-            return (ObjectNode) mapper.readTree(response.body().byteStream());
+            return length == null ? -1 : Long.parseLong(length.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // A response body read whole, or the stream to read it from instead.
+    static final class BufferedBody {
+        final byte[] bytes;
+        final InputStream stream;
+
+        BufferedBody(byte[] bytes, InputStream stream) {
+            this.bytes = bytes;
+            this.stream = stream;
+        }
+    }
+
+    // Reads a body whole for the readers that need it, reserving the bytes
+    // before they're buffered. A body that doesn't fit the heap budget or the
+    // reservation is left to the streaming reader, which spills or fails by
+    // the connection's policy; without a length it's reserved as it grows.
+    static BufferedBody bufferBody(InputStream in, long length, long heapBudget,
+            MemoryBudget.Reservation reservation) throws IOException {
+        if (length > MAX_BUFFERED_BODY)
+            throw new IOException("Response of " + length + " bytes is too large to buffer");
+
+        if (length >= 0) {
+            if (length > heapBudget || !tryReserve(reservation, length))
+                return new BufferedBody(null, in);
+
+            byte[] bytes = new byte[(int) length];
+            ByteStreams.readFully(in, bytes);
+            return new BufferedBody(bytes, null);
+        }
+
+        int capacity = (int) Math.min(8192, Math.max(heapBudget, 0));
+        if (capacity == 0 || !tryReserve(reservation, capacity))
+            return new BufferedBody(null, in);
+
+        byte[] bytes = new byte[capacity];
+        int count = 0;
+
+        while (true) {
+            if (count == bytes.length) {
+                if (count == MAX_BUFFERED_BODY)
+                    throw new IOException("Response is too large to buffer");
+
+                long grown = Math.min(2L * count, MAX_BUFFERED_BODY);
+                if (grown > heapBudget || !tryReserve(reservation, grown - count)) {
+                    return new BufferedBody(null, new SequenceInputStream(
+                            new ByteArrayInputStream(bytes, 0, count), in));
+                }
+
+                bytes = Arrays.copyOf(bytes, (int) grown);
+            }
+
+            int read = in.read(bytes, count, bytes.length - count);
+            if (read < 0)
+                break;
+
+            count += read;
+        }
+
+        return new BufferedBody(count == bytes.length ? bytes : Arrays.copyOf(bytes, count),
+                null);
+    }
+
+    private static boolean tryReserve(MemoryBudget.Reservation reservation, long bytes) {
+        return reservation == null || reservation.tryGrow(bytes);
+    }
+
+    private void track(JsonNode results) {
+        if (results instanceof POJONode && ((POJONode) results).getPojo() instanceof RowStore) {
+            RowStore rows = (RowStore) ((POJONode) results).getPojo();
+            openResults.add(rows);
+            rows.setOnClose(() -> openResults.remove(rows));
+        }
+    }
+
+    // Releases the memory and temp files of results that were never closed.
+    public void closeResults() {
+        for (RowStore rows : openResults) {
+            rows.close();
+        }
+    }
+
+    public ObjectNode fetchSchema() throws IOException {
+        Request request = createGet(getSchemaEndpoint());
+
+        try (Response response = transport.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new IOException(response.message());
+            }
+
+            return (ObjectNode) mapper.readTree(response.body());
+        }
+    }
+
+    public int mutate(String sql, ArrayNode parameters) throws IOException {
+        return mutate(sql, parameters == null ? null : ParameterWriter.of(parameters));
+    }
+
+    public int mutate(String sql, ParameterWriter parameters) throws IOException {
+        long start = System.nanoTime();
+        CountingInputStream body = null;
+
+        try (Response response = execute(getQueryEndpoint(), "mutate", sql, parameters)) {
+            if (!response.isSuccessful()) {
+                throw new IOException(response.message());
+            }
+
+            body = new CountingInputStream(response.body());
+            ObjectNode responseNode = (ObjectNode) mapper.readTree(body);
+
+            if (SchemaCatalog.changesSchema(queryMonitor.fingerprint(sql))) {
+                SchemaCatalog.invalidate(this);
+            }
+
+            return responseNode.get("rowsAffected").asInt();
         } catch (JsonParseException e) {
-            // Shouldn't happen because we manually constructed the object.
             throw new IllegalStateException(e.getMessage());
+        } finally {
+            queryMonitor.record(sql, parameters, System.nanoTime() - start,
+                    body == null ? 0 : body.getCount());
         }
     }
 
-    public int mutate(String sql, ArrayNode parameters) throws IOException {
-        ObjectNode bodyNode = mapper.createObjectNode();
-        bodyNode.put("command", sql);
+    // Runs one statement per parameter set in a single request; the bridge
+    // applies them in one transaction and returns each set's row count.
+    public int[] mutateBatch(String sql, List<? extends ParameterWriter> parameterSets)
+            throws IOException {
+        ParameterWriter batch = new ParameterBatch(parameterSets);
+        Request request = Request.post(resolve(getBatchEndpoint()),
+                new JsonRequestBody(mapper.getFactory(), sql, "parameterSets", batch));
+        long start = System.nanoTime();
+        CountingInputStream body = null;
+
+        try (Response response = transport.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new IOException(response.message());
+            }
+
+            body = new CountingInputStream(response.body());
+            JsonNode rowsAffected = mapper.readTree(body).path("rowsAffected");
+
+            if (SchemaCatalog.changesSchema(queryMonitor.fingerprint(sql))) {
+                SchemaCatalog.invalidate(this);
+            }
+
+            int[] counts = new int[rowsAffected.size()];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = rowsAffected.get(i).asInt();
+            }
+
+            return counts;
+        } catch (JsonParseException e) {
+            throw new IllegalStateException(e.getMessage());
+        } finally {
+            queryMonitor.record(sql, batch, System.nanoTime() - start,
+                    body == null ? 0 : body.getCount());
+        }
+    }
+
+    private static class ParameterBatch implements ParameterWriter {
+        private final List<? extends ParameterWriter> parameterSets;
+
+        ParameterBatch(List<? extends ParameterWriter> parameterSets) {
+            this.parameterSets = parameterSets;
+        }
 
-        if (parameters != null) {
-            bodyNode.set("parameters", parameters);
+        @Override
+        public int size() {
+            return parameterSets.size();
         }
 
-        Request request = createPost(getQueryEndpoint(), bodyNode);
-        Response response = httpClient.newCall(request).execute();
+        @Override
+        public boolean isStreaming() {
+            return parameterSets.stream().anyMatch(ParameterWriter::isStreaming);
+        }
+
+        @Override
+        public void write(JsonGenerator generator) throws IOException {
+            generator.writeStartArray(parameterSets.size());
+
+            for (ParameterWriter parameters : parameterSets) {
+                parameters.write(generator);
+            }
+
+            generator.writeEndArray();
+        }
+
+        @Override
+        public String toString() {
+            return "[batch of " + parameterSets.size() + "]";
+        }
+    }
+
+    // Sends a parameterized statement by handle when the server supports it,
+    // registering it on first use and again if the server has forgotten it.
+    // Stream parameters can't be resent after a 410, so they always send SQL.
+    private Response execute(String endpoint, String action, String sql,
+            ParameterWriter parameters) throws IOException {
+        if (useStatementHandles && parameters != null && !parameters.isStreaming()) {
+            for (int attempt = 0; attempt < 2; attempt++) {
+                String handle = getStatementHandle(sql);
+                if (handle == null)
+                    break;
+
+                Request request =
+                        createPost(getStatementEndpoint(handle, action), null, parameters);
+                Response response = transport.newCall(request).execute();
+
+                if (response.code() != 410) {
+                    return response;
+                }
+
+                response.close();
+                statementHandles.invalidate(sql);
+            }
+        }
+
+        return transport.newCall(createPost(endpoint, sql, parameters)).execute();
+    }
+
+    private String getStatementHandle(String sql) throws IOException {
+        String handle = statementHandles.getIfPresent(sql);
+        if (handle != null)
+            return handle;
+
+        Request request = createPost(getStatementsEndpoint(), sql, null);
+
+        try (Response response = transport.newCall(request).execute()) {
+            if (response.code() == 404 || response.code() == 405) {
+                // The server predates statement handles.
+                useStatementHandles = false;
+                return null;
+            }
+
+            if (!response.isSuccessful()) {
+                throw new IOException(response.message());
+            }
+
+            handle = mapper.readTree(response.body()).path("handle").asText(null);
+        }
+
+        if (handle != null) {
+            statementHandles.put(sql, handle);
+        }
+
+        return handle;
+    }
+
+    public BulkLoader newBulkLoader() {
+        return new BulkLoader(this);
+    }
+
+    // Inserts or updates a chunk of records through the restified table endpoint.
+    HttpTransport.Call newPostRecordsCall(String table, String primaryKey,
+            HttpTransport.Body records) {
+        HttpUrl url = tableUrl(table).addQueryParameter("primaryKey", primaryKey).build();
+
+        return transport.newCall(Request.post(url.toString(), records));
+    }
+
+    // Streams a query's rows instead of reading the whole response up front.
+    public TableReader openQuery(String sql, ParameterWriter parameters) throws IOException {
+        Response response = execute(getQueryEndpoint(), "query", sql, parameters);
 
         if (!response.isSuccessful()) {
+            response.close();
             throw new IOException(response.message());
         }
 
-        try {
-            ObjectNode responseNode = (ObjectNode) mapper.readTree(response.body().byteStream());
-            return responseNode.get("rowsAffected").asInt();
-        } catch (JsonParseException e) {
-            throw new IllegalStateException(e.getMessage());
+        ResponseReader reader = new ResponseReader(mapper, lobSpillThreshold);
+        return new TableReader(reader, response, Collections.emptyList(),
+                Collections.emptyMap());
+    }
+
+    public TableReader readTable(String table) throws IOException {
+        return readTable(table, Collections.emptyList(), Collections.emptyMap());
+    }
+
+    // Streams a table's rows without SQL. Bridges that predate projection and
+    // filtering return every row and column; the reader then applies them itself.
+    public TableReader readTable(String table, List<String> columns, Map<String, ?> filters)
+            throws IOException {
+        HttpUrl.Builder url = tableUrl(table);
+
+        if (!columns.isEmpty()) {
+            url.addQueryParameter("fields", String.join(",", columns));
+        }
+
+        for (Map.Entry<String, ?> filter : filters.entrySet()) {
+            url.addQueryParameter("where." + filter.getKey(), String.valueOf(filter.getValue()));
         }
+
+        Request request = Request.get(url.build().toString());
+        Response response = transport.newCall(request).execute();
+
+        if (!response.isSuccessful()) {
+            response.close();
+            throw new IOException(response.message());
+        }
+
+        boolean applied = response.header(TableReader.QUERY_HEADER) != null;
+        ResponseReader reader = new ResponseReader(mapper, lobSpillThreshold);
+
+        return new TableReader(reader, response,
+                applied ? Collections.emptyList() : columns,
+                applied ? Collections.emptyMap() : filters);
+    }
+
+    private HttpUrl.Builder tableUrl(String table) {
+        return remoteUrl.newBuilder()
+                .encodedPath("/")
+                .addPathSegment("v1")
+                .addPathSegment(database)
+                .addPathSegment(table);
     }
 
-    private Request.Builder createBaseRequest(String endpoint) {
-        return new Request.Builder().url(remoteUrl.resolve(endpoint).toString());
+    private String resolve(String endpoint) {
+        return remoteUrl.resolve(endpoint).toString();
     }
 
     private Request createGet(String endpoint) {
-        return createBaseRequest(endpoint).build();
+        return Request.get(resolve(endpoint));
     }
 
-    private Request createPost(String endpoint, JsonNode jsonNode) {
-        try {
-            String bodyJson = mapper.writeValueAsString(jsonNode);
-            RequestBody requestBody = RequestBody.create(JSON, bodyJson);
-            return createBaseRequest(endpoint).post(requestBody).build();
-        } catch (JsonProcessingException e) {
-            // This shouldn't happen because we manually built the objects.
-            throw new IllegalStateException(e.getMessage());
-        }
+    private Request createPost(String endpoint, String sql, ParameterWriter parameters)
+            throws IOException {
+        return Request.post(resolve(endpoint),
+                new JsonRequestBody(mapper.getFactory(), sql, parameters));
     }
 }
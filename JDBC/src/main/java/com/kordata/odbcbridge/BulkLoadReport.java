@@ -0,0 +1,64 @@
+package com.kordata.odbcbridge;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+// Outcome of a bulk load. Failed records are kept as a bitmap of their
+// positions in the caller's iterator rather than as copies of the records.
+public class BulkLoadReport {
+    private static final int MAX_ERRORS = 100;
+
+    private final BitSet failed = new BitSet();
+    private final List<String> errors = new ArrayList<>();
+    private int recordCount;
+
+    synchronized void fail(int index) {
+        failed.set(index);
+    }
+
+    synchronized void failChunk(int first, int count, String error) {
+        failed.set(first, first + count);
+
+        if (errors.size() < MAX_ERRORS) {
+            errors.add("Records " + first + "-" + (first + count - 1) + ": " + error);
+        }
+    }
+
+    synchronized void setRecordCount(int recordCount) {
+        this.recordCount = recordCount;
+    }
+
+    public synchronized int getRecordCount() {
+        return recordCount;
+    }
+
+    public synchronized int getFailureCount() {
+        return failed.cardinality();
+    }
+
+    public synchronized boolean isSuccessful() {
+        return failed.isEmpty();
+    }
+
+    public synchronized boolean isFailed(int index) {
+        return failed.get(index);
+    }
+
+    // Zero-based positions of the records that weren't written.
+    public synchronized int[] getFailedRecords() {
+        return failed.stream().toArray();
+    }
+
+    // Whole chunks that failed, e.g. on a transport error; capped at 100.
+    public synchronized List<String> getErrors() {
+        return Collections.unmodifiableList(new ArrayList<>(errors));
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "Loaded " + (recordCount - failed.cardinality()) + " of " + recordCount
+                + " records, " + failed.cardinality() + " failed";
+    }
+}
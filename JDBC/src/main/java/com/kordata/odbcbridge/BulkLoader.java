@@ -0,0 +1,262 @@
+package com.kordata.odbcbridge;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.math.BigDecimal;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kordata.odbcbridge.HttpTransport.Call;
+import com.kordata.odbcbridge.HttpTransport.Response;
+import okio.Buffer;
+
+// Loads records through POST /v1/{database}/{table}, which inserts or updates
+// each record by its primary key. Records are written into JSON chunks and sent
+// with bounded parallelism; the caller's iterator is only advanced when a chunk
+// slot is free, so at most parallelism * chunkSize records are held at once.
+public class BulkLoader {
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    private final BridgeAPI api;
+    private final ObjectMapper mapper;
+
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private int parallelism = DEFAULT_PARALLELISM;
+
+    public BulkLoader(BridgeAPI api) {
+        this.api = api;
+        this.mapper = api.getMapper();
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+
+        this.chunkSize = chunkSize;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    // The OkHttp transport runs at most five calls per host at once over
+    // HTTP/1.1, which is every plain http:// bridge without
+    // http2=prior_knowledge; chunks beyond that wait in its dispatcher while
+    // holding their slot.
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+
+        this.parallelism = parallelism;
+    }
+
+    public BulkLoadReport load(String table, String primaryKey,
+            Iterator<? extends Map<String, ?>> records) throws IOException {
+        BulkLoadReport report = new BulkLoadReport();
+        Semaphore slots = new Semaphore(parallelism);
+        Set<Call> inFlight = ConcurrentHashMap.newKeySet();
+        int first = 0;
+
+        try {
+            while (records.hasNext()) {
+                slots.acquire();
+
+                Buffer chunk = new Buffer();
+                int count = writeChunk(records, chunk);
+                HttpTransport.Body body = HttpTransport.Body.of(chunk.readByteArray());
+
+                Call call = api.newPostRecordsCall(table, primaryKey, body);
+                inFlight.add(call);
+                call.enqueue(new ChunkCallback(report, first, count, () -> {
+                    inFlight.remove(call);
+                    slots.release();
+                }));
+
+                first += count;
+            }
+
+            // Wait for the last chunks to come back.
+            slots.acquire(parallelism);
+        } catch (InterruptedException e) {
+            inFlight.forEach(Call::cancel);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Bulk load interrupted");
+        } catch (IOException | RuntimeException e) {
+            // The records or a chunk failed; don't keep writing the ones in flight.
+            inFlight.forEach(Call::cancel);
+            throw e;
+        }
+
+        report.setRecordCount(first);
+        return report;
+    }
+
+    private int writeChunk(Iterator<? extends Map<String, ?>> records, Buffer chunk)
+            throws IOException {
+        int count = 0;
+
+        try (JsonGenerator generator =
+                mapper.getFactory().createGenerator(chunk.outputStream())) {
+            generator.writeStartArray();
+
+            while (count < chunkSize && records.hasNext()) {
+                writeRecord(generator, records.next());
+                count++;
+            }
+
+            generator.writeEndArray();
+        }
+
+        return count;
+    }
+
+    private void writeRecord(JsonGenerator generator, Map<String, ?> record) throws IOException {
+        generator.writeStartObject();
+
+        for (Map.Entry<String, ?> field : record.entrySet()) {
+            Object value = field.getValue();
+            generator.writeFieldName(field.getKey());
+
+            if (value == null) {
+                generator.writeNull();
+            } else if (value instanceof String) {
+                generator.writeString((String) value);
+            } else if (value instanceof Integer || value instanceof Long) {
+                generator.writeNumber(((Number) value).longValue());
+            } else if (value instanceof Double) {
+                generator.writeNumber((Double) value);
+            } else if (value instanceof BigDecimal) {
+                generator.writeNumber((BigDecimal) value);
+            } else if (value instanceof Boolean) {
+                generator.writeBoolean((Boolean) value);
+            } else if (value instanceof Date || value instanceof TemporalAccessor) {
+                generator.writeString(formatDate(value));
+            } else {
+                mapper.writeValue(generator, value);
+            }
+        }
+
+        generator.writeEndObject();
+    }
+
+    // Dates go over as text, formatted as they are for statement parameters:
+    // instants as local time in the connection's zone, local values as they are.
+    private String formatDate(Object value) {
+        if (value instanceof java.sql.Date)
+            return ((java.sql.Date) value).toLocalDate().toString();
+
+        if (value instanceof Time)
+            return ((Time) value).toLocalTime().toString();
+
+        if (value instanceof Timestamp)
+            return api.getDateTimeDecoder().format((Timestamp) value);
+
+        if (value instanceof Date)
+            return api.getDateTimeDecoder().format(new Timestamp(((Date) value).getTime()));
+
+        if (value instanceof TemporalAccessor
+                && ((TemporalAccessor) value).isSupported(ChronoField.INSTANT_SECONDS)) {
+            return api.getDateTimeDecoder().format(Timestamp.from(Instant.from(
+                    (TemporalAccessor) value)));
+        }
+
+        return value.toString();
+    }
+
+    private class ChunkCallback implements HttpTransport.Callback {
+        private final BulkLoadReport report;
+        private final int first;
+        private final int count;
+        private final Runnable done;
+
+        ChunkCallback(BulkLoadReport report, int first, int count, Runnable done) {
+            this.report = report;
+            this.first = first;
+            this.count = count;
+            this.done = done;
+        }
+
+        @Override
+        public void onFailure(IOException e) {
+            try {
+                report.failChunk(first, count, e.getMessage());
+            } finally {
+                done.run();
+            }
+        }
+
+        @Override
+        public void onResponse(Response response) {
+            try (Response r = response) {
+                if (!r.isSuccessful()) {
+                    report.failChunk(first, count, r.code() + " " + r.message());
+                    return;
+                }
+
+                int read = readResults(r);
+
+                // Rows the bridge didn't answer for weren't written either.
+                if (read < count) {
+                    report.failChunk(first + read, count - read, "Missing results");
+                }
+            } catch (IOException | RuntimeException e) {
+                report.failChunk(first, count, e.getMessage());
+            } finally {
+                done.run();
+            }
+        }
+
+        // The bridge answers with one {"success": bool} per record, in order.
+        private int readResults(Response response) throws IOException {
+            int index = 0;
+
+            try (JsonParser parser = mapper.getFactory().createParser(response.body())) {
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    throw new IOException("Expected an array of results");
+                }
+
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    boolean success = false;
+
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String field = parser.getCurrentName();
+                        JsonToken token = parser.nextToken();
+
+                        if (field.equals("success")) {
+                            success = token == JsonToken.VALUE_TRUE;
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+
+                    if (!success && index < count) {
+                        report.fail(first + index);
+                    }
+
+                    index++;
+                }
+            }
+
+            return Math.min(index, count);
+        }
+    }
+}
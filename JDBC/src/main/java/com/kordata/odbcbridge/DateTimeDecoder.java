@@ -0,0 +1,356 @@
+package com.kordata.odbcbridge;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.zone.ZoneRules;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Decodes the date/time strings the bridge emits without going through
+// java.time parsers or exceptions. Access has no time zones, so values without
+// an offset are local to the connection's zone policy.
+//
+// Supported: yyyy-MM-dd, yyyy-MM-ddTHH:mm[:ss[.fffffffff]] (T or space),
+// HH:mm[:ss[.fffffffff]], each optionally followed by Z or +/-HH[:mm].
+public class DateTimeDecoder {
+    private static final int NO_OFFSET = Integer.MIN_VALUE;
+    private static final int SECONDS_PER_DAY = 86400;
+    private static final int VALUE_CACHE_SIZE = 256;
+    private static final int OFFSET_CACHE_SIZE = 64;
+    private static final DateTimeFormatter DATE_TIME =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final ConcurrentMap<ZoneId, OffsetCache> offsetCaches =
+            new ConcurrentHashMap<>();
+
+    private final ZoneId zone;
+    private final OffsetCache zoneOffsets;
+
+    // Scans repeat the same handful of dates; the direct-mapped cache skips
+    // re-parsing them. Entries are immutable so racing writers are harmless.
+    private final Value[] values = new Value[VALUE_CACHE_SIZE];
+
+    private static final class Value {
+        final String text;
+        final long localEpochSecond;
+        final int nanos;
+        final int offsetSeconds;
+
+        Value(String text, long localEpochSecond, int nanos, int offsetSeconds) {
+            this.text = text;
+            this.localEpochSecond = localEpochSecond;
+            this.nanos = nanos;
+            this.offsetSeconds = offsetSeconds;
+        }
+    }
+
+    private static final class Offset {
+        final long hour;
+        final int seconds;
+
+        Offset(long hour, int seconds) {
+            this.hour = hour;
+            this.seconds = seconds;
+        }
+    }
+
+    private static final class OffsetCache {
+        private final ZoneRules rules;
+        private final Offset[] offsets = new Offset[OFFSET_CACHE_SIZE];
+
+        OffsetCache(ZoneId zone) {
+            rules = zone.getRules();
+        }
+
+        int offsetFor(long localEpochSecond) {
+            if (rules.isFixedOffset()) {
+                return rules.getOffset(Instant.EPOCH).getTotalSeconds();
+            }
+
+            long hour = Math.floorDiv(localEpochSecond, 3600);
+            int slot = (int) (hour & (OFFSET_CACHE_SIZE - 1));
+
+            Offset cached = offsets[slot];
+            if (cached != null && cached.hour == hour) {
+                return cached.seconds;
+            }
+
+            int seconds = lookup(localEpochSecond);
+
+            // Only cache hours that don't contain a transition.
+            if (lookup(hour * 3600) == seconds && lookup(hour * 3600 + 3599) == seconds) {
+                offsets[slot] = new Offset(hour, seconds);
+            }
+
+            return seconds;
+        }
+
+        private int lookup(long localEpochSecond) {
+            LocalDateTime local =
+                    LocalDateTime.ofEpochSecond(localEpochSecond, 0, ZoneOffset.UTC);
+
+            return rules.getOffset(local).getTotalSeconds();
+        }
+    }
+
+    public DateTimeDecoder(ZoneId zone) {
+        this.zone = zone;
+        this.zoneOffsets = offsetCache(zone);
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    // The local date/time of a timestamp in this decoder's zone, without an
+    // offset, so a parameter written with it reads back as the same instant.
+    public String format(Timestamp timestamp) {
+        String local = LocalDateTime.ofInstant(timestamp.toInstant(), zone).format(DATE_TIME);
+        int nanos = timestamp.getNanos();
+
+        if (nanos == 0)
+            return local;
+
+        String fraction = String.format("%09d", nanos);
+        int end = fraction.length();
+        while (fraction.charAt(end - 1) == '0') {
+            end--;
+        }
+
+        return local + "." + fraction.substring(0, end);
+    }
+
+    private static OffsetCache offsetCache(ZoneId zone) {
+        return offsetCaches.computeIfAbsent(zone, OffsetCache::new);
+    }
+
+    public Timestamp toTimestamp(String text) {
+        return toTimestamp(text, zoneOffsets);
+    }
+
+    public Timestamp toTimestamp(String text, ZoneId zone) {
+        return toTimestamp(text, zone.equals(this.zone) ? zoneOffsets : offsetCache(zone));
+    }
+
+    private Timestamp toTimestamp(String text, OffsetCache offsets) {
+        Value value = decode(text);
+        if (value == null)
+            return null;
+
+        long epochSecond = toEpochSecond(value, offsets);
+
+        Timestamp timestamp = new Timestamp(epochSecond * 1000);
+        timestamp.setNanos(value.nanos);
+        return timestamp;
+    }
+
+    // java.sql.Date and Time are defined against the JVM default zone, so their
+    // local fields round-trip through toLocalDate()/toLocalTime().
+    public Date toDate(String text) {
+        Value value = decode(text);
+        if (value == null)
+            return null;
+
+        long localEpochDay = Math.floorDiv(value.localEpochSecond, SECONDS_PER_DAY);
+        long midnight = localEpochDay * SECONDS_PER_DAY;
+
+        return new Date((midnight - defaultOffsets().offsetFor(midnight)) * 1000);
+    }
+
+    public Time toTime(String text) {
+        Value value = decode(text);
+        if (value == null)
+            return null;
+
+        // Time values are anchored to 1970-01-01, like Time.valueOf().
+        long secondOfDay = Math.floorMod(value.localEpochSecond, SECONDS_PER_DAY);
+        long millis = (secondOfDay - defaultOffsets().offsetFor(secondOfDay)) * 1000
+                + value.nanos / 1_000_000;
+
+        return new Time(millis);
+    }
+
+    private static OffsetCache defaultOffsets() {
+        return offsetCache(ZoneId.systemDefault());
+    }
+
+    private static long toEpochSecond(Value value, OffsetCache offsets) {
+        if (value.offsetSeconds != NO_OFFSET) {
+            return value.localEpochSecond - value.offsetSeconds;
+        }
+
+        return value.localEpochSecond - offsets.offsetFor(value.localEpochSecond);
+    }
+
+    private Value decode(String text) {
+        if (text == null)
+            return null;
+
+        int slot = text.hashCode() & (VALUE_CACHE_SIZE - 1);
+        Value cached = values[slot];
+
+        if (cached != null && cached.text.equals(text)) {
+            return cached;
+        }
+
+        Value value = parse(text);
+        if (value != null) {
+            values[slot] = value;
+        }
+
+        return value;
+    }
+
+    private static Value parse(String text) {
+        int length = text.length();
+        int i = 0;
+
+        long epochDay = 0;
+        boolean hasDate = false;
+
+        if (length >= 10 && text.charAt(4) == '-' && text.charAt(7) == '-') {
+            int year = digits(text, 0, 4);
+            int month = digits(text, 5, 2);
+            int day = digits(text, 8, 2);
+
+            if (year < 0 || month < 1 || month > 12 || day < 1
+                    || day > lengthOfMonth(year, month))
+                return null;
+
+            epochDay = toEpochDay(year, month, day);
+            hasDate = true;
+            i = 10;
+
+            if (i < length && (text.charAt(i) == 'T' || text.charAt(i) == ' ')) {
+                i++;
+            }
+        }
+
+        int secondOfDay = 0;
+        int nanos = 0;
+
+        if (i + 5 <= length && text.charAt(i + 2) == ':') {
+            int hour = digits(text, i, 2);
+            int minute = digits(text, i + 3, 2);
+            int second = 0;
+            i += 5;
+
+            if (i + 3 <= length && text.charAt(i) == ':') {
+                second = digits(text, i + 1, 2);
+                i += 3;
+            }
+
+            if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59)
+                return null;
+
+            if (i < length && text.charAt(i) == '.') {
+                i++;
+                int scale = 100_000_000;
+
+                while (i < length && Character.isDigit(text.charAt(i))) {
+                    nanos += (text.charAt(i) - '0') * scale;
+                    scale /= 10;
+                    i++;
+                }
+            }
+
+            secondOfDay = hour * 3600 + minute * 60 + second;
+        } else if (!hasDate) {
+            return null;
+        }
+
+        int offsetSeconds = NO_OFFSET;
+
+        if (i < length) {
+            char c = text.charAt(i);
+
+            if (c == 'Z' && i + 1 == length) {
+                offsetSeconds = 0;
+            } else if ((c == '+' || c == '-') && i + 3 <= length) {
+                int hours = digits(text, i + 1, 2);
+                int minutes = 0;
+
+                if (i + 6 == length && text.charAt(i + 3) == ':') {
+                    minutes = digits(text, i + 4, 2);
+                } else if (i + 5 == length) {
+                    minutes = digits(text, i + 3, 2);
+                } else if (i + 3 != length) {
+                    return null;
+                }
+
+                if (hours < 0 || minutes < 0)
+                    return null;
+
+                offsetSeconds = (hours * 3600 + minutes * 60) * (c == '-' ? -1 : 1);
+            } else {
+                return null;
+            }
+        }
+
+        return new Value(text, epochDay * SECONDS_PER_DAY + secondOfDay, nanos, offsetSeconds);
+    }
+
+    private static int digits(String text, int start, int count) {
+        if (start + count > text.length())
+            return -1;
+
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9')
+                return -1;
+
+            value = value * 10 + (c - '0');
+        }
+
+        return value;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    // Same algorithm as LocalDate.toEpochDay().
+    private static long toEpochDay(int year, int month, int day) {
+        long y = year;
+        long total = 365 * y;
+
+        if (y >= 0) {
+            total += (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+        } else {
+            total -= y / -4 - y / -100 + y / -400;
+        }
+
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+
+        return total - 719528;
+    }
+}
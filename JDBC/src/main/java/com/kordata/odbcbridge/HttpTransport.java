@@ -0,0 +1,169 @@
+package com.kordata.odbcbridge;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+// Sends the driver's requests to the bridge, chosen with the httpTransport
+// connection property: "okhttp" (the default), "jdk" for java.net.http on Java
+// 11 and later, or the name of a class with a public no-argument constructor.
+// Connections choosing the same transport share one instance, and with it the
+// connection pool, so implementations must be thread-safe.
+public interface HttpTransport {
+    Call newCall(Request request);
+
+    Stats getStats();
+
+    // How the transport uses HTTP/2, chosen with the http2 connection property.
+    // Over HTTP/2 concurrent statements share a connection as separate streams.
+    enum Http2Mode {
+        // HTTP/2 where the bridge offers it over TLS, HTTP/1.1 otherwise.
+        AUTO,
+        // Cleartext HTTP/2 (h2c) without an upgrade, for useSsl=false against a
+        // bridge known to speak it. Treated as AUTO over TLS.
+        PRIOR_KNOWLEDGE,
+        // HTTP/1.1 only, one connection per concurrent call.
+        OFF
+    }
+
+    // The bodies the driver sends are always JSON.
+    interface Body {
+        // -1 when it isn't known before the body is written.
+        long contentLength();
+
+        // True when the body streams from its source, so can only be written once.
+        boolean isOneShot();
+
+        void writeTo(OutputStream out) throws IOException;
+
+        static Body of(byte[] bytes) {
+            return new Body() {
+                @Override
+                public long contentLength() {
+                    return bytes.length;
+                }
+
+                @Override
+                public boolean isOneShot() {
+                    return false;
+                }
+
+                @Override
+                public void writeTo(OutputStream out) throws IOException {
+                    out.write(bytes);
+                }
+            };
+        }
+    }
+
+    final class Request {
+        private final String url;
+        private final Body body;
+
+        private Request(String url, Body body) {
+            this.url = url;
+            this.body = body;
+        }
+
+        public static Request get(String url) {
+            return new Request(url, null);
+        }
+
+        public static Request post(String url, Body body) {
+            return new Request(url, body);
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public String getMethod() {
+            return body == null ? "GET" : "POST";
+        }
+
+        // Null for a GET.
+        public Body getBody() {
+            return body;
+        }
+    }
+
+    // Close it to release the connection, whether or not the body was read.
+    interface Response extends Closeable {
+        int code();
+
+        String message();
+
+        // The negotiated protocol: "http/1.1", "h2" or "h2_prior_knowledge".
+        String protocol();
+
+        // The first value of the named header, or null.
+        String header(String name);
+
+        InputStream body() throws IOException;
+
+        default boolean isSuccessful() {
+            return code() >= 200 && code() < 300;
+        }
+
+        @Override
+        void close();
+    }
+
+    interface Call {
+        Response execute() throws IOException;
+
+        // Calls back on the transport's threads once the response headers arrive.
+        void enqueue(Callback callback);
+
+        // Fails the call if it hasn't completed; a no-op once it has.
+        void cancel();
+    }
+
+    interface Callback {
+        // Must close the response.
+        void onResponse(Response response);
+
+        void onFailure(IOException e);
+    }
+
+    // A snapshot of the transport's activity, across every connection using it.
+    final class Stats {
+        private final long completedCalls;
+        private final int activeCalls;
+        private final int openConnections;
+        private final int idleConnections;
+
+        public Stats(long completedCalls, int activeCalls, int openConnections,
+                int idleConnections) {
+            this.completedCalls = completedCalls;
+            this.activeCalls = activeCalls;
+            this.openConnections = openConnections;
+            this.idleConnections = idleConnections;
+        }
+
+        public long getCompletedCalls() {
+            return completedCalls;
+        }
+
+        public int getActiveCalls() {
+            return activeCalls;
+        }
+
+        // -1 when the transport doesn't expose its pool.
+        public int getOpenConnections() {
+            return openConnections;
+        }
+
+        // -1 when the transport doesn't expose its pool.
+        public int getIdleConnections() {
+            return idleConnections;
+        }
+
+        @Override
+        public String toString() {
+            return "completed=" + completedCalls + ", active=" + activeCalls + ", open="
+                    + openConnections + ", idle=" + idleConnections;
+        }
+    }
+}
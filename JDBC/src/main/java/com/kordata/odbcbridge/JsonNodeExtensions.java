@@ -1,43 +1,39 @@
 package com.kordata.odbcbridge;
 
 import java.sql.Date;
+import java.sql.SQLException;
 import java.sql.Time;
 import java.sql.Timestamp;
-import java.time.Instant;
-import java.time.LocalDate;
-import java.time.LocalTime;
-import java.time.format.DateTimeParseException;
 import com.fasterxml.jackson.databind.JsonNode;
 
 public class JsonNodeExtensions {
-    public static Timestamp timestampValue(JsonNode node) {
-        try {
-            Instant instant = Instant.parse(node.asText());
-            return Timestamp.from(instant);
-        } catch (DateTimeParseException e) {
-            return new Timestamp(0);
-        }
+    public static Timestamp timestampValue(JsonNode node, DateTimeDecoder decoder)
+            throws SQLException {
+        Timestamp timestamp = decoder.toTimestamp(node.asText());
+        if (timestamp == null)
+            throw new SQLException("Invalid timestamp value: " + node.asText());
+
+        return timestamp;
     }
 
-    public static Date dateValue(JsonNode node) {
-        try {
-            LocalDate date = LocalDate.parse(node.asText());
-            return Date.valueOf(date);
-        } catch (DateTimeParseException e) {
-            return new Date(0);
-        }
+    public static Date dateValue(JsonNode node, DateTimeDecoder decoder) throws SQLException {
+        Date date = decoder.toDate(node.asText());
+        if (date == null)
+            throw new SQLException("Invalid date value: " + node.asText());
+
+        return date;
     }
 
-    public static Time timeValue(JsonNode node) {
-        try {
-            LocalTime time = LocalTime.parse(node.asText());
-            return Time.valueOf(time);
-        } catch (DateTimeParseException e) {
-            return new Time(0);
-        }
+    public static Time timeValue(JsonNode node, DateTimeDecoder decoder) throws SQLException {
+        Time time = decoder.toTime(node.asText());
+        if (time == null)
+            throw new SQLException("Invalid time value: " + node.asText());
+
+        return time;
     }
 
-    public static Object toObject(JsonNode node, String type) {
+    public static Object toObject(JsonNode node, String type, DateTimeDecoder decoder)
+            throws SQLException {
         if (node.isNull())
             return null;
 
@@ -46,6 +42,8 @@ public class JsonNodeExtensions {
                 return node.textValue();
             case "int":
                 return node.intValue();
+            case "long":
+                return node.longValue();
             case "short":
                 return node.shortValue();
             case "byte":
@@ -55,11 +53,11 @@ public class JsonNodeExtensions {
             case "decimal":
                 return node.decimalValue();
             case "dateTime":
-                return timestampValue(node);
+                return timestampValue(node, decoder);
             case "date":
-                return dateValue(node);
+                return dateValue(node, decoder);
             case "time":
-                return timeValue(node);
+                return timeValue(node, decoder);
             default:
                 return node.asText();
         }
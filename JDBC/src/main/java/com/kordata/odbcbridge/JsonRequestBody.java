@@ -0,0 +1,94 @@
+package com.kordata.odbcbridge;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import okio.Buffer;
+import okio.BufferedSink;
+
+// A statement request body written by a JsonGenerator instead of going through
+// an intermediate String. Regular bodies are encoded once into an okio Buffer,
+// whose pooled segments the OkHttp transport hands to the connection without
+// copying; bodies with stream parameters are written straight out, chunked.
+class JsonRequestBody implements HttpTransport.Body {
+    private final JsonFactory factory;
+    private final String command;
+    private final String parametersField;
+    private final ParameterWriter parameters;
+    private final Buffer buffer;
+
+    JsonRequestBody(JsonFactory factory, String command, ParameterWriter parameters)
+            throws IOException {
+        this(factory, command, "parameters", parameters);
+    }
+
+    JsonRequestBody(JsonFactory factory, String command, String parametersField,
+            ParameterWriter parameters) throws IOException {
+        this.factory = factory;
+        this.command = command;
+        this.parametersField = parametersField;
+        this.parameters = parameters;
+
+        if (parameters != null && parameters.isStreaming()) {
+            buffer = null;
+        } else {
+            buffer = new Buffer();
+            write(buffer.outputStream());
+        }
+    }
+
+    private void write(OutputStream out) throws IOException {
+        JsonGenerator generator = factory.createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        try {
+            generator.writeStartObject();
+
+            // Statements sent by handle carry only their parameters.
+            if (command != null) {
+                generator.writeStringField("command", command);
+            }
+
+            if (parameters != null) {
+                generator.writeFieldName(parametersField);
+                parameters.write(generator);
+            }
+
+            generator.writeEndObject();
+        } finally {
+            generator.close();
+        }
+    }
+
+    @Override
+    public long contentLength() {
+        return buffer == null ? -1 : buffer.size();
+    }
+
+    @Override
+    public boolean isOneShot() {
+        return buffer == null;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        if (buffer == null) {
+            write(out);
+            return;
+        }
+
+        buffer.copyTo(out);
+    }
+
+    void writeTo(BufferedSink sink) throws IOException {
+        if (buffer == null) {
+            write(sink.outputStream());
+            return;
+        }
+
+        // The clone shares the buffer's segments, so retries can resend it.
+        Buffer copy = buffer.clone();
+        sink.write(copy, copy.size());
+    }
+}
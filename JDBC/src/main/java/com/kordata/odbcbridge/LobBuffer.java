@@ -0,0 +1,203 @@
+package com.kordata.odbcbridge;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CharStreams;
+
+// Holds one LOB cell (OLE Object, attachment or long memo) decoded straight from
+// the response. Values stay on the heap up to the spill threshold and move to a
+// temp file beyond it; the owning result set deletes the file when it closes.
+class LobBuffer implements Closeable {
+    public static final long DEFAULT_SPILL_THRESHOLD = 1024 * 1024;
+
+    private final boolean binary;
+    private final long spillThreshold;
+
+    private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+    private File file;
+    private OutputStream output;
+
+    private long byteLength;
+    private long charLength;
+    private boolean closed;
+
+    LobBuffer(boolean binary, long spillThreshold) {
+        this.binary = binary;
+        this.spillThreshold = spillThreshold;
+        this.output = memory;
+    }
+
+    static LobBuffer of(byte[] bytes) {
+        LobBuffer lob = new LobBuffer(true, Long.MAX_VALUE);
+        lob.memory.write(bytes, 0, bytes.length);
+        lob.byteLength = bytes.length;
+        return lob;
+    }
+
+    static LobBuffer of(String text) {
+        LobBuffer lob = new LobBuffer(false, Long.MAX_VALUE);
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        lob.memory.write(bytes, 0, bytes.length);
+        lob.byteLength = bytes.length;
+        lob.charLength = text.length();
+        return lob;
+    }
+
+    boolean isBinary() {
+        return binary;
+    }
+
+    boolean isSpilled() {
+        return file != null;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    // Bytes for binary values, chars for text.
+    long length() {
+        return binary ? byteLength : charLength;
+    }
+
+    OutputStream openOutput() {
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                reserve(1);
+                output.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                reserve(len);
+                output.write(b, off, len);
+            }
+        };
+    }
+
+    // Text is kept as UTF-8 so a spilled memo costs its encoded size on disk.
+    Writer openWriter() {
+        Writer utf8 = new OutputStreamWriter(openOutput(), StandardCharsets.UTF_8);
+
+        return new FilterWriter(utf8) {
+            @Override
+            public void write(int c) throws IOException {
+                charLength++;
+                super.write(c);
+            }
+
+            @Override
+            public void write(char[] cbuf, int off, int len) throws IOException {
+                charLength += len;
+                super.write(cbuf, off, len);
+            }
+
+            @Override
+            public void write(String str, int off, int len) throws IOException {
+                charLength += len;
+                super.write(str, off, len);
+            }
+        };
+    }
+
+    private void reserve(int count) throws IOException {
+        byteLength += count;
+
+        if (file == null && byteLength > spillThreshold) {
+            file = File.createTempFile("odbcbridge-lob", ".tmp");
+            output = new BufferedOutputStream(new FileOutputStream(file));
+            memory.writeTo(output);
+            memory = null;
+        }
+    }
+
+    // Called once the value has been written.
+    void finish() throws IOException {
+        if (file != null) {
+            output.close();
+        }
+    }
+
+    InputStream openStream() throws IOException {
+        checkOpen();
+
+        if (file != null) {
+            return new FileInputStream(file);
+        }
+
+        return new ByteArrayInputStream(memory.toByteArray());
+    }
+
+    Reader openReader() throws IOException {
+        if (binary) {
+            return new StringReader(toText());
+        }
+
+        return new InputStreamReader(openStream(), StandardCharsets.UTF_8);
+    }
+
+    byte[] toBytes() throws IOException {
+        try (InputStream in = openStream()) {
+            return ByteStreams.toByteArray(in);
+        }
+    }
+
+    // Binary values read as text come back as base64, as they are on the wire.
+    String toText() throws IOException {
+        if (binary) {
+            return BaseEncoding.base64().encode(toBytes());
+        }
+
+        try (Reader reader = openReader()) {
+            return CharStreams.toString(reader);
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed) {
+            throw new IOException("LOB has been released");
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed)
+            return;
+
+        closed = true;
+        memory = null;
+
+        if (file != null) {
+            try {
+                output.close();
+            } catch (IOException e) {
+                // Nothing to flush to a file we're deleting.
+            }
+
+            file.delete();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return binary ? "[binary " + byteLength + " bytes]" : "[text " + charLength + " chars]";
+    }
+}
@@ -0,0 +1,106 @@
+package com.kordata.odbcbridge;
+
+// An open-addressing set of longs with linear probing. Keys are stored
+// unboxed in one array; zero marks an empty slot, so the key 0 is tracked
+// separately.
+class LongHashSet {
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private int mask;
+    private int size;
+    private boolean hasZero;
+
+    LongHashSet() {
+        this(MIN_CAPACITY);
+    }
+
+    LongHashSet(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    // Keeps the load factor at or below one half.
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2L && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+
+        return capacity;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    // Spreads sequential keys, which is what primary keys usually are.
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    boolean add(long key) {
+        if (key == 0) {
+            if (hasZero)
+                return false;
+
+            hasZero = true;
+            size++;
+            return true;
+        }
+
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key)
+                return false;
+
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        size++;
+
+        if (size * 2 > keys.length) {
+            rehash();
+        }
+
+        return true;
+    }
+
+    boolean contains(long key) {
+        if (key == 0)
+            return hasZero;
+
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key)
+                return true;
+
+            slot = (slot + 1) & mask;
+        }
+
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void rehash() {
+        long[] old = keys;
+        allocate(old.length * 2);
+
+        for (long key : old) {
+            if (key == 0)
+                continue;
+
+            int slot = hash(key) & mask;
+            while (keys[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+
+            keys[slot] = key;
+        }
+    }
+}
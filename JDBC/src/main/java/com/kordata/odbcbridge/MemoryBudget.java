@@ -0,0 +1,198 @@
+package com.kordata.odbcbridge;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Accounts for the heap that buffered results hold across every connection in
+// the JVM, so several large queries can't together exhaust it. Each connection
+// reserves through its own Account, which also reports that connection's usage.
+//
+// Once the budget is used up, a connection's policy decides what its next query
+// does: BLOCK waits for other results to be closed, SPILL buffers it on disk and
+// FAIL rejects it. A result that outgrows the budget while it's read is spilled
+// under BLOCK and SPILL, and fails under FAIL.
+public final class MemoryBudget {
+    public enum Policy {
+        BLOCK, SPILL, FAIL
+    }
+
+    public static final long DEFAULT_WAIT_MILLIS = 30_000;
+
+    // The limit is JVM-wide, so it's set with the odbcbridge.memoryBudget system
+    // property (in bytes) or by the application, never by a connection's URL.
+    private static final MemoryBudget global = new MemoryBudget(
+            Long.getLong("odbcbridge.memoryBudget", Runtime.getRuntime().maxMemory() / 2));
+
+    private long limit;
+    private long used;
+
+    MemoryBudget(long limit) {
+        this.limit = limit;
+    }
+
+    public static MemoryBudget global() {
+        return global;
+    }
+
+    public synchronized long getLimit() {
+        return limit;
+    }
+
+    public synchronized void setLimit(long limit) {
+        this.limit = limit;
+        notifyAll();
+    }
+
+    public synchronized long getUsedBytes() {
+        return used;
+    }
+
+    public Account newAccount() {
+        return new Account();
+    }
+
+    private synchronized boolean tryReserve(long bytes) {
+        if (used + bytes > limit)
+            return false;
+
+        used += bytes;
+        return true;
+    }
+
+    private synchronized void release(long bytes) {
+        used -= bytes;
+        notifyAll();
+    }
+
+    // Waits up to waitMillis for any headroom at all.
+    private synchronized boolean awaitHeadroom(long waitMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+
+        while (used >= limit) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0)
+                return false;
+
+            wait(remaining);
+        }
+
+        return true;
+    }
+
+    public final class Account {
+        private Policy policy = Policy.SPILL;
+        private long waitMillis = DEFAULT_WAIT_MILLIS;
+        private long used;
+
+        private Account() {
+        }
+
+        public Policy getPolicy() {
+            return policy;
+        }
+
+        public void setPolicy(Policy policy) {
+            this.policy = policy;
+        }
+
+        public long getWaitMillis() {
+            return waitMillis;
+        }
+
+        public void setWaitMillis(long waitMillis) {
+            this.waitMillis = waitMillis;
+        }
+
+        // Bytes held by this connection's open results.
+        public synchronized long getUsedBytes() {
+            return used;
+        }
+
+        // Applies the policy before a query is sent. Returns false when the
+        // result should go straight to disk.
+        boolean admit() throws IOException {
+            if (MemoryBudget.this.getUsedBytes() < getLimit())
+                return true;
+
+            switch (policy) {
+                case FAIL:
+                    throw new IOException(exhausted());
+                case BLOCK:
+                    try {
+                        if (awaitHeadroom(waitMillis))
+                            return true;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+
+                    throw new IOException(exhausted());
+                default:
+                    return false;
+            }
+        }
+
+        private String exhausted() {
+            return "Result memory budget of " + getLimit() + " bytes is exhausted";
+        }
+
+        Reservation newReservation() {
+            return new Reservation(this);
+        }
+
+        private boolean tryReserve(long bytes) {
+            if (!MemoryBudget.this.tryReserve(bytes))
+                return false;
+
+            synchronized (this) {
+                used += bytes;
+            }
+
+            return true;
+        }
+
+        private void release(long bytes) {
+            synchronized (this) {
+                used -= bytes;
+            }
+
+            MemoryBudget.this.release(bytes);
+        }
+    }
+
+    // The bytes one result holds against an account, returned on close.
+    static final class Reservation {
+        private final Account account;
+        private long bytes;
+
+        private Reservation(Account account) {
+            this.account = account;
+        }
+
+        Policy getPolicy() {
+            return account.getPolicy();
+        }
+
+        long getBytes() {
+            return bytes;
+        }
+
+        boolean tryGrow(long bytes) {
+            if (!account.tryReserve(bytes))
+                return false;
+
+            this.bytes += bytes;
+            return true;
+        }
+
+        IOException exhausted() {
+            return new IOException(account.exhausted());
+        }
+
+        synchronized void close() {
+            if (bytes > 0) {
+                account.release(bytes);
+                bytes = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.kordata.odbcbridge;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import com.google.common.io.ByteStreams;
+
+// Read-only view of a binary LOB cell; the result set owns the buffer.
+public class OdbcBlob implements Blob {
+    private LobBuffer lob;
+
+    OdbcBlob(LobBuffer lob) {
+        this.lob = lob;
+    }
+
+    private LobBuffer checkFreed() throws SQLException {
+        if (lob == null) {
+            throw new SQLException("Blob has been freed");
+        }
+
+        return lob;
+    }
+
+    @Override
+    public long length() throws SQLException {
+        return checkFreed().length();
+    }
+
+    @Override
+    public byte[] getBytes(long pos, int length) throws SQLException {
+        try (InputStream in = getBinaryStream(pos, length)) {
+            return ByteStreams.toByteArray(in);
+        } catch (IOException e) {
+            throw new SQLException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public InputStream getBinaryStream() throws SQLException {
+        try {
+            return checkFreed().openStream();
+        } catch (IOException e) {
+            throw new SQLException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public InputStream getBinaryStream(long pos, long length) throws SQLException {
+        if (pos < 1 || length < 0) {
+            throw new SQLException("Invalid position or length");
+        }
+
+        InputStream in = getBinaryStream();
+
+        try {
+            ByteStreams.skipFully(in, pos - 1);
+            return ByteStreams.limit(in, length);
+        } catch (IOException e) {
+            throw new SQLException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public long position(byte[] pattern, long start) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public long position(Blob pattern, long start) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public int setBytes(long pos, byte[] bytes) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Blob is read only");
+    }
+
+    @Override
+    public int setBytes(long pos, byte[] bytes, int offset, int len) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Blob is read only");
+    }
+
+    @Override
+    public OutputStream setBinaryStream(long pos) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Blob is read only");
+    }
+
+    @Override
+    public void truncate(long len) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Blob is read only");
+    }
+
+    @Override
+    public void free() throws SQLException {
+        lob = null;
+    }
+}
@@ -0,0 +1,136 @@
+package com.kordata.odbcbridge;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.sql.Clob;
+import java.sql.NClob;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import com.google.common.io.CharStreams;
+
+// Read-only view of a memo LOB cell; the result set owns the buffer.
+public class OdbcClob implements NClob {
+    private LobBuffer lob;
+
+    OdbcClob(LobBuffer lob) {
+        this.lob = lob;
+    }
+
+    private LobBuffer checkFreed() throws SQLException {
+        if (lob == null) {
+            throw new SQLException("Clob has been freed");
+        }
+
+        return lob;
+    }
+
+    @Override
+    public long length() throws SQLException {
+        return checkFreed().length();
+    }
+
+    @Override
+    public String getSubString(long pos, int length) throws SQLException {
+        if (pos < 1 || length < 0) {
+            throw new SQLException("Invalid position or length");
+        }
+
+        try (Reader reader = getCharacterStream()) {
+            CharStreams.skipFully(reader, pos - 1);
+
+            StringBuilder builder = new StringBuilder(length);
+            char[] buffer = new char[Math.min(length, 8192) + 1];
+            int read;
+
+            while (builder.length() < length
+                    && (read = reader.read(buffer, 0, Math.min(buffer.length,
+                            length - builder.length()))) > 0) {
+                builder.append(buffer, 0, read);
+            }
+
+            return builder.toString();
+        } catch (IOException e) {
+            throw new SQLException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Reader getCharacterStream() throws SQLException {
+        try {
+            return checkFreed().openReader();
+        } catch (IOException e) {
+            throw new SQLException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Reader getCharacterStream(long pos, long length) throws SQLException {
+        return new StringReader(getSubString(pos, (int) Math.min(length, Integer.MAX_VALUE)));
+    }
+
+    @Override
+    public InputStream getAsciiStream() throws SQLException {
+        return asciiStream(getCharacterStream());
+    }
+
+    // Characters outside US-ASCII come through as '?'.
+    static InputStream asciiStream(Reader reader) {
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                int c = reader.read();
+
+                return c < 0 ? -1 : c < 128 ? c : '?';
+            }
+
+            @Override
+            public void close() throws IOException {
+                reader.close();
+            }
+        };
+    }
+
+    @Override
+    public long position(String searchstr, long start) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public long position(Clob searchstr, long start) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public int setString(long pos, String str) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Clob is read only");
+    }
+
+    @Override
+    public int setString(long pos, String str, int offset, int len) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Clob is read only");
+    }
+
+    @Override
+    public OutputStream setAsciiStream(long pos) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Clob is read only");
+    }
+
+    @Override
+    public Writer setCharacterStream(long pos) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Clob is read only");
+    }
+
+    @Override
+    public void truncate(long len) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Clob is read only");
+    }
+
+    @Override
+    public void free() throws SQLException {
+        lob = null;
+    }
+}
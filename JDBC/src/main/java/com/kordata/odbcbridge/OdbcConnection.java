@@ -16,18 +16,32 @@ import java.sql.SQLXML;
 import java.sql.Savepoint;
 import java.sql.Statement;
 import java.sql.Struct;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Executor;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 public class OdbcConnection implements Connection {
+    private static final int STATEMENT_CACHE_SIZE = 256;
+
     private final BridgeAPI api;
     private boolean closed = false;
 
+    // Prepared statements for the same SQL text share one parsed template.
+    private final Cache<String, SqlTemplate> templates =
+            CacheBuilder.newBuilder().maximumSize(STATEMENT_CACHE_SIZE).build();
+
     public OdbcConnection(BridgeAPI api) {
         this.api = api;
     }
 
+    // Bytes this connection's open results hold against the driver's budget.
+    public MemoryBudget.Account getMemoryAccount() {
+        return api.getMemoryAccount();
+    }
+
     void checkClosed() throws SQLException {
         if (closed)
             throw new SQLException("Connection is closed");
@@ -41,14 +55,21 @@ public class OdbcConnection implements Connection {
         return api.getUsername();
     }
 
+    public List<QueryStatistics> getQueryStatistics() {
+        return api.getQueryMonitor().getStatistics();
+    }
+
     @Override
     public <T> T unwrap(Class<T> iface) throws SQLException {
-        return null;
+        if (!isWrapperFor(iface))
+            throw new SQLException("Connection is not a wrapper for " + iface.getName());
+
+        return iface.cast(this);
     }
 
     @Override
     public boolean isWrapperFor(Class<?> iface) throws SQLException {
-        return false;
+        return iface.isInstance(this);
     }
 
     @Override
@@ -58,7 +79,14 @@ public class OdbcConnection implements Connection {
 
     @Override
     public PreparedStatement prepareStatement(String sql) throws SQLException {
-        return new OdbcPreparedStatement(sql, this, api);
+        SqlTemplate template = templates.getIfPresent(sql);
+
+        if (template == null) {
+            template = SqlTemplate.parse(sql);
+            templates.put(sql, template);
+        }
+
+        return new OdbcPreparedStatement(template, this, api);
     }
 
     @Override
@@ -94,6 +122,7 @@ public class OdbcConnection implements Connection {
     @Override
     public void close() throws SQLException {
         closed = true;
+        api.closeResults();
     }
 
     @Override
@@ -103,7 +132,7 @@ public class OdbcConnection implements Connection {
 
     @Override
     public DatabaseMetaData getMetaData() throws SQLException {
-        return new OdbcDatabaseMetaData(this);
+        return new OdbcDatabaseMetaData(this, api);
     }
 
     @Override
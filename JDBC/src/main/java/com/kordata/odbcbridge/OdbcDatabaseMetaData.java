@@ -1,16 +1,47 @@
 package com.kordata.odbcbridge;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.RowIdLifetime;
 import java.sql.SQLException;
+import java.sql.Types;
 
 public class OdbcDatabaseMetaData implements DatabaseMetaData {
     private final OdbcConnection connection;
+    private final BridgeAPI api;
 
-    public OdbcDatabaseMetaData(OdbcConnection connection) {
+    public OdbcDatabaseMetaData(OdbcConnection connection, BridgeAPI api) {
         this.connection = connection;
+        this.api = api;
+    }
+
+    private SchemaCatalog getCatalog() throws SQLException {
+        connection.checkClosed();
+
+        try {
+            return SchemaCatalog.forDatabase(api);
+        } catch (IOException e) {
+            throw new SQLException(e.getMessage());
+        }
+    }
+
+    // The Access ODBC driver reports some ODBC 2.x type codes that differ from
+    // java.sql.Types.
+    private static int toJdbcType(int odbcType) {
+        switch (odbcType) {
+            case 9:
+                return Types.DATE;
+            case 10:
+                return Types.TIME;
+            case 11:
+                return Types.TIMESTAMP;
+            case -11:
+                return Types.OTHER;
+            default:
+                return odbcType;
+        }
     }
 
     @Override
@@ -180,7 +211,7 @@ public class OdbcDatabaseMetaData implements DatabaseMetaData {
 
     @Override
     public String getSearchStringEscape() throws SQLException {
-        return "%";
+        return "\\";
     }
 
     @Override
@@ -628,7 +659,18 @@ public class OdbcDatabaseMetaData implements DatabaseMetaData {
     @Override
     public ResultSet getTables(String catalog, String schemaPattern, String tableNamePattern,
             String[] types) throws SQLException {
-        return OdbcResultSet.Empty();
+        ResultSetBuilder builder = new ResultSetBuilder().column("TABLE_CAT", "string")
+                .column("TABLE_SCHEM", "string").column("TABLE_NAME", "string")
+                .column("TABLE_TYPE", "string").column("REMARKS", "string")
+                .column("TYPE_CAT", "string").column("TYPE_SCHEM", "string")
+                .column("TYPE_NAME", "string").column("SELF_REFERENCING_COL_NAME", "string")
+                .column("REF_GENERATION", "string");
+
+        for (SchemaCatalog.Table table : getCatalog().getTables(tableNamePattern, types)) {
+            builder.row(null, null, table.getName(), table.getType(), table.getRemarks());
+        }
+
+        return builder.build();
     }
 
     @Override
@@ -643,13 +685,57 @@ public class OdbcDatabaseMetaData implements DatabaseMetaData {
 
     @Override
     public ResultSet getTableTypes() throws SQLException {
-        return OdbcResultSet.Empty();
+        ResultSetBuilder builder = new ResultSetBuilder().column("TABLE_TYPE", "string");
+
+        for (String type : getCatalog().getTableTypes()) {
+            builder.row(type);
+        }
+
+        return builder.build();
     }
 
     @Override
     public ResultSet getColumns(String catalog, String schemaPattern, String tableNamePattern,
             String columnNamePattern) throws SQLException {
-        return OdbcResultSet.Empty();
+        ResultSetBuilder builder = new ResultSetBuilder().column("TABLE_CAT", "string")
+                .column("TABLE_SCHEM", "string").column("TABLE_NAME", "string")
+                .column("COLUMN_NAME", "string").column("DATA_TYPE", "int")
+                .column("TYPE_NAME", "string").column("COLUMN_SIZE", "int")
+                .column("BUFFER_LENGTH", "int").column("DECIMAL_DIGITS", "int")
+                .column("NUM_PREC_RADIX", "int").column("NULLABLE", "int")
+                .column("REMARKS", "string").column("COLUMN_DEF", "string")
+                .column("SQL_DATA_TYPE", "int").column("SQL_DATETIME_SUB", "int")
+                .column("CHAR_OCTET_LENGTH", "int").column("ORDINAL_POSITION", "int")
+                .column("IS_NULLABLE", "string").column("SCOPE_CATALOG", "string")
+                .column("SCOPE_SCHEMA", "string").column("SCOPE_TABLE", "string")
+                .column("SOURCE_DATA_TYPE", "short").column("IS_AUTOINCREMENT", "string")
+                .column("IS_GENERATEDCOLUMN", "string");
+
+        for (SchemaCatalog.Column column : getCatalog().getColumns(tableNamePattern,
+                columnNamePattern)) {
+            boolean counter = "COUNTER".equalsIgnoreCase(column.getTypeName());
+
+            builder.row(null, null, column.getTableName(), column.getName(),
+                    toJdbcType(column.getDataType()), column.getTypeName(),
+                    column.getColumnSize(), null, column.getDecimalDigits(), 10,
+                    column.getNullable(), column.getRemarks(), column.getDefaultValue(), null,
+                    null, column.getColumnSize(), column.getOrdinalPosition(),
+                    isNullable(column.getNullable()), null, null, null, null,
+                    counter ? "YES" : "NO", "NO");
+        }
+
+        return builder.build();
+    }
+
+    private static String isNullable(int nullable) {
+        switch (nullable) {
+            case columnNoNulls:
+                return "NO";
+            case columnNullable:
+                return "YES";
+            default:
+                return "";
+        }
     }
 
     @Override
@@ -679,7 +765,17 @@ public class OdbcDatabaseMetaData implements DatabaseMetaData {
     @Override
     public ResultSet getPrimaryKeys(String catalog, String schema, String table)
             throws SQLException {
-        return OdbcResultSet.Empty();
+        ResultSetBuilder builder = new ResultSetBuilder().column("TABLE_CAT", "string")
+                .column("TABLE_SCHEM", "string").column("TABLE_NAME", "string")
+                .column("COLUMN_NAME", "string").column("KEY_SEQ", "short")
+                .column("PK_NAME", "string");
+
+        for (SchemaCatalog.Index key : getCatalog().getPrimaryKeys(table)) {
+            builder.row(null, null, key.getTableName(), key.getColumnName(),
+                    (short) key.getOrdinalPosition(), key.getName());
+        }
+
+        return builder.build();
     }
 
     @Override
@@ -709,7 +805,22 @@ public class OdbcDatabaseMetaData implements DatabaseMetaData {
     @Override
     public ResultSet getIndexInfo(String catalog, String schema, String table, boolean unique,
             boolean approximate) throws SQLException {
-        return OdbcResultSet.Empty();
+        ResultSetBuilder builder = new ResultSetBuilder().column("TABLE_CAT", "string")
+                .column("TABLE_SCHEM", "string").column("TABLE_NAME", "string")
+                .column("NON_UNIQUE", "boolean").column("INDEX_QUALIFIER", "string")
+                .column("INDEX_NAME", "string").column("TYPE", "short")
+                .column("ORDINAL_POSITION", "short").column("COLUMN_NAME", "string")
+                .column("ASC_OR_DESC", "string").column("CARDINALITY", "long")
+                .column("PAGES", "long").column("FILTER_CONDITION", "string");
+
+        for (SchemaCatalog.Index index : getCatalog().getIndexes(table, unique)) {
+            builder.row(null, null, index.getTableName(), index.isNonUnique(), null,
+                    index.getName(), (short) index.getType(), (short) index.getOrdinalPosition(),
+                    index.getColumnName(), index.getAscOrDesc(), index.getCardinality(),
+                    index.getPages(), null);
+        }
+
+        return builder.build();
     }
 
     @Override
@@ -10,18 +10,14 @@ import java.util.Properties;
 import java.util.logging.Logger;
 
 public class OdbcDriver implements Driver {
-    private final BridgeAPI api;
-
-    public OdbcDriver() {
-        api = new BridgeAPI();
-    }
-
     @Override
     public Connection connect(String url, Properties info) throws SQLException {
         // Per the ODBC spec.
         if (!acceptsURL(url))
             return null;
 
+        // Each connection gets its own settings (database, zone policy, monitor).
+        BridgeAPI api = new BridgeAPI();
         api.setURL(url);
 
 
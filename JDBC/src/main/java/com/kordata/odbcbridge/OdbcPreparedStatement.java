@@ -2,10 +2,13 @@ package com.kordata.odbcbridge;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.Reader;
 import java.math.BigDecimal;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.sql.Array;
+import java.sql.BatchUpdateException;
 import java.sql.Blob;
 import java.sql.Clob;
 import java.sql.Date;
@@ -20,22 +23,26 @@ import java.sql.SQLException;
 import java.sql.SQLXML;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.List;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 public class OdbcPreparedStatement extends OdbcStatement implements PreparedStatement {
-    private final String sql;
-
-    private ArrayNode parameters;
+    private final SqlTemplate template;
+    private final ParameterSlots parameters;
+    private final List<ParameterSlots> batch = new ArrayList<>();
 
     public OdbcPreparedStatement(String sql, OdbcConnection connection, BridgeAPI api) {
-        super(connection, api);
+        this(SqlTemplate.parse(sql), connection, api);
+    }
 
-        this.sql = sql;
+    public OdbcPreparedStatement(SqlTemplate template, OdbcConnection connection, BridgeAPI api) {
+        super(connection, api);
 
-        parameters = api.getMapper().createArrayNode();
+        this.template = template;
+        this.parameters = new ParameterSlots(template.getParameterCount());
     }
 
     @Override
@@ -62,10 +69,13 @@ public class OdbcPreparedStatement extends OdbcStatement implements PreparedStat
     public ResultSet executeQuery() throws SQLException {
         checkClosed();
 
+        parameters.checkComplete();
+        closeResultSet();
+
         try {
-            ObjectNode results = api.query(sql, parameters);
+            ObjectNode results = api.bufferQuery(template.getSql(), parameters);
 
-            return new OdbcResultSet(this, results);
+            return openResultSet(results);
         } catch (IOException e) {
             throw new SQLException(e.getMessage());
         }
@@ -75,8 +85,11 @@ public class OdbcPreparedStatement extends OdbcStatement implements PreparedStat
     public int executeUpdate() throws SQLException {
         checkClosed();
 
+        parameters.checkComplete();
+        closeResultSet();
+
         try {
-            return api.mutate(sql, parameters);
+            return api.mutate(template.getSql(), parameters);
         } catch (IOException e) {
             throw new SQLException(e.getMessage());
         }
@@ -84,96 +97,109 @@ public class OdbcPreparedStatement extends OdbcStatement implements PreparedStat
 
     @Override
     public void clearParameters() throws SQLException {
-        parameters.removeAll();
+        parameters.clear();
     }
 
     @Override
     public void setNull(int parameterIndex, int sqlType) throws SQLException {
         checkClosed();
-        parameters.insertNull(parameterIndex);
+        parameters.setNull(parameterIndex);
     }
 
     @Override
     public void setBoolean(int parameterIndex, boolean x) throws SQLException {
         checkClosed();
-        parameters.insert(parameterIndex, x);
+        parameters.setBoolean(parameterIndex, x);
     }
 
     @Override
     public void setByte(int parameterIndex, byte x) throws SQLException {
         checkClosed();
-        parameters.insert(parameterIndex, x);
+        parameters.setLong(parameterIndex, x);
     }
 
     @Override
     public void setShort(int parameterIndex, short x) throws SQLException {
         checkClosed();
-        parameters.insert(parameterIndex, x);
+        parameters.setLong(parameterIndex, x);
     }
 
     @Override
     public void setInt(int parameterIndex, int x) throws SQLException {
         checkClosed();
-        parameters.insert(parameterIndex, x);
+        parameters.setLong(parameterIndex, x);
     }
 
     @Override
     public void setLong(int parameterIndex, long x) throws SQLException {
         checkClosed();
-        parameters.insert(parameterIndex, x);
+        parameters.setLong(parameterIndex, x);
     }
 
     @Override
     public void setFloat(int parameterIndex, float x) throws SQLException {
         checkClosed();
-        parameters.insert(parameterIndex, x);
+        parameters.setFloat(parameterIndex, x);
     }
 
     @Override
     public void setDouble(int parameterIndex, double x) throws SQLException {
         checkClosed();
-        parameters.insert(parameterIndex, x);
+        parameters.setDouble(parameterIndex, x);
     }
 
     @Override
     public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
         checkClosed();
-        parameters.insert(parameterIndex, x);
+        parameters.setDecimal(parameterIndex, x);
     }
 
     @Override
     public void setString(int parameterIndex, String x) throws SQLException {
         checkClosed();
-        parameters.insert(parameterIndex, x);
+        parameters.setString(parameterIndex, x);
     }
 
     @Override
     public void setBytes(int parameterIndex, byte[] x) throws SQLException {
         checkClosed();
-        parameters.insert(parameterIndex, x);
+        parameters.setBytes(parameterIndex, x);
+    }
+
+    // Stream parameters are read when the request is sent, not here.
+    private void setStream(int parameterIndex, StreamParameter stream) throws SQLException {
+        checkClosed();
+
+        parameters.setStream(parameterIndex, stream);
+    }
+
+    private static Reader asciiReader(InputStream x) {
+        return x == null ? null : new InputStreamReader(x, StandardCharsets.US_ASCII);
     }
 
     @Override
     public void setDate(int parameterIndex, Date x) throws SQLException {
         checkClosed();
-        parameters.insert(parameterIndex, x.toLocalDate().toString());
+        parameters.setString(parameterIndex, x == null ? null : x.toLocalDate().toString());
     }
 
     @Override
     public void setTime(int parameterIndex, Time x) throws SQLException {
         checkClosed();
-        parameters.insert(parameterIndex, x.toLocalTime().toString());
+        parameters.setString(parameterIndex, x == null ? null : x.toLocalTime().toString());
     }
 
+    // Sent as local time in the connection's zone, the zone results are read in.
     @Override
     public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
         checkClosed();
-        parameters.insert(parameterIndex, x.toInstant().toString());
+        parameters.setString(parameterIndex,
+                x == null ? null : api.getDateTimeDecoder().format(x));
     }
 
     @Override
     public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException {
-        throw new UnsupportedOperationException();
+        setStream(parameterIndex, StreamParameter.text(asciiReader(x), length));
     }
 
     @Override
@@ -184,17 +210,45 @@ public class OdbcPreparedStatement extends OdbcStatement implements PreparedStat
 
     @Override
     public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException {
-        throw new UnsupportedOperationException();
+        setStream(parameterIndex, StreamParameter.binary(x, length));
     }
 
     @Override
     public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
-        parameters.insert(parameterIndex, api.getMapper().convertValue(x, JsonNode.class));
+        setObject(parameterIndex, x);
     }
 
     @Override
     public void setObject(int parameterIndex, Object x) throws SQLException {
-        parameters.insert(parameterIndex, api.getMapper().convertValue(x, JsonNode.class));
+        checkClosed();
+
+        // Common types go into typed slots; anything else is converted by Jackson.
+        if (x == null) {
+            parameters.setNull(parameterIndex);
+        } else if (x instanceof String) {
+            parameters.setString(parameterIndex, (String) x);
+        } else if (x instanceof Integer || x instanceof Long || x instanceof Short
+                || x instanceof Byte) {
+            parameters.setLong(parameterIndex, ((Number) x).longValue());
+        } else if (x instanceof Double) {
+            parameters.setDouble(parameterIndex, (Double) x);
+        } else if (x instanceof Float) {
+            parameters.setFloat(parameterIndex, (Float) x);
+        } else if (x instanceof BigDecimal) {
+            parameters.setDecimal(parameterIndex, (BigDecimal) x);
+        } else if (x instanceof Boolean) {
+            parameters.setBoolean(parameterIndex, (Boolean) x);
+        } else if (x instanceof byte[]) {
+            parameters.setBytes(parameterIndex, (byte[]) x);
+        } else if (x instanceof Date) {
+            setDate(parameterIndex, (Date) x);
+        } else if (x instanceof Time) {
+            setTime(parameterIndex, (Time) x);
+        } else if (x instanceof Timestamp) {
+            setTimestamp(parameterIndex, (Timestamp) x);
+        } else {
+            parameters.setNode(parameterIndex, api.getMapper().convertValue(x, JsonNode.class));
+        }
     }
 
     @Override
@@ -204,13 +258,42 @@ public class OdbcPreparedStatement extends OdbcStatement implements PreparedStat
 
     @Override
     public void addBatch() throws SQLException {
-        throw new UnsupportedOperationException();
+        checkClosed();
+
+        parameters.checkComplete();
+        batch.add(parameters.copy());
+    }
+
+    @Override
+    public void clearBatch() throws SQLException {
+        checkClosed();
+        batch.clear();
+    }
+
+    // The bridge applies a batch in one transaction, so a failure leaves no
+    // update counts to report.
+    @Override
+    public int[] executeBatch() throws SQLException {
+        checkClosed();
+
+        if (batch.isEmpty())
+            return new int[0];
+
+        closeResultSet();
+
+        try {
+            return api.mutateBatch(template.getSql(), batch);
+        } catch (IOException e) {
+            throw new BatchUpdateException(e.getMessage(), new int[0]);
+        } finally {
+            batch.clear();
+        }
     }
 
     @Override
     public void setCharacterStream(int parameterIndex, Reader reader, int length)
             throws SQLException {
-        throw new UnsupportedOperationException();
+        setStream(parameterIndex, StreamParameter.text(reader, length));
     }
 
     @Override
@@ -220,12 +303,14 @@ public class OdbcPreparedStatement extends OdbcStatement implements PreparedStat
 
     @Override
     public void setBlob(int parameterIndex, Blob x) throws SQLException {
-        throw new UnsupportedOperationException();
+        setStream(parameterIndex, x == null ? null
+                : StreamParameter.binary(x.getBinaryStream(), x.length()));
     }
 
     @Override
     public void setClob(int parameterIndex, Clob x) throws SQLException {
-        throw new UnsupportedOperationException();
+        setStream(parameterIndex, x == null ? null
+                : StreamParameter.text(x.getCharacterStream(), x.length()));
     }
 
     @Override
@@ -251,13 +336,13 @@ public class OdbcPreparedStatement extends OdbcStatement implements PreparedStat
     @Override
     public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
         checkClosed();
-        parameters.insertNull(parameterIndex);
+        parameters.setNull(parameterIndex);
     }
 
     @Override
     public void setURL(int parameterIndex, URL x) throws SQLException {
         checkClosed();
-        parameters.insert(parameterIndex, x.toString());
+        parameters.setString(parameterIndex, x == null ? null : x.toString());
     }
 
     @Override
@@ -273,28 +358,28 @@ public class OdbcPreparedStatement extends OdbcStatement implements PreparedStat
     @Override
     public void setNCharacterStream(int parameterIndex, Reader value, long length)
             throws SQLException {
-        throw new UnsupportedOperationException();
+        setStream(parameterIndex, StreamParameter.text(value, length));
     }
 
     @Override
     public void setNClob(int parameterIndex, NClob value) throws SQLException {
-        throw new UnsupportedOperationException();
+        setClob(parameterIndex, value);
     }
 
     @Override
     public void setClob(int parameterIndex, Reader reader, long length) throws SQLException {
-        throw new UnsupportedOperationException();
+        setStream(parameterIndex, StreamParameter.text(reader, length));
     }
 
     @Override
     public void setBlob(int parameterIndex, InputStream inputStream, long length)
             throws SQLException {
-        throw new UnsupportedOperationException();
+        setStream(parameterIndex, StreamParameter.binary(inputStream, length));
     }
 
     @Override
     public void setNClob(int parameterIndex, Reader reader, long length) throws SQLException {
-        throw new UnsupportedOperationException();
+        setStream(parameterIndex, StreamParameter.text(reader, length));
     }
 
     @Override
@@ -310,54 +395,54 @@ public class OdbcPreparedStatement extends OdbcStatement implements PreparedStat
 
     @Override
     public void setAsciiStream(int parameterIndex, InputStream x, long length) throws SQLException {
-        throw new UnsupportedOperationException();
+        setStream(parameterIndex, StreamParameter.text(asciiReader(x), length));
     }
 
     @Override
     public void setBinaryStream(int parameterIndex, InputStream x, long length)
             throws SQLException {
-        throw new UnsupportedOperationException();
+        setStream(parameterIndex, StreamParameter.binary(x, length));
     }
 
     @Override
     public void setCharacterStream(int parameterIndex, Reader reader, long length)
             throws SQLException {
-        throw new UnsupportedOperationException();
+        setStream(parameterIndex, StreamParameter.text(reader, length));
     }
 
     @Override
     public void setAsciiStream(int parameterIndex, InputStream x) throws SQLException {
-        throw new UnsupportedOperationException();
+        setStream(parameterIndex, StreamParameter.text(asciiReader(x), -1));
     }
 
     @Override
     public void setBinaryStream(int parameterIndex, InputStream x) throws SQLException {
-        throw new UnsupportedOperationException();
+        setStream(parameterIndex, StreamParameter.binary(x, -1));
     }
 
     @Override
     public void setCharacterStream(int parameterIndex, Reader reader) throws SQLException {
-        throw new UnsupportedOperationException();
+        setStream(parameterIndex, StreamParameter.text(reader, -1));
     }
 
     @Override
     public void setNCharacterStream(int parameterIndex, Reader value) throws SQLException {
-        throw new UnsupportedOperationException();
+        setStream(parameterIndex, StreamParameter.text(value, -1));
     }
 
     @Override
     public void setClob(int parameterIndex, Reader reader) throws SQLException {
-        throw new UnsupportedOperationException();
+        setStream(parameterIndex, StreamParameter.text(reader, -1));
     }
 
     @Override
     public void setBlob(int parameterIndex, InputStream inputStream) throws SQLException {
-        throw new UnsupportedOperationException();
+        setStream(parameterIndex, StreamParameter.binary(inputStream, -1));
     }
 
     @Override
     public void setNClob(int parameterIndex, Reader reader) throws SQLException {
-        throw new UnsupportedOperationException();
+        setStream(parameterIndex, StreamParameter.text(reader, -1));
     }
 
     @Override
@@ -22,30 +22,27 @@ import java.sql.SQLXML;
 import java.sql.Statement;
 import java.sql.Time;
 import java.sql.Timestamp;
-import java.time.Instant;
-import java.time.LocalDate;
-import java.time.LocalTime;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeParseException;
-import java.util.ArrayList;
+import java.time.ZoneId;
 import java.util.Calendar;
 import java.util.List;
 import java.util.Map;
-import java.util.TimeZone;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.POJONode;
+import com.google.common.io.BaseEncoding;
 
 public class OdbcResultSet implements ResultSet {
     private int cursorPosition = -1;
-    private final ArrayNode resultArray;
+    private final RowStore rows;
     private final ArrayNode schemaArray;
 
-    private ObjectNode currentRow;
-    private List<String> fieldNames;
+    private final List<String> fieldNames;
 
     private final OdbcResultSetMetaData metaData;
+    private final DateTimeDecoder dateTimeDecoder;
 
     @Override
     public ResultSetMetaData getMetaData() throws SQLException {
@@ -97,31 +94,53 @@ public class OdbcResultSet implements ResultSet {
     public OdbcResultSet(OdbcStatement statement, ObjectNode responseObject) {
         this.statement = statement;
 
-        this.resultArray = (ArrayNode) responseObject.get("results");
         this.schemaArray = (ArrayNode) responseObject.get("schema");
 
-        metaData = new OdbcResultSetMetaData(schemaArray);
+        metaData = statement != null ? statement.getMetaData(schemaArray)
+                : new OdbcResultSetMetaData(schemaArray);
+        rows = RowStore.of(responseObject.get("results"), metaData.hasLobs());
+        // Responses without a schema are read by the first row's fields.
+        fieldNames = metaData.getColumnLabels().isEmpty() ? rows.columnNames()
+                : metaData.getColumnLabels();
+        dateTimeDecoder = statement != null && statement.api != null
+                ? statement.api.getDateTimeDecoder()
+                : new DateTimeDecoder(ZoneId.systemDefault());
     }
 
     public static OdbcResultSet Empty() {
-        ObjectMapper mapper = new ObjectMapper();
-        ArrayNode results = mapper.createArrayNode();
-        ArrayNode schema = mapper.createArrayNode();
-        ObjectNode response = mapper.createObjectNode();
-        response.set("results", results);
-        response.set("schema", schema);
-
-        return new OdbcResultSet(null, response);
+        return new ResultSetBuilder().build();
     }
 
     @Override
     public <T> T unwrap(Class<T> iface) throws SQLException {
-        return null;
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+
+        throw new SQLException("Not a wrapper for " + iface.getName());
     }
 
     @Override
     public boolean isWrapperFor(Class<?> iface) throws SQLException {
-        return false;
+        return iface.isInstance(this);
+    }
+
+    // Every row of the result, independent of the cursor. The stream splits by
+    // row range, so .parallel() spreads per-row work across cores.
+    public Stream<Row> stream() throws SQLException {
+        checkClosed();
+
+        RowSpliterator spliterator =
+                new RowSpliterator(rows, metaData, dateTimeDecoder, 0, rows.size());
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    // A cursor over every row, independent of this result set's own, for
+    // scans that read primitives by ordinal without per-row allocation.
+    public RowCursor cursor() throws SQLException {
+        checkClosed();
+
+        return new RowCursor(rows, fieldNames.toArray(new String[0]));
     }
 
     void checkClosed() throws SQLException {
@@ -130,16 +149,9 @@ public class OdbcResultSet implements ResultSet {
             throw new SQLException("ResultSet is closed");
         }
 
-        statement.checkClosed();
-    }
-
-    private void updateCurrentRow() {
-        if (cursorPosition >= 0 && cursorPosition < resultArray.size()) {
-            currentRow = (ObjectNode) resultArray.get(cursorPosition);
-            fieldNames = new ArrayList<>();
-            currentRow.fieldNames().forEachRemaining(fieldNames::add);
-        } else {
-            currentRow = null;
+        // Driver-generated result sets such as DatabaseMetaData have no statement.
+        if (statement != null) {
+            statement.checkClosed();
         }
     }
 
@@ -150,7 +162,21 @@ public class OdbcResultSet implements ResultSet {
 
     @Override
     public void close() throws SQLException {
+        if (closed)
+            return;
+
         closed = true;
+
+        // Release LOB cells and spilled rows, deleting any temp files.
+        rows.close();
+    }
+
+    private static LobBuffer lobValue(JsonNode column) {
+        if (column instanceof POJONode && ((POJONode) column).getPojo() instanceof LobBuffer) {
+            return (LobBuffer) ((POJONode) column).getPojo();
+        }
+
+        return null;
     }
 
     private String getColumnLabel(int columnIndex) throws SQLException {
@@ -160,15 +186,35 @@ public class OdbcResultSet implements ResultSet {
         return fieldNames.get(columnIndex - 1);
     }
 
+    private int currentRow() throws SQLException {
+        if (cursorPosition < 0 || cursorPosition >= rows.size())
+            throw new SQLException("The cursor is not on a row");
+
+        return cursorPosition;
+    }
+
+    // Cells are read from the store one at a time; the row is never built.
     private JsonNode getColumn(String columnLabel) throws SQLException {
-        if (!currentRow.has(columnLabel))
+        JsonNode column = rows.get(currentRow(), rows.columnIndex(columnLabel));
+
+        if (column == null)
             throw new SQLException(columnLabel + " is not a valid column in the ResultSet.");
 
-        JsonNode column = currentRow.get(columnLabel);
+        lastReadWasNull = column.isNull();
 
-        if (column.isNull()) {
-            lastReadWasNull = true;
-        }
+        return column;
+    }
+
+    // The store's index for a column of the current row, for primitive
+    // getters that read the cell without decoding it to a node.
+    private int getCell(String columnLabel) throws SQLException {
+        int row = currentRow();
+        int column = rows.columnIndex(columnLabel);
+
+        if (!rows.has(row, column))
+            throw new SQLException(columnLabel + " is not a valid column in the ResultSet.");
+
+        lastReadWasNull = rows.isNull(row, column);
 
         return column;
     }
@@ -181,6 +227,15 @@ public class OdbcResultSet implements ResultSet {
         if (wasNull())
             return null;
 
+        LobBuffer lob = lobValue(column);
+        if (lob != null) {
+            try {
+                return lob.toText();
+            } catch (IOException e) {
+                throw new SQLException(e.getMessage(), e);
+            }
+        }
+
         return column.asText();
     }
 
@@ -198,67 +253,67 @@ public class OdbcResultSet implements ResultSet {
     @Override
     public byte getByte(String columnLabel) throws SQLException {
         checkClosed();
-        JsonNode column = getColumn(columnLabel);
+        int column = getCell(columnLabel);
 
         if (wasNull())
             return 0;
 
-        return (byte) column.asInt();
+        return (byte) rows.getLong(cursorPosition, column);
     }
 
     @Override
     public short getShort(String columnLabel) throws SQLException {
         checkClosed();
-        JsonNode column = getColumn(columnLabel);
+        int column = getCell(columnLabel);
 
         if (wasNull())
             return 0;
 
-        return (short) column.asInt();
+        return (short) rows.getLong(cursorPosition, column);
     }
 
     @Override
     public int getInt(String columnLabel) throws SQLException {
         checkClosed();
-        JsonNode column = getColumn(columnLabel);
+        int column = getCell(columnLabel);
 
         if (wasNull())
             return 0;
 
-        return column.asInt();
+        return (int) rows.getLong(cursorPosition, column);
     }
 
     @Override
     public long getLong(String columnLabel) throws SQLException {
         checkClosed();
-        JsonNode column = getColumn(columnLabel);
+        int column = getCell(columnLabel);
 
         if (wasNull())
             return 0;
 
-        return column.asLong();
+        return rows.getLong(cursorPosition, column);
     }
 
     @Override
     public float getFloat(String columnLabel) throws SQLException {
         checkClosed();
-        JsonNode column = getColumn(columnLabel);
+        int column = getCell(columnLabel);
 
         if (wasNull())
             return 0;
 
-        return (float) column.asDouble();
+        return (float) rows.getDouble(cursorPosition, column);
     }
 
     @Override
     public double getDouble(String columnLabel) throws SQLException {
         checkClosed();
-        JsonNode column = getColumn(columnLabel);
+        int column = getCell(columnLabel);
 
         if (wasNull())
             return 0;
 
-        return column.asDouble();
+        return rows.getDouble(cursorPosition, column);
     }
 
     @Override
@@ -289,6 +344,19 @@ public class OdbcResultSet implements ResultSet {
         if (wasNull())
             return null;
 
+        LobBuffer lob = lobValue(column);
+        if (lob != null) {
+            try {
+                return lob.toBytes();
+            } catch (IOException e) {
+                throw new SQLException(e.getMessage(), e);
+            }
+        }
+
+        if (isBinaryColumn(columnLabel) && column.isTextual()) {
+            return BaseEncoding.base64().decode(column.textValue());
+        }
+
         if (column.isBinary()) {
             try {
                 return column.binaryValue();
@@ -320,13 +388,7 @@ public class OdbcResultSet implements ResultSet {
         if (wasNull())
             return null;
 
-        try {
-            LocalDate date = LocalDate.parse(column.asText());
-
-            return Date.valueOf(date);
-        } catch (DateTimeParseException e) {
-            return new Date(0);
-        }
+        return JsonNodeExtensions.dateValue(column, dateTimeDecoder);
     }
 
     @Override
@@ -342,13 +404,7 @@ public class OdbcResultSet implements ResultSet {
         if (wasNull())
             return null;
 
-        try {
-            LocalTime time = LocalTime.parse(column.asText());
-
-            return Time.valueOf(time);
-        } catch (DateTimeParseException e) {
-            return new Time(0);
-        }
+        return JsonNodeExtensions.timeValue(column, dateTimeDecoder);
     }
 
     @Override
@@ -364,12 +420,7 @@ public class OdbcResultSet implements ResultSet {
         if (wasNull())
             return null;
 
-        try {
-            Instant instant = Instant.parse(column.asText());
-            return Timestamp.from(instant);
-        } catch (DateTimeParseException e) {
-            return new Timestamp(0);
-        }
+        return JsonNodeExtensions.timestampValue(column, dateTimeDecoder);
     }
 
     @Override
@@ -380,21 +431,42 @@ public class OdbcResultSet implements ResultSet {
         if (wasNull())
             return null;
 
-        try {
-            Instant instant = Instant.parse(column.asText());
+        // The bridge sends local date/times; the calendar supplies their zone.
+        Timestamp timestamp =
+                dateTimeDecoder.toTimestamp(column.asText(), cal.getTimeZone().toZoneId());
+        if (timestamp == null)
+            throw new SQLException("Invalid timestamp value: " + column.asText());
 
-            TimeZone tz = cal.getTimeZone();
-            ZonedDateTime zdt = instant.atZone(tz.toZoneId());
+        return timestamp;
+    }
 
-            return Timestamp.valueOf(zdt.toLocalDateTime());
-        } catch (DateTimeParseException e) {
-            return new Timestamp(0);
-        }
+    private boolean isBinaryColumn(String columnLabel) throws SQLException {
+        int column = metaData.findColumn(columnLabel);
+
+        return column > 0 && OdbcResultSetMetaData.isBinary(metaData.getColumnType(column));
+    }
+
+    // LOB cells are stored decoded; anything else is wrapped in a one-off buffer
+    // so the stream and Blob/Clob accessors share one code path.
+    private LobBuffer getLob(String columnLabel, boolean binary) throws SQLException {
+        checkClosed();
+        JsonNode column = getColumn(columnLabel);
+
+        if (wasNull())
+            return null;
+
+        LobBuffer lob = lobValue(column);
+        if (lob != null && lob.isBinary() == binary)
+            return lob;
+
+        return binary ? LobBuffer.of(getBytes(columnLabel)) : LobBuffer.of(getString(columnLabel));
     }
 
     @Override
     public InputStream getAsciiStream(String columnLabel) throws SQLException {
-        throw new UnsupportedOperationException();
+        Reader reader = getCharacterStream(columnLabel);
+
+        return reader == null ? null : OdbcClob.asciiStream(reader);
     }
 
     @Override
@@ -404,12 +476,28 @@ public class OdbcResultSet implements ResultSet {
 
     @Override
     public InputStream getBinaryStream(String columnLabel) throws SQLException {
-        throw new UnsupportedOperationException();
+        LobBuffer lob = getLob(columnLabel, true);
+        if (lob == null)
+            return null;
+
+        try {
+            return lob.openStream();
+        } catch (IOException e) {
+            throw new SQLException(e.getMessage(), e);
+        }
     }
 
     @Override
     public Reader getCharacterStream(String columnLabel) throws SQLException {
-        throw new UnsupportedOperationException();
+        LobBuffer lob = getLob(columnLabel, false);
+        if (lob == null)
+            return null;
+
+        try {
+            return lob.openReader();
+        } catch (IOException e) {
+            throw new SQLException(e.getMessage(), e);
+        }
     }
 
     @Override
@@ -417,9 +505,15 @@ public class OdbcResultSet implements ResultSet {
         checkClosed();
 
         JsonNode node = getColumn(columnLabel);
-        String odbcType = metaData.getOdbcType(fieldNames.indexOf(columnLabel));
+        int column = metaData.findColumn(columnLabel);
+        String odbcType = column > 0 ? metaData.getOdbcType(column) : "";
+
+        LobBuffer lob = lobValue(node);
+        if (lob != null) {
+            return lob.isBinary() ? getBytes(columnLabel) : getString(columnLabel);
+        }
 
-        return JsonNodeExtensions.toObject(node, odbcType);
+        return JsonNodeExtensions.toObject(node, odbcType, dateTimeDecoder);
     }
 
     @Override
@@ -498,12 +592,14 @@ public class OdbcResultSet implements ResultSet {
 
     @Override
     public Blob getBlob(String columnLabel) throws SQLException {
-        throw new UnsupportedOperationException();
+        LobBuffer lob = getLob(columnLabel, true);
+
+        return lob == null ? null : new OdbcBlob(lob);
     }
 
     @Override
     public Clob getClob(String columnLabel) throws SQLException {
-        throw new UnsupportedOperationException();
+        return getNClob(columnLabel);
     }
 
     @Override
@@ -534,7 +630,9 @@ public class OdbcResultSet implements ResultSet {
 
     @Override
     public NClob getNClob(String columnLabel) throws SQLException {
-        throw new SQLException("Result set is read only");
+        LobBuffer lob = getLob(columnLabel, false);
+
+        return lob == null ? null : new OdbcClob(lob);
     }
 
     @Override
@@ -549,7 +647,7 @@ public class OdbcResultSet implements ResultSet {
 
     @Override
     public Reader getNCharacterStream(String columnLabel) throws SQLException {
-        throw new UnsupportedOperationException();
+        return getCharacterStream(columnLabel);
     }
 
     @Override
@@ -594,7 +692,7 @@ public class OdbcResultSet implements ResultSet {
 
     @Override
     public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
-        return currentRow.get(fieldNames.get(columnIndex)).decimalValue();
+        return getColumn(fieldNames.get(columnIndex)).decimalValue();
     }
 
     @Override
@@ -735,10 +833,12 @@ public class OdbcResultSet implements ResultSet {
 
     @Override
     public int findColumn(String columnLabel) throws SQLException {
-        if (!currentRow.has(columnLabel))
+        int column = fieldNames.indexOf(columnLabel) + 1;
+
+        if (column == 0)
             throw new SQLException(columnLabel + " is not in ResultSet");
 
-        return fieldNames.indexOf(columnLabel) + 1;
+        return column;
     }
 
     @Override
@@ -748,7 +848,7 @@ public class OdbcResultSet implements ResultSet {
 
     @Override
     public boolean isAfterLast() throws SQLException {
-        return cursorPosition >= resultArray.size();
+        return cursorPosition >= rows.size();
     }
 
     @Override
@@ -758,40 +858,36 @@ public class OdbcResultSet implements ResultSet {
 
     @Override
     public boolean isLast() throws SQLException {
-        return cursorPosition == resultArray.size() - 1;
+        return cursorPosition == rows.size() - 1;
     }
 
     @Override
     public void beforeFirst() throws SQLException {
         cursorPosition = -1;
-        updateCurrentRow();
     }
 
     @Override
     public void afterLast() throws SQLException {
-        cursorPosition = resultArray.size();
-        updateCurrentRow();
+        cursorPosition = rows.size();
     }
 
     @Override
     public boolean first() throws SQLException {
         cursorPosition = 0;
-        updateCurrentRow();
 
-        return resultArray.size() > 0;
+        return rows.size() > 0;
     }
 
     @Override
     public boolean last() throws SQLException {
-        cursorPosition = resultArray.size() - 1;
-        updateCurrentRow();
+        cursorPosition = rows.size() - 1;
 
-        return resultArray.size() > 0;
+        return rows.size() > 0;
     }
 
     @Override
     public int getRow() throws SQLException {
-        if (cursorPosition > 0 && cursorPosition < resultArray.size()) {
+        if (cursorPosition > 0 && cursorPosition < rows.size()) {
             return cursorPosition + 1;
         }
 
@@ -808,20 +904,18 @@ public class OdbcResultSet implements ResultSet {
         if (row > 0) {
             cursorPosition = row - 1;
         } else {
-            cursorPosition = resultArray.size() - 1;
+            cursorPosition = rows.size() - 1;
         }
 
-        updateCurrentRow();
 
-        return cursorPosition >= 0 && cursorPosition < resultArray.size();
+        return cursorPosition >= 0 && cursorPosition < rows.size();
     }
 
     @Override
     public boolean relative(int rows) throws SQLException {
         cursorPosition += rows;
-        updateCurrentRow();
 
-        return cursorPosition >= 0 && cursorPosition < resultArray.size();
+        return cursorPosition >= 0 && cursorPosition < this.rows.size();
     }
 
     @Override
@@ -1,32 +1,247 @@
 package com.kordata.odbcbridge;
 
 import java.math.BigDecimal;
+import java.sql.Date;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Time;
 import java.sql.Timestamp;
 import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 
 public class OdbcResultSetMetaData implements ResultSetMetaData {
+    private static final int AUTO_INCREMENT = 1;
+    private static final int READ_ONLY = 1 << 1;
+    private static final int SIGNED = 1 << 2;
+    private static final int CURRENCY = 1 << 3;
+
     private final ArrayNode schemaArray;
+    private final int schemaHash;
+
+    // The schema is compiled once into flat arrays; callers hit these per row.
+    private final String[] columnNames;
+    private final String[] odbcTypes;
+    private final String[] typeNames;
+    private final int[] columnTypes;
+    private final String[] classNames;
+    private final int[] displaySizes;
+    private final int[] precisions;
+    private final int[] scales;
+    private final int[] nullability;
+    private final int[] flags;
+    private final String[] tableNames;
+    private final String[] schemaNames;
+    private final String[] catalogNames;
+
+    private final Map<String, Integer> ordinals;
+    private final Map<String, Integer> caseInsensitiveOrdinals;
 
     public OdbcResultSetMetaData(ArrayNode schemaArray) {
         this.schemaArray = schemaArray;
+        this.schemaHash = schemaArray.hashCode();
+
+        int count = schemaArray.size();
+        columnNames = new String[count];
+        odbcTypes = new String[count];
+        typeNames = new String[count];
+        columnTypes = new int[count];
+        classNames = new String[count];
+        displaySizes = new int[count];
+        precisions = new int[count];
+        scales = new int[count];
+        nullability = new int[count];
+        flags = new int[count];
+        tableNames = new String[count];
+        schemaNames = new String[count];
+        catalogNames = new String[count];
+        ordinals = new HashMap<>(count * 2);
+        caseInsensitiveOrdinals = new HashMap<>(count * 2);
+
+        for (int i = 0; i < count; i++) {
+            compileColumn(i, schemaArray.get(i));
+        }
+    }
+
+    private void compileColumn(int i, JsonNode column) {
+        String odbcType = text(column, "dataType", "unknown");
+        String typeName = text(column, "dataTypeName", odbcType);
+        boolean isLong = column.path("isLong").asBoolean();
+
+        columnNames[i] = text(column, "columnName", "");
+        odbcTypes[i] = odbcType;
+        typeNames[i] = typeName;
+        columnTypes[i] = toColumnType(odbcType, typeName, isLong);
+        classNames[i] = toClassName(columnTypes[i]);
+        displaySizes[i] = column.path("columnSize").asInt();
+        precisions[i] = column.path("numericPrecision").asInt();
+        scales[i] = column.path("numericScale").asInt();
+        nullability[i] = column.path("allowDBNull").isMissingNode() ? columnNullableUnknown
+                : column.path("allowDBNull").asBoolean() ? columnNullable : columnNoNulls;
+        tableNames[i] = text(column, "baseTableName", "");
+        schemaNames[i] = text(column, "baseSchemaName", "");
+        catalogNames[i] = text(column, "baseCatalogName", "");
+
+        int columnFlags = 0;
+        if (column.path("isAutoIncrement").asBoolean())
+            columnFlags |= AUTO_INCREMENT;
+        if (column.path("isReadOnly").asBoolean())
+            columnFlags |= READ_ONLY;
+        if (isSignedType(odbcType))
+            columnFlags |= SIGNED;
+        if ("CURRENCY".equalsIgnoreCase(typeName))
+            columnFlags |= CURRENCY;
+        flags[i] = columnFlags;
+
+        // JDBC labels are case-insensitive; the first column with a label wins.
+        ordinals.putIfAbsent(columnNames[i], i + 1);
+        caseInsensitiveOrdinals.putIfAbsent(columnNames[i].toLowerCase(Locale.ROOT), i + 1);
+    }
+
+    static int toColumnType(JsonNode column) {
+        String odbcType = text(column, "dataType", "unknown");
+
+        return toColumnType(odbcType, text(column, "dataTypeName", odbcType),
+                column.path("isLong").asBoolean());
+    }
+
+    static boolean isLob(int columnType) {
+        return columnType == Types.LONGVARCHAR || isBinary(columnType);
+    }
+
+    static boolean isBinary(int columnType) {
+        return columnType == Types.VARBINARY || columnType == Types.LONGVARBINARY;
+    }
+
+    private static int toColumnType(String odbcType, String typeName, boolean isLong) {
+        switch (odbcType) {
+            case "string":
+                return isLong ? Types.LONGVARCHAR : Types.VARCHAR;
+            case "int":
+                return Types.INTEGER;
+            case "long":
+                return Types.BIGINT;
+            case "short":
+                return Types.SMALLINT;
+            case "byte":
+                return Types.TINYINT;
+            case "boolean":
+                return Types.BOOLEAN;
+            case "decimal":
+                return Types.DECIMAL;
+            case "double":
+                return Types.DOUBLE;
+            case "dateTime":
+                return Types.TIMESTAMP;
+            case "date":
+                return Types.DATE;
+            case "time":
+                return Types.TIME;
+            default:
+                // byte[] columns (OLE Object, binary) are reported as unknown by the
+                // bridge, so fall back to the ODBC type name.
+                if (typeName.toUpperCase(Locale.ROOT).contains("BINARY")) {
+                    return isLong ? Types.LONGVARBINARY : Types.VARBINARY;
+                }
+
+                return Types.OTHER;
+        }
     }
 
-    private ObjectNode getColumnSchema(int column) throws SQLException {
-        if (column < 1 || column > schemaArray.size()) {
+    private static String toClassName(int columnType) {
+        switch (columnType) {
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+                return String.class.getName();
+            case Types.INTEGER:
+                return Integer.class.getName();
+            case Types.BIGINT:
+                return Long.class.getName();
+            case Types.SMALLINT:
+                return Short.class.getName();
+            case Types.TINYINT:
+                return Byte.class.getName();
+            case Types.BOOLEAN:
+                return Boolean.class.getName();
+            case Types.DECIMAL:
+                return BigDecimal.class.getName();
+            case Types.DOUBLE:
+                return Double.class.getName();
+            case Types.TIMESTAMP:
+                return Timestamp.class.getName();
+            case Types.DATE:
+                return Date.class.getName();
+            case Types.TIME:
+                return Time.class.getName();
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+                return byte[].class.getName();
+            default:
+                return Object.class.getName();
+        }
+    }
+
+    private static boolean isSignedType(String odbcType) {
+        return odbcType.equals("int") || odbcType.equals("long") || odbcType.equals("decimal")
+                || odbcType.equals("short") || odbcType.equals("double");
+    }
+
+    private static String text(JsonNode column, String field, String defaultValue) {
+        JsonNode value = column.get(field);
+
+        return value == null || value.isNull() ? defaultValue : value.asText();
+    }
+
+    // Lets a statement reuse this instance for another result with the same
+    // schema, so the compile step runs once per result shape.
+    boolean describes(ArrayNode schema) {
+        return schema.hashCode() == schemaHash && schema.equals(schemaArray);
+    }
+
+    int getSchemaHash() {
+        return schemaHash;
+    }
+
+    List<String> getColumnLabels() {
+        return Collections.unmodifiableList(Arrays.asList(columnNames));
+    }
+
+    private int checkColumn(int column) throws SQLException {
+        if (column < 1 || column > columnNames.length) {
             throw new SQLException("Column index out of bounds");
         }
 
-        return (ObjectNode) schemaArray.get(column - 1);
+        return column - 1;
+    }
+
+    // Returns the 1-based index of the column with the given label, or 0.
+    public int findColumn(String columnLabel) {
+        Integer ordinal = ordinals.get(columnLabel);
+
+        if (ordinal == null) {
+            ordinal = caseInsensitiveOrdinals.get(columnLabel.toLowerCase(Locale.ROOT));
+        }
+
+        return ordinal == null ? 0 : ordinal;
     }
 
     public String getOdbcType(int column) throws SQLException {
-        ObjectNode columnNode = getColumnSchema(column);
+        return odbcTypes[checkColumn(column)];
+    }
 
-        return columnNode.get("dataType").textValue();
+    boolean hasLobs() {
+        for (int columnType : columnTypes) {
+            if (isLob(columnType))
+                return true;
+        }
+
+        return false;
     }
 
     @Override
@@ -41,14 +256,12 @@ public class OdbcResultSetMetaData implements ResultSetMetaData {
 
     @Override
     public int getColumnCount() throws SQLException {
-        return schemaArray.size();
+        return columnNames.length;
     }
 
     @Override
     public boolean isAutoIncrement(int column) throws SQLException {
-        ObjectNode columnNode = getColumnSchema(column);
-
-        return columnNode.get("isAutoIncrement").booleanValue();
+        return (flags[checkColumn(column)] & AUTO_INCREMENT) != 0;
     }
 
     @Override
@@ -63,164 +276,86 @@ public class OdbcResultSetMetaData implements ResultSetMetaData {
 
     @Override
     public boolean isCurrency(int column) throws SQLException {
-        return false;
+        return (flags[checkColumn(column)] & CURRENCY) != 0;
     }
 
     @Override
     public int isNullable(int column) throws SQLException {
-        ObjectNode columnNode = getColumnSchema(column);
-
-        if (columnNode.get("allowDBNull").booleanValue()) {
-            return columnNullable;
-        }
-
-        return columnNoNulls;
+        return nullability[checkColumn(column)];
     }
 
     @Override
     public boolean isSigned(int column) throws SQLException {
-        ObjectNode columnNode = getColumnSchema(column);
-
-        String columnType = columnNode.get("type").textValue();
-
-        return columnType == "int" || columnType == "decimal" || columnType == "short"
-                || columnType == "byte";
+        return (flags[checkColumn(column)] & SIGNED) != 0;
     }
 
     @Override
     public int getColumnDisplaySize(int column) throws SQLException {
-        ObjectNode columnNode = getColumnSchema(column);
-
-        return columnNode.get("columnSize").intValue();
+        return displaySizes[checkColumn(column)];
     }
 
     @Override
     public String getColumnLabel(int column) throws SQLException {
-        ObjectNode columnNode = getColumnSchema(column);
-
-        return columnNode.get("columnName").textValue();
+        return columnNames[checkColumn(column)];
     }
 
     @Override
     public String getColumnName(int column) throws SQLException {
-        ObjectNode columnNode = getColumnSchema(column);
-
-        return columnNode.get("columnName").textValue();
+        return columnNames[checkColumn(column)];
     }
 
     @Override
     public String getSchemaName(int column) throws SQLException {
-        ObjectNode columnNode = getColumnSchema(column);
-
-        return columnNode.get("baseSchemaName").textValue();
+        return schemaNames[checkColumn(column)];
     }
 
     @Override
     public int getPrecision(int column) throws SQLException {
-        ObjectNode columnNode = getColumnSchema(column);
-
-        return columnNode.get("numericPrecision").intValue();
+        return precisions[checkColumn(column)];
     }
 
     @Override
     public int getScale(int column) throws SQLException {
-        ObjectNode columnNode = getColumnSchema(column);
-
-        return columnNode.get("numericScale").intValue();
+        return scales[checkColumn(column)];
     }
 
     @Override
     public String getTableName(int column) throws SQLException {
-        ObjectNode columnNode = getColumnSchema(column);
-
-        return columnNode.get("baseTableName").textValue();
+        return tableNames[checkColumn(column)];
     }
 
     @Override
     public String getCatalogName(int column) throws SQLException {
-        ObjectNode columnNode = getColumnSchema(column);
-
-        return columnNode.get("baseCatalogName").textValue();
+        return catalogNames[checkColumn(column)];
     }
 
     @Override
     public int getColumnType(int column) throws SQLException {
-        ObjectNode columnNode = getColumnSchema(column);
-
-        String columnType = columnNode.get("dataType").textValue();
-        boolean isLong = columnNode.get("isLong").booleanValue();
-
-        switch (columnType) {
-            case "string":
-                return isLong ? Types.LONGVARCHAR : Types.VARCHAR;
-            case "int":
-                return Types.BIGINT;
-            case "short":
-                return Types.INTEGER;
-            case "byte":
-                return Types.TINYINT;
-            case "boolean":
-                return Types.BOOLEAN;
-            case "decimal":
-                return Types.DECIMAL;
-            case "dateTime":
-                return Types.TIMESTAMP;
-            default:
-                return Types.OTHER;
-        }
+        return columnTypes[checkColumn(column)];
     }
 
     @Override
     public String getColumnTypeName(int column) throws SQLException {
-        ObjectNode columnNode = getColumnSchema(column);
-
-        return columnNode.get("dataType").textValue();
+        return typeNames[checkColumn(column)];
     }
 
     @Override
     public boolean isReadOnly(int column) throws SQLException {
-        ObjectNode columnNode = getColumnSchema(column);
-
-        return columnNode.get("isReadOnly").booleanValue();
+        return (flags[checkColumn(column)] & READ_ONLY) != 0;
     }
 
     @Override
     public boolean isWritable(int column) throws SQLException {
-        ObjectNode columnNode = getColumnSchema(column);
-
-        return !columnNode.get("isReadOnly").booleanValue();
+        return !isReadOnly(column);
     }
 
     @Override
     public boolean isDefinitelyWritable(int column) throws SQLException {
-        ObjectNode columnNode = getColumnSchema(column);
-
-        return !columnNode.get("isReadOnly").booleanValue();
+        return !isReadOnly(column);
     }
 
     @Override
     public String getColumnClassName(int column) throws SQLException {
-        ObjectNode columnNode = getColumnSchema(column);
-
-        String columnType = columnNode.get("dataType").textValue();
-
-        switch (columnType) {
-            case "string":
-                return String.class.getName();
-            case "int":
-                return Integer.class.getName();
-            case "short":
-                return Short.class.getName();
-            case "byte":
-                return Byte.class.getName();
-            case "boolean":
-                return Boolean.class.getName();
-            case "decimal":
-                return BigDecimal.class.getName();
-            case "dateTime":
-                return Timestamp.class.getName();
-            default:
-                return Object.class.getName();
-        }
+        return classNames[checkColumn(column)];
     }
 }
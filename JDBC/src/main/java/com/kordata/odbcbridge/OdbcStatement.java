@@ -6,6 +6,9 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLWarning;
 import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 public class OdbcStatement implements Statement {
@@ -14,11 +17,49 @@ public class OdbcStatement implements Statement {
 
     protected boolean closed = false;
 
+    // The result of the last query. JDBC closes it with the statement and when
+    // the statement executes again, releasing its temp files and reservation.
+    private OdbcResultSet resultSet;
+
+    private static final int METADATA_CACHE_SIZE = 8;
+
+    private final Map<Integer, OdbcResultSetMetaData> metaDataCache =
+            new LinkedHashMap<Integer, OdbcResultSetMetaData>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(
+                        Map.Entry<Integer, OdbcResultSetMetaData> eldest) {
+                    return size() > METADATA_CACHE_SIZE;
+                }
+            };
+
     public OdbcStatement(OdbcConnection connection, BridgeAPI api) {
         this.connection = connection;
         this.api = api;
     }
 
+    synchronized OdbcResultSetMetaData getMetaData(ArrayNode schemaArray) {
+        OdbcResultSetMetaData metaData = metaDataCache.get(schemaArray.hashCode());
+
+        if (metaData == null || !metaData.describes(schemaArray)) {
+            metaData = new OdbcResultSetMetaData(schemaArray);
+            metaDataCache.put(metaData.getSchemaHash(), metaData);
+        }
+
+        return metaData;
+    }
+
+    OdbcResultSet openResultSet(ObjectNode results) {
+        resultSet = new OdbcResultSet(this, results);
+        return resultSet;
+    }
+
+    void closeResultSet() throws SQLException {
+        if (resultSet != null) {
+            resultSet.close();
+            resultSet = null;
+        }
+    }
+
     void checkClosed() throws SQLException {
         // Check the connection first so that Statement methods
         // throw a "Connection closed" exception if the reason
@@ -45,10 +86,12 @@ public class OdbcStatement implements Statement {
         if (closed)
             throw new SQLException("Statement closed");
 
+        closeResultSet();
+
         try {
-            ObjectNode results = api.query(sql, null);
+            ObjectNode results = api.bufferQuery(sql, (ParameterWriter) null);
 
-            return new OdbcResultSet(this, results);
+            return openResultSet(results);
         } catch (IOException e) {
             throw new SQLException(e.getMessage());
         }
@@ -59,8 +102,10 @@ public class OdbcStatement implements Statement {
         if (closed)
             throw new SQLException("Statement closed");
 
+        closeResultSet();
+
         try {
-            return api.mutate(sql, null);
+            return api.mutate(sql, (ParameterWriter) null);
         } catch (IOException e) {
             throw new SQLException(e.getMessage());
         }
@@ -68,6 +113,7 @@ public class OdbcStatement implements Statement {
 
     @Override
     public void close() throws SQLException {
+        closeResultSet();
         closed = true;
     }
 
@@ -0,0 +1,33 @@
+package com.kordata.odbcbridge;
+
+import java.nio.ByteBuffer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Rows of a buffered result kept in direct buffers, so a large result adds
+// next to nothing to the old generation. Rows are decoded one at a time as a
+// cursor reaches them. Buffers are allocated a chunk at a time and returned to
+// the JVM when they're collected after close.
+class OffHeapRows extends BinaryRows {
+    private static final int CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private ByteBuffer current;
+
+    OffHeapRows(ObjectMapper mapper) {
+        super(mapper);
+    }
+
+    @Override
+    protected void write(byte[] row, int length, int index, long offset) {
+        if (current == null || current.remaining() < length) {
+            current = ByteBuffer.allocateDirect(Math.max(CHUNK_SIZE, length));
+            addSegment(index, offset, current);
+        }
+
+        current.put(row, 0, length);
+    }
+
+    @Override
+    protected void release() {
+        current = null;
+    }
+}
@@ -0,0 +1,208 @@
+package com.kordata.odbcbridge;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+import okhttp3.Dispatcher;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+// The default HttpTransport. OkHttp pools connections per host and runs async
+// calls on its dispatcher, at most five per host at once over HTTP/1.1. Over
+// HTTP/2 they share one connection per host, so the dispatcher lets more
+// through; OkHttp advertises a fixed 16 MiB window for each stream. Without
+// prior knowledge OkHttp only speaks HTTP/2 where TLS negotiates it, so plain
+// http:// calls keep the HTTP/1.1 limits.
+public final class OkHttpTransport implements HttpTransport {
+    static final int MAX_STREAMS_PER_HOST = 64;
+
+    private final OkHttpClient client;
+    private final OkHttpClient tlsClient;
+    private final AtomicLong completedCalls = new AtomicLong();
+
+    public OkHttpTransport() {
+        this(Http2Mode.AUTO);
+    }
+
+    public OkHttpTransport(Http2Mode http2) {
+        this(createClient(http2), http2);
+    }
+
+    public OkHttpTransport(OkHttpClient client) {
+        this(client, client);
+    }
+
+    private OkHttpTransport(OkHttpClient client, Http2Mode http2) {
+        // Both clients share the connection pool; only their dispatchers differ.
+        this(client, http2 == Http2Mode.AUTO
+                ? client.newBuilder().dispatcher(http2Dispatcher()).build()
+                : client);
+    }
+
+    private OkHttpTransport(OkHttpClient client, OkHttpClient tlsClient) {
+        this.client = client;
+        this.tlsClient = tlsClient;
+    }
+
+    private static OkHttpClient createClient(Http2Mode http2) {
+        OkHttpClient.Builder builder = new OkHttpClient.Builder();
+
+        switch (http2) {
+            case OFF:
+                return builder.protocols(Collections.singletonList(Protocol.HTTP_1_1)).build();
+            case PRIOR_KNOWLEDGE:
+                return builder.protocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE))
+                        .dispatcher(http2Dispatcher()).build();
+            default:
+                return builder.build();
+        }
+    }
+
+    private static Dispatcher http2Dispatcher() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(MAX_STREAMS_PER_HOST);
+        dispatcher.setMaxRequests(MAX_STREAMS_PER_HOST * 4);
+
+        return dispatcher;
+    }
+
+    @Override
+    public Call newCall(Request request) {
+        okhttp3.Request.Builder builder = new okhttp3.Request.Builder().url(request.getUrl());
+
+        if (request.getBody() != null) {
+            builder.post(new BodyAdapter(request.getBody()));
+        }
+
+        okhttp3.Request okRequest = builder.build();
+        OkHttpClient caller = okRequest.isHttps() ? tlsClient : client;
+
+        return new OkHttpCall(caller.newCall(okRequest));
+    }
+
+    @Override
+    public Stats getStats() {
+        int activeCalls = client.dispatcher().runningCallsCount();
+        if (tlsClient != client) {
+            activeCalls += tlsClient.dispatcher().runningCallsCount();
+        }
+
+        return new Stats(completedCalls.get(), activeCalls,
+                client.connectionPool().connectionCount(),
+                client.connectionPool().idleConnectionCount());
+    }
+
+    private static final class BodyAdapter extends RequestBody {
+        private final Body body;
+
+        BodyAdapter(Body body) {
+            this.body = body;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return BridgeAPI.JSON;
+        }
+
+        @Override
+        public long contentLength() {
+            return body.contentLength();
+        }
+
+        @Override
+        public boolean isOneShot() {
+            return body.isOneShot();
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            // Statement bodies hand their buffered segments over without copying.
+            if (body instanceof JsonRequestBody) {
+                ((JsonRequestBody) body).writeTo(sink);
+            } else {
+                body.writeTo(sink.outputStream());
+            }
+        }
+    }
+
+    private final class OkHttpCall implements Call {
+        private final okhttp3.Call call;
+
+        OkHttpCall(okhttp3.Call call) {
+            this.call = call;
+        }
+
+        @Override
+        public Response execute() throws IOException {
+            try {
+                return new OkHttpResponse(call.execute());
+            } finally {
+                completedCalls.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void enqueue(Callback callback) {
+            call.enqueue(new okhttp3.Callback() {
+                @Override
+                public void onFailure(okhttp3.Call call, IOException e) {
+                    completedCalls.incrementAndGet();
+                    callback.onFailure(e);
+                }
+
+                @Override
+                public void onResponse(okhttp3.Call call, okhttp3.Response response) {
+                    completedCalls.incrementAndGet();
+                    callback.onResponse(new OkHttpResponse(response));
+                }
+            });
+        }
+
+        @Override
+        public void cancel() {
+            call.cancel();
+        }
+    }
+
+    private static final class OkHttpResponse implements Response {
+        private final okhttp3.Response response;
+
+        OkHttpResponse(okhttp3.Response response) {
+            this.response = response;
+        }
+
+        @Override
+        public int code() {
+            return response.code();
+        }
+
+        @Override
+        public String message() {
+            return response.message();
+        }
+
+        @Override
+        public String protocol() {
+            return response.protocol().toString();
+        }
+
+        @Override
+        public String header(String name) {
+            return response.header(name);
+        }
+
+        @Override
+        public InputStream body() {
+            return response.body().byteStream();
+        }
+
+        @Override
+        public void close() {
+            response.close();
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.kordata.odbcbridge;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.Arrays;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+
+// Fixed-size, typed parameter storage for a prepared statement. Primitives live
+// in parallel arrays so binding doesn't box, clearing doesn't reallocate, and
+// the values are written straight onto the request's JsonGenerator.
+class ParameterSlots implements ParameterWriter {
+    private static final byte UNSET = 0;
+    private static final byte NULL = 1;
+    private static final byte BOOLEAN = 2;
+    private static final byte LONG = 3;
+    private static final byte FLOAT = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte DECIMAL = 6;
+    private static final byte STRING = 7;
+    private static final byte BYTES = 8;
+    private static final byte STREAM = 9;
+    private static final byte NODE = 10;
+
+    private final byte[] kinds;
+    private final long[] longs;
+    private final double[] doubles;
+    private final Object[] objects;
+
+    ParameterSlots(int count) {
+        kinds = new byte[count];
+        longs = new long[count];
+        doubles = new double[count];
+        objects = new Object[count];
+    }
+
+    private ParameterSlots(ParameterSlots other) {
+        kinds = other.kinds.clone();
+        longs = other.longs.clone();
+        doubles = other.doubles.clone();
+        objects = other.objects.clone();
+    }
+
+    // A snapshot for PreparedStatement.addBatch(); values themselves are shared.
+    ParameterSlots copy() {
+        return new ParameterSlots(this);
+    }
+
+    private int slot(int parameterIndex) throws SQLException {
+        if (parameterIndex < 1 || parameterIndex > kinds.length) {
+            throw new SQLException("Parameter index out of range: " + parameterIndex);
+        }
+
+        return parameterIndex - 1;
+    }
+
+    void setNull(int parameterIndex) throws SQLException {
+        int i = slot(parameterIndex);
+        kinds[i] = NULL;
+        objects[i] = null;
+    }
+
+    void setBoolean(int parameterIndex, boolean x) throws SQLException {
+        int i = slot(parameterIndex);
+        kinds[i] = BOOLEAN;
+        longs[i] = x ? 1 : 0;
+        objects[i] = null;
+    }
+
+    void setLong(int parameterIndex, long x) throws SQLException {
+        int i = slot(parameterIndex);
+        kinds[i] = LONG;
+        longs[i] = x;
+        objects[i] = null;
+    }
+
+    void setFloat(int parameterIndex, float x) throws SQLException {
+        int i = slot(parameterIndex);
+        kinds[i] = FLOAT;
+        doubles[i] = x;
+        objects[i] = null;
+    }
+
+    void setDouble(int parameterIndex, double x) throws SQLException {
+        int i = slot(parameterIndex);
+        kinds[i] = DOUBLE;
+        doubles[i] = x;
+        objects[i] = null;
+    }
+
+    void setDecimal(int parameterIndex, BigDecimal x) throws SQLException {
+        setObject(parameterIndex, DECIMAL, x);
+    }
+
+    void setString(int parameterIndex, String x) throws SQLException {
+        setObject(parameterIndex, STRING, x);
+    }
+
+    void setBytes(int parameterIndex, byte[] x) throws SQLException {
+        setObject(parameterIndex, BYTES, x);
+    }
+
+    void setStream(int parameterIndex, StreamParameter x) throws SQLException {
+        setObject(parameterIndex, x == null || x.isNull() ? NULL : STREAM, x);
+    }
+
+    void setNode(int parameterIndex, JsonNode x) throws SQLException {
+        setObject(parameterIndex, NODE, x);
+    }
+
+    private void setObject(int parameterIndex, byte kind, Object x) throws SQLException {
+        int i = slot(parameterIndex);
+        kinds[i] = x == null ? NULL : kind;
+        objects[i] = x;
+    }
+
+    void clear() {
+        Arrays.fill(kinds, UNSET);
+        Arrays.fill(objects, null);
+    }
+
+    void checkComplete() throws SQLException {
+        for (int i = 0; i < kinds.length; i++) {
+            if (kinds[i] == UNSET) {
+                throw new SQLException("No value specified for parameter " + (i + 1));
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return kinds.length;
+    }
+
+    @Override
+    public boolean isStreaming() {
+        for (byte kind : kinds) {
+            if (kind == STREAM)
+                return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    public void write(JsonGenerator generator) throws IOException {
+        generator.writeStartArray(kinds.length);
+
+        for (int i = 0; i < kinds.length; i++) {
+            switch (kinds[i]) {
+                case BOOLEAN:
+                    generator.writeBoolean(longs[i] != 0);
+                    break;
+                case LONG:
+                    generator.writeNumber(longs[i]);
+                    break;
+                case FLOAT:
+                    generator.writeNumber((float) doubles[i]);
+                    break;
+                case DOUBLE:
+                    generator.writeNumber(doubles[i]);
+                    break;
+                case DECIMAL:
+                    generator.writeNumber((BigDecimal) objects[i]);
+                    break;
+                case STRING:
+                    generator.writeString((String) objects[i]);
+                    break;
+                case BYTES:
+                    generator.writeBinary((byte[]) objects[i]);
+                    break;
+                case STREAM:
+                    ((StreamParameter) objects[i]).serialize(generator, null);
+                    break;
+                case NODE:
+                    generator.writeTree((JsonNode) objects[i]);
+                    break;
+                default:
+                    generator.writeNull();
+                    break;
+            }
+        }
+
+        generator.writeEndArray();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+
+        for (int i = 0; i < kinds.length; i++) {
+            if (i > 0)
+                builder.append(',');
+
+            switch (kinds[i]) {
+                case BOOLEAN:
+                    builder.append(longs[i] != 0);
+                    break;
+                case LONG:
+                    builder.append(longs[i]);
+                    break;
+                case FLOAT:
+                case DOUBLE:
+                    builder.append(doubles[i]);
+                    break;
+                case STRING:
+                    builder.append('"').append(objects[i]).append('"');
+                    break;
+                case BYTES:
+                    builder.append("[binary ").append(((byte[]) objects[i]).length)
+                            .append(" bytes]");
+                    break;
+                case UNSET:
+                case NULL:
+                    builder.append("null");
+                    break;
+                default:
+                    builder.append(objects[i]);
+                    break;
+            }
+        }
+
+        return builder.append(']').toString();
+    }
+}
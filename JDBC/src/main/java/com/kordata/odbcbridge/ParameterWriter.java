@@ -0,0 +1,40 @@
+package com.kordata.odbcbridge;
+
+import java.io.IOException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+// Writes a statement's parameters as a JSON array directly onto the request
+// body, so callers don't need to build a tree first.
+public interface ParameterWriter {
+    int size();
+
+    // True when a parameter reads from a stream, so the body can only be written once.
+    boolean isStreaming();
+
+    void write(JsonGenerator generator) throws IOException;
+
+    static ParameterWriter of(ArrayNode parameters) {
+        return new ParameterWriter() {
+            @Override
+            public int size() {
+                return parameters.size();
+            }
+
+            @Override
+            public boolean isStreaming() {
+                return StreamParameter.containsStream(parameters);
+            }
+
+            @Override
+            public void write(JsonGenerator generator) throws IOException {
+                generator.writeTree(parameters);
+            }
+
+            @Override
+            public String toString() {
+                return parameters.toString();
+            }
+        };
+    }
+}
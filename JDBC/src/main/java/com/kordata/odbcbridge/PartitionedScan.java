@@ -0,0 +1,338 @@
+package com.kordata.odbcbridge;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+// Scans a table as several range queries over a numeric or date column, run
+// concurrently so the scan isn't bound by one query's stream. The column's
+// MIN/MAX split it into equal ranges; NULLs get a range of their own.
+//
+// Each database allows maxScanConcurrency range queries at once across all
+// scans (the first connection to a database sets it); setPartitions tunes how
+// many ranges a given table is split into.
+public class PartitionedScan {
+    public static final int DEFAULT_PARTITIONS = 4;
+    public static final int DEFAULT_MAX_CONCURRENCY = 4;
+
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final Object END = new Object();
+
+    private static final ConcurrentMap<String, Semaphore> databasePermits =
+            new ConcurrentHashMap<>();
+
+    private final BridgeAPI api;
+    private final String table;
+    private final String splitColumn;
+
+    private int partitions = DEFAULT_PARTITIONS;
+    private boolean ordered;
+    private List<String> columns = Collections.emptyList();
+
+    public PartitionedScan(BridgeAPI api, String table, String splitColumn) {
+        this.api = api;
+        this.table = table;
+        this.splitColumn = splitColumn;
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public void setPartitions(int partitions) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("Partitions must be positive");
+        }
+
+        this.partitions = partitions;
+    }
+
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    // Ordered scans return rows sorted by the split column, NULLs first. Their
+    // ranges are queried in order as they're read, with only the next few
+    // running ahead into bounded queues.
+    public void setOrdered(boolean ordered) {
+        this.ordered = ordered;
+    }
+
+    public void setColumns(List<String> columns) {
+        this.columns = columns;
+    }
+
+    static final class Range {
+        final String condition;
+        final ArrayNode parameters;
+
+        Range(String condition, ArrayNode parameters) {
+            this.condition = condition;
+            this.parameters = parameters;
+        }
+    }
+
+    public Rows open() throws IOException {
+        List<Range> ranges = plan();
+        List<String> statements = new ArrayList<>();
+
+        String select = columns.isEmpty() ? "*" : "[" + String.join("], [", columns) + "]";
+        for (Range range : ranges) {
+            String sql = "SELECT " + select + " FROM [" + table + "] WHERE " + range.condition;
+            statements.add(ordered ? sql + " ORDER BY [" + splitColumn + "]" : sql);
+        }
+
+        return new Rows(ranges, statements);
+    }
+
+    List<Range> plan() throws IOException {
+        String sql = "SELECT MIN([" + splitColumn + "]) AS lo, MAX([" + splitColumn
+                + "]) AS hi FROM [" + table + "]";
+        JsonNode bounds = api.query(sql, (ParameterWriter) null).path("results").path(0);
+        JsonNode lo = bounds.path("lo");
+        JsonNode hi = bounds.path("hi");
+
+        List<Range> ranges = new ArrayList<>();
+        ranges.add(new Range("[" + splitColumn + "] IS NULL", null));
+
+        if (lo.isIntegralNumber() && hi.isIntegralNumber()) {
+            addIntegralRanges(ranges, lo.asLong(), hi.asLong(), null);
+        } else if (lo.isNumber() && hi.isNumber()) {
+            addRealRanges(ranges, lo.asDouble(), hi.asDouble());
+        } else if (lo.isTextual() && hi.isTextual()) {
+            DateTimeDecoder decoder = api.getDateTimeDecoder();
+            Timestamp first = decoder.toTimestamp(lo.asText());
+            Timestamp last = decoder.toTimestamp(hi.asText());
+
+            if (first == null || last == null) {
+                throw new IOException(splitColumn + " is not a numeric or date column");
+            }
+
+            // Access keeps whole seconds, so seconds make an integral range.
+            addIntegralRanges(ranges, Math.floorDiv(first.getTime(), 1000),
+                    Math.floorDiv(last.getTime(), 1000), decoder);
+        } else if (!lo.isMissingNode() && !lo.isNull()) {
+            throw new IOException(splitColumn + " is not a numeric or date column");
+        }
+
+        return ranges;
+    }
+
+    private void addIntegralRanges(List<Range> ranges, long lo, long hi,
+            DateTimeDecoder dates) {
+        long span = hi - lo + 1;
+        long count = Math.min(partitions, span);
+        long start = lo;
+
+        for (long i = 0; i < count; i++) {
+            long size = span / count + (i < span % count ? 1 : 0);
+            long end = start + size;
+
+            ArrayNode parameters = api.getMapper().createArrayNode();
+            if (dates == null) {
+                parameters.add(start).add(end);
+            } else {
+                parameters.add(dates.format(new Timestamp(start * 1000)))
+                        .add(dates.format(new Timestamp(end * 1000)));
+            }
+
+            ranges.add(new Range("[" + splitColumn + "] >= ? AND [" + splitColumn + "] < ?",
+                    parameters));
+            start = end;
+        }
+    }
+
+    private void addRealRanges(List<Range> ranges, double lo, double hi) {
+        for (int i = 0; i < partitions; i++) {
+            double start = lo + (hi - lo) * i / partitions;
+            boolean last = i == partitions - 1;
+            double end = last ? hi : lo + (hi - lo) * (i + 1) / partitions;
+
+            ArrayNode parameters = api.getMapper().createArrayNode().add(start).add(end);
+            ranges.add(new Range("[" + splitColumn + "] >= ? AND [" + splitColumn
+                    + (last ? "] <= ?" : "] < ?"), parameters));
+
+            if (lo == hi)
+                break;
+        }
+    }
+
+    private Semaphore permits() {
+        return databasePermits.computeIfAbsent(api.getDatabaseKey(),
+                key -> new Semaphore(api.getMaxScanConcurrency(), true));
+    }
+
+    // The merged rows of every range. Close it to stop the remaining queries.
+    public class Rows implements Iterator<ObjectNode>, Closeable {
+        private final List<Range> ranges;
+        private final List<String> statements;
+        private final Semaphore permits = permits();
+        private final int threads;
+        private final ExecutorService executor;
+        private final List<BlockingQueue<Object>> queues = new ArrayList<>();
+        private int remaining;
+        private int started;
+        private int current;
+        private ObjectNode next;
+
+        Rows(List<Range> ranges, List<String> statements) {
+            this.ranges = ranges;
+            this.statements = statements;
+            threads = Math.max(Math.min(ranges.size(), api.getMaxScanConcurrency()), 1);
+            executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "odbcbridge-scan");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            // Ordered scans read each range's queue in turn; unordered ones share one.
+            BlockingQueue<Object> shared = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+            remaining = ranges.size();
+
+            for (int i = 0; i < ranges.size(); i++) {
+                BlockingQueue<Object> queue =
+                        ordered ? new ArrayBlockingQueue<>(QUEUE_CAPACITY) : shared;
+                queues.add(queue);
+
+                if (!ordered) {
+                    String sql = statements.get(i);
+                    ArrayNode parameters = ranges.get(i).parameters;
+
+                    executor.execute(() -> {
+                        try {
+                            permits.acquire();
+                        } catch (InterruptedException e) {
+                            // Closed before the range was read.
+                            return;
+                        }
+
+                        scan(sql, parameters, queue);
+                    });
+                }
+            }
+
+            if (!ordered) {
+                executor.shutdown();
+            }
+        }
+
+        // Ordered ranges start from the reading thread, each holding a permit
+        // taken in range order. The range being read gets its permit before any
+        // later one, and a scan nobody reads holds none, so ranges blocked on a
+        // full queue can't starve the range their reader is waiting on. Later
+        // ranges only take permits that are free right away.
+        private void startRanges() throws InterruptedException {
+            while (started < ranges.size() && started < current + threads) {
+                if (started == current) {
+                    permits.acquire();
+                } else if (!permits.tryAcquire(0, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+
+                int range = started++;
+                executor.execute(() -> scan(statements.get(range), ranges.get(range).parameters,
+                        queues.get(range)));
+
+                if (started == ranges.size()) {
+                    executor.shutdown();
+                }
+            }
+        }
+
+        // Runs with a permit held and releases it.
+        private void scan(String sql, ArrayNode parameters, BlockingQueue<Object> queue) {
+            try {
+                try (TableReader rows = api.openQuery(sql,
+                        parameters == null ? null : ParameterWriter.of(parameters))) {
+                    while (rows.hasNext()) {
+                        queue.put(rows.next());
+                    }
+                } finally {
+                    permits.release();
+                }
+
+                queue.put(END);
+            } catch (InterruptedException e) {
+                // Closed before the range was read.
+            } catch (IOException | RuntimeException e) {
+                try {
+                    queue.put(e);
+                } catch (InterruptedException closed) {
+                    // Nobody is left to report it to.
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && remaining > 0) {
+                Object item;
+
+                try {
+                    if (ordered) {
+                        startRanges();
+                    }
+
+                    item = queues.get(ordered ? current : 0).take();
+                } catch (InterruptedException e) {
+                    close();
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while scanning " + table);
+                }
+
+                if (item == END) {
+                    remaining--;
+                    current++;
+                } else if (item instanceof IOException) {
+                    close();
+                    throw new UncheckedIOException((IOException) item);
+                } else if (item instanceof RuntimeException) {
+                    close();
+                    throw (RuntimeException) item;
+                } else {
+                    next = (ObjectNode) item;
+                }
+            }
+
+            return next != null;
+        }
+
+        @Override
+        public ObjectNode next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            ObjectNode row = next;
+            next = null;
+            return row;
+        }
+
+        @Override
+        public void close() {
+            remaining = 0;
+
+            // Ordered ranges that never ran still hold the permit taken for them.
+            int unstarted = executor.shutdownNow().size();
+            if (ordered) {
+                permits.release(unstarted);
+            }
+        }
+    }
+}
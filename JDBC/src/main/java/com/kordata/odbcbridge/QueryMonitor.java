@@ -0,0 +1,151 @@
+package com.kordata.odbcbridge;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+public class QueryMonitor {
+    private static final Logger logger = Logger.getLogger(QueryMonitor.class.getName());
+
+    public static final int DEFAULT_CAPACITY = 100;
+    public static final int DEFAULT_WINDOW_SIZE = 1024;
+    private static final int FINGERPRINT_CACHE_SIZE = 1000;
+
+    private final int capacity;
+    private final int windowSize;
+
+    private final Cache<String, String> fingerprints =
+            CacheBuilder.newBuilder().maximumSize(FINGERPRINT_CACHE_SIZE).build();
+    private final Map<String, QueryStatistics> statistics = new HashMap<>();
+
+    private long slowQueryThresholdMillis = 0;
+    private boolean redactParameters = true;
+
+    public QueryMonitor() {
+        this(DEFAULT_CAPACITY, DEFAULT_WINDOW_SIZE);
+    }
+
+    public QueryMonitor(int capacity, int windowSize) {
+        this.capacity = capacity;
+        this.windowSize = windowSize;
+    }
+
+    public long getSlowQueryThreshold() {
+        return slowQueryThresholdMillis;
+    }
+
+    // A threshold of 0 disables the slow query log; statistics are still kept.
+    public void setSlowQueryThreshold(long millis) {
+        slowQueryThresholdMillis = millis;
+    }
+
+    public boolean getRedactParameters() {
+        return redactParameters;
+    }
+
+    public void setRedactParameters(boolean redactParameters) {
+        this.redactParameters = redactParameters;
+    }
+
+    public String fingerprint(String sql) {
+        if (sql == null)
+            return "";
+
+        String fingerprint = fingerprints.getIfPresent(sql);
+        if (fingerprint == null) {
+            fingerprint = SqlFingerprint.normalize(sql);
+            fingerprints.put(sql, fingerprint);
+        }
+
+        return fingerprint;
+    }
+
+    public void record(String sql, ParameterWriter parameters, long elapsedNanos,
+            long responseBytes) {
+        String fingerprint = fingerprint(sql);
+
+        QueryStatistics entry = statisticsFor(fingerprint);
+        entry.record(elapsedNanos, responseBytes);
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        if (slowQueryThresholdMillis > 0 && elapsedMillis >= slowQueryThresholdMillis
+                && logger.isLoggable(Level.WARNING)) {
+            logger.warning(describeSlowQuery(fingerprint, sql, parameters, elapsedMillis,
+                    responseBytes));
+        }
+    }
+
+    private String describeSlowQuery(String fingerprint, String sql, ParameterWriter parameters,
+            long elapsedMillis, long responseBytes) {
+        StringBuilder message = new StringBuilder("Slow query (").append(elapsedMillis)
+                .append(" ms, ").append(responseBytes).append(" bytes): ");
+
+        if (redactParameters) {
+            message.append(fingerprint);
+
+            if (parameters != null && parameters.size() > 0) {
+                message.append(" [").append(parameters.size()).append(" parameters redacted]");
+            }
+        } else {
+            message.append(sql);
+
+            if (parameters != null && parameters.size() > 0) {
+                message.append(" ").append(parameters.toString());
+            }
+        }
+
+        return message.toString();
+    }
+
+    private synchronized QueryStatistics statisticsFor(String fingerprint) {
+        QueryStatistics entry = statistics.get(fingerprint);
+
+        if (entry == null) {
+            if (statistics.size() >= capacity) {
+                evictCheapest();
+            }
+
+            entry = new QueryStatistics(fingerprint, windowSize);
+            statistics.put(fingerprint, entry);
+        }
+
+        return entry;
+    }
+
+    // Keeps the top K fingerprints by total time spent so the map stays bounded
+    // no matter how many distinct statements an application generates.
+    private void evictCheapest() {
+        String cheapest = null;
+        long cheapestNanos = Long.MAX_VALUE;
+
+        for (QueryStatistics entry : statistics.values()) {
+            long totalNanos = entry.getTotalNanos();
+            if (totalNanos < cheapestNanos) {
+                cheapestNanos = totalNanos;
+                cheapest = entry.getFingerprint();
+            }
+        }
+
+        if (cheapest != null) {
+            statistics.remove(cheapest);
+        }
+    }
+
+    public synchronized List<QueryStatistics> getStatistics() {
+        List<QueryStatistics> snapshot = new ArrayList<>(statistics.values());
+        snapshot.sort(Comparator.comparingLong(QueryStatistics::getTotalNanos).reversed());
+
+        return snapshot;
+    }
+
+    public synchronized void reset() {
+        statistics.clear();
+    }
+}
@@ -0,0 +1,80 @@
+package com.kordata.odbcbridge;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+
+public class QueryStatistics {
+    private final String fingerprint;
+
+    private final DescriptiveStatistics latencies;
+    private final DescriptiveStatistics bytes;
+
+    private long count;
+    private long totalNanos;
+    private long totalBytes;
+    private long maxNanos;
+
+    public QueryStatistics(String fingerprint, int windowSize) {
+        this.fingerprint = fingerprint;
+
+        latencies = new DescriptiveStatistics(windowSize);
+        bytes = new DescriptiveStatistics(windowSize);
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    synchronized void record(long elapsedNanos, long responseBytes) {
+        count++;
+        totalNanos += elapsedNanos;
+        totalBytes += responseBytes;
+        maxNanos = Math.max(maxNanos, elapsedNanos);
+
+        latencies.addValue(elapsedNanos);
+        bytes.addValue(responseBytes);
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized long getTotalTime(TimeUnit unit) {
+        return unit.convert(totalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public synchronized long getMaxTime(TimeUnit unit) {
+        return unit.convert(maxNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Percentiles are computed over the most recent window of executions.
+    public synchronized double getLatencyPercentile(double percentile, TimeUnit unit) {
+        if (latencies.getN() == 0)
+            return 0;
+
+        return latencies.getPercentile(percentile) / unit.toNanos(1);
+    }
+
+    public synchronized double getBytesPercentile(double percentile) {
+        if (bytes.getN() == 0)
+            return 0;
+
+        return bytes.getPercentile(percentile);
+    }
+
+    synchronized long getTotalNanos() {
+        return totalNanos;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s [count=%d, p50=%.1fms, p95=%.1fms, max=%dms, bytes=%d]",
+                fingerprint, count, getLatencyPercentile(50, TimeUnit.MILLISECONDS),
+                getLatencyPercentile(95, TimeUnit.MILLISECONDS), getMaxTime(TimeUnit.MILLISECONDS),
+                totalBytes);
+    }
+}
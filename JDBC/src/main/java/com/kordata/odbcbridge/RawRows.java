@@ -0,0 +1,347 @@
+package com.kordata.odbcbridge;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+// The rows of a response kept as the response's own UTF-8 bytes, plus the
+// offsets where each cell's value starts and ends. Getters read one cell at a
+// time from its offsets, taking NULLs and integers straight from the bytes, so
+// columns of a SELECT * that nobody reads cost no more than the tokenizer pass
+// that found them. Only stream() wraps whole rows.
+final class RawRows implements RowStore {
+    private final ResponseReader reader;
+    private final JsonFactory jsonFactory;
+    private final JsonNodeFactory factory;
+    private final byte[] body;
+
+    private final Map<String, Integer> nameIndexes = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    // Cells of row r are cellStarts[r] until cellStarts[r + 1].
+    private int[] cellStarts = new int[1024];
+    private int size;
+    private int[] cellNames = new int[4096];
+    private int[] cellOffsets = new int[4096];
+    private int[] cellEnds = new int[4096];
+    private int cellCount;
+
+    private MemoryBudget.Reservation reservation;
+    private Runnable onClose;
+    private boolean closed;
+
+    RawRows(ResponseReader reader, ObjectMapper mapper, byte[] body) {
+        this.reader = reader;
+        this.jsonFactory = mapper.getFactory();
+        this.factory = mapper.getNodeFactory();
+        this.body = body;
+    }
+
+    void startRow() {
+        if (size + 1 >= cellStarts.length) {
+            cellStarts = Arrays.copyOf(cellStarts, cellStarts.length * 2);
+        }
+
+        cellStarts[size++] = cellCount;
+        cellStarts[size] = cellCount;
+    }
+
+    // A parser reading one value at the start of a buffer rejects a number
+    // that's followed by anything, so cells end where their value does.
+    void addCell(String name, int offset, int end) {
+        Integer index = nameIndexes.get(name);
+
+        if (index == null) {
+            index = names.size();
+            names.add(name);
+            nameIndexes.put(name, index);
+        }
+
+        if (cellCount == cellNames.length) {
+            cellNames = Arrays.copyOf(cellNames, cellCount * 2);
+            cellOffsets = Arrays.copyOf(cellOffsets, cellCount * 2);
+            cellEnds = Arrays.copyOf(cellEnds, cellCount * 2);
+        }
+
+        cellNames[cellCount] = index;
+        cellOffsets[cellCount] = offset;
+        cellEnds[cellCount++] = end;
+        cellStarts[size] = cellCount;
+    }
+
+    long estimateHeapSize() {
+        return body.length + 12L * cellCount + 4L * size + 64;
+    }
+
+    void holdReservation(MemoryBudget.Reservation reservation) {
+        this.reservation = reservation;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public ObjectNode get(int row) {
+        if (closed) {
+            throw new IllegalStateException("Result has been closed");
+        }
+
+        return new ObjectNode(factory, new RawRow(cellStarts[row], cellStarts[row + 1]));
+    }
+
+    @Override
+    public int columnIndex(String name) {
+        Integer index = nameIndexes.get(name);
+        return index != null ? index : -1;
+    }
+
+    @Override
+    public List<String> columnNames() {
+        List<String> columnNames = new ArrayList<>();
+
+        if (size > 0) {
+            for (int cell = cellStarts[0]; cell < cellStarts[1]; cell++) {
+                columnNames.add(names.get(cellNames[cell]));
+            }
+        }
+
+        return columnNames;
+    }
+
+    @Override
+    public JsonNode get(int row, int column) {
+        int cell = find(row, column);
+        return cell < 0 ? null : decode(cell);
+    }
+
+    @Override
+    public boolean has(int row, int column) {
+        return find(row, column) >= 0;
+    }
+
+    @Override
+    public boolean isNull(int row, int column) {
+        int cell = find(row, column);
+        return cell < 0 || body[cellOffsets[cell]] == 'n';
+    }
+
+    // Integer literals are read straight from the body; anything else is
+    // decoded as the full getters would.
+    @Override
+    public long getLong(int row, int column) {
+        int cell = find(row, column);
+
+        if (cell < 0 || body[cellOffsets[cell]] == 'n')
+            return 0;
+
+        return isShortInteger(cell) ? parseInteger(cell) : decode(cell).asLong();
+    }
+
+    @Override
+    public double getDouble(int row, int column) {
+        int cell = find(row, column);
+
+        if (cell < 0 || body[cellOffsets[cell]] == 'n')
+            return 0;
+
+        return isShortInteger(cell) ? parseInteger(cell) : decode(cell).asDouble();
+    }
+
+    // Up to eighteen digits, which can't overflow a long.
+    private boolean isShortInteger(int cell) {
+        int at = body[cellOffsets[cell]] == '-' ? cellOffsets[cell] + 1 : cellOffsets[cell];
+        int end = cellEnds[cell];
+
+        if (at == end || end - at > 18)
+            return false;
+
+        for (; at < end; at++) {
+            if (body[at] < '0' || body[at] > '9')
+                return false;
+        }
+
+        return true;
+    }
+
+    private long parseInteger(int cell) {
+        boolean negative = body[cellOffsets[cell]] == '-';
+        long value = 0;
+
+        for (int at = negative ? cellOffsets[cell] + 1 : cellOffsets[cell]; at < cellEnds[cell];
+                at++) {
+            value = value * 10 + (body[at] - '0');
+        }
+
+        return negative ? -value : value;
+    }
+
+    private int find(int row, int column) {
+        if (closed) {
+            throw new IllegalStateException("Result has been closed");
+        }
+
+        for (int cell = cellStarts[row]; cell < cellStarts[row + 1]; cell++) {
+            if (cellNames[cell] == column)
+                return cell;
+        }
+
+        return -1;
+    }
+
+    private JsonNode decode(int cell) {
+        int offset = cellOffsets[cell];
+
+        try (JsonParser parser =
+                jsonFactory.createParser(body, offset, cellEnds[cell] - offset)) {
+            return reader.readCell(names.get(cellNames[cell]), parser, parser.nextToken());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void setOnClose(Runnable onClose) {
+        this.onClose = onClose;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed)
+            return;
+
+        closed = true;
+
+        if (reservation != null) {
+            reservation.close();
+        }
+
+        if (onClose != null) {
+            onClose.run();
+        }
+    }
+
+    // One row's cells, decoded as they're looked up and kept for the row's
+    // lifetime. Read-only.
+    private final class RawRow extends AbstractMap<String, JsonNode> {
+        private final int first;
+        private final int end;
+        private final JsonNode[] values;
+
+        RawRow(int first, int end) {
+            this.first = first;
+            this.end = end;
+            this.values = new JsonNode[end - first];
+        }
+
+        private int find(Object name) {
+            Integer index = nameIndexes.get(name);
+
+            if (index != null) {
+                for (int cell = first; cell < end; cell++) {
+                    if (cellNames[cell] == index)
+                        return cell;
+                }
+            }
+
+            return -1;
+        }
+
+        private JsonNode value(int cell) {
+            JsonNode value = values[cell - first];
+
+            if (value == null) {
+                value = decode(cell);
+                values[cell - first] = value;
+            }
+
+            return value;
+        }
+
+        @Override
+        public JsonNode get(Object name) {
+            int cell = find(name);
+            return cell < 0 ? null : value(cell);
+        }
+
+        @Override
+        public boolean containsKey(Object name) {
+            return find(name) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return end - first;
+        }
+
+        @Override
+        public Set<Map.Entry<String, JsonNode>> entrySet() {
+            return new AbstractSet<Map.Entry<String, JsonNode>>() {
+                @Override
+                public int size() {
+                    return end - first;
+                }
+
+                @Override
+                public Iterator<Map.Entry<String, JsonNode>> iterator() {
+                    return new Iterator<Map.Entry<String, JsonNode>>() {
+                        private int cell = first;
+
+                        @Override
+                        public boolean hasNext() {
+                            return cell < end;
+                        }
+
+                        @Override
+                        public Map.Entry<String, JsonNode> next() {
+                            if (cell >= end)
+                                throw new NoSuchElementException();
+
+                            return new Cell(cell++);
+                        }
+                    };
+                }
+            };
+        }
+
+        // Iterating names, as fieldNames() does, leaves the values undecoded.
+        private final class Cell implements Map.Entry<String, JsonNode> {
+            private final int cell;
+
+            Cell(int cell) {
+                this.cell = cell;
+            }
+
+            @Override
+            public String getKey() {
+                return names.get(cellNames[cell]);
+            }
+
+            @Override
+            public JsonNode getValue() {
+                return value(cell);
+            }
+
+            @Override
+            public JsonNode setValue(JsonNode value) {
+                throw new UnsupportedOperationException();
+            }
+        }
+    }
+}
@@ -0,0 +1,680 @@
+package com.kordata.odbcbridge;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+// Reads a query response token by token instead of through readTree, so LOB
+// cells can be decoded from the stream into LobBuffers (base64 is decoded
+// incrementally) rather than first being held as one large string. Rows past
+// the heap budget, or past what the driver's MemoryBudget grants, are moved to
+// a SpilledRows, which replaces the results array; so do OffHeapRows when the
+// connection keeps results off the heap.
+//
+// readLazily, readInParallel and readWith take the whole body instead: the first
+// indexes it for RawRows, the second splits its rows into chunks decoded
+// concurrently and the third has a ResultDecoder decode them.
+class ResponseReader {
+    // Bytes of rows decoded by one task of readInParallel.
+    static final int PARSE_CHUNK_BYTES = 1024 * 1024;
+
+    private final ObjectMapper mapper;
+    private final JsonNodeFactory factory;
+    private final long lobSpillThreshold;
+    private final long heapBudget;
+    private final MemoryBudget.Reservation reservation;
+    private final boolean offHeap;
+
+    // Column name -> true for binary LOBs, false for long text.
+    private Map<String, Boolean> lobColumns = new HashMap<>();
+    // Read as ScaledDecimalNodes rather than doubles.
+    private Set<String> decimalColumns = new HashSet<>();
+    private final List<LobBuffer> lobs = new ArrayList<>();
+    private final Map<String, StringDictionary> dictionaries = new HashMap<>();
+    private OffHeapRows offHeapRows;
+    private SpilledRows spilled;
+    private long heapSize;
+
+    ResponseReader(ObjectMapper mapper, long lobSpillThreshold) {
+        this(mapper, lobSpillThreshold, Long.MAX_VALUE, null, false);
+    }
+
+    // Rows read with a reservation are returned as a RowStore that holds it
+    // until the rows are closed. Off-heap rows count their encoded size against
+    // both budgets.
+    ResponseReader(ObjectMapper mapper, long lobSpillThreshold, long heapBudget,
+            MemoryBudget.Reservation reservation, boolean offHeap) {
+        this.mapper = mapper;
+        this.factory = mapper.getNodeFactory();
+        this.lobSpillThreshold = lobSpillThreshold;
+        this.heapBudget = heapBudget;
+        this.reservation = reservation;
+        this.offHeap = offHeap;
+    }
+
+    ObjectNode read(InputStream in) throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return (ObjectNode) mapper.readTree(parser);
+            }
+
+            ObjectNode response = factory.objectNode();
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+
+                if (field.equals("results") && token == JsonToken.START_ARRAY) {
+                    response.set(field, readRows(parser));
+                } else {
+                    JsonNode value = mapper.readTree(parser);
+                    response.set(field, value);
+
+                    // The bridge writes the schema ahead of the results.
+                    if (field.equals("schema") && value.isArray()) {
+                        lobColumns = findLobColumns((ArrayNode) value);
+                        decimalColumns = findDecimalColumns((ArrayNode) value);
+                    }
+                }
+            }
+
+            return response;
+        } catch (IOException | RuntimeException e) {
+            discard();
+            throw e;
+        }
+    }
+
+    // Frees whatever a failed read had buffered.
+    private void discard() {
+        if (offHeapRows != null) {
+            offHeapRows.close();
+        }
+
+        if (spilled != null) {
+            spilled.close();
+        }
+
+        if (reservation != null) {
+            reservation.close();
+        }
+
+        lobs.forEach(LobBuffer::close);
+    }
+
+    // Decodes the rows of a buffered response on pool, chunkBytes of rows to a
+    // task, then buffers them in their original order as read does. Only a
+    // wave of chunks is decoded ahead of the rows being buffered, so spilling
+    // and the budgets still bound what's held.
+    ObjectNode readInParallel(byte[] body, ForkJoinPool pool, int chunkBytes)
+            throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return (ObjectNode) mapper.readTree(parser);
+            }
+
+            ObjectNode response = factory.objectNode();
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+
+                if (field.equals("results") && token == JsonToken.START_ARRAY) {
+                    int arrayStart = (int) parser.getTokenLocation().getByteOffset();
+                    RowBoundaries boundaries = RowBoundaries.scan(body, arrayStart);
+
+                    response.set(field, decodeRows(body, boundaries, pool, chunkBytes));
+                    readFieldsAfter(body, boundaries.getEnd(), response);
+                    return response;
+                }
+
+                JsonNode value = mapper.readTree(parser);
+                response.set(field, value);
+
+                if (field.equals("schema") && value.isArray()) {
+                    lobColumns = findLobColumns((ArrayNode) value);
+                    decimalColumns = findDecimalColumns((ArrayNode) value);
+                }
+            }
+
+            return response;
+        } catch (IOException | RuntimeException e) {
+            discard();
+            throw e;
+        }
+    }
+
+    // Reads a buffered response whose rows decoder decodes; everything else
+    // is read as usual.
+    ObjectNode readWith(byte[] body, ResultDecoder decoder) throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return (ObjectNode) mapper.readTree(parser);
+            }
+
+            ObjectNode response = factory.objectNode();
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+
+                if (field.equals("results") && token == JsonToken.START_ARRAY) {
+                    int arrayStart = (int) parser.getTokenLocation().getByteOffset();
+                    DecodedRows rows = new DecodedRows();
+                    int arrayEnd = decoder.decodeRows(body, arrayStart, rows);
+
+                    response.set(field, finishRows(rows.rows));
+                    readFieldsAfter(body, arrayEnd, response);
+                    return response;
+                }
+
+                JsonNode value = mapper.readTree(parser);
+                response.set(field, value);
+
+                if (field.equals("schema") && value.isArray()) {
+                    lobColumns = findLobColumns((ArrayNode) value);
+                    decimalColumns = findDecimalColumns((ArrayNode) value);
+                }
+            }
+
+            return response;
+        } catch (IOException | RuntimeException e) {
+            discard();
+            throw e;
+        }
+    }
+
+    private final class DecodedRows implements ResultDecoder.Rows {
+        private final ArrayNode rows = startRows();
+
+        @Override
+        public JsonNodeFactory getNodeFactory() {
+            return factory;
+        }
+
+        @Override
+        public boolean isTypedColumn(String column) {
+            return lobColumns.containsKey(column) || decimalColumns.contains(column);
+        }
+
+        @Override
+        public JsonNode readCell(String column, byte[] body, int start, int end)
+                throws IOException {
+            try (JsonParser parser = mapper.getFactory().createParser(body, start, end - start)) {
+                return readField(column, parser, parser.nextToken());
+            }
+        }
+
+        @Override
+        public JsonNode textCell(String column, String text) {
+            return dictionary(column).intern(text);
+        }
+
+        @Override
+        public ObjectNode readRow(byte[] body, int start, int end) throws IOException {
+            try (JsonParser parser = mapper.getFactory().createParser(body, start, end - start)) {
+                parser.nextToken();
+                return ResponseReader.this.readRow(parser);
+            }
+        }
+
+        @Override
+        public void add(ObjectNode row) throws IOException {
+            addRow(rows, row);
+        }
+    }
+
+    // The parser that found the results can't skip them without tokenizing
+    // them, so any fields after the array are read from a copy of the rest.
+    private void readFieldsAfter(byte[] body, int offset, ObjectNode response)
+            throws IOException {
+        while (offset < body.length && Character.isWhitespace(body[offset])) {
+            offset++;
+        }
+
+        if (offset == body.length || body[offset] != ',')
+            return;
+
+        byte[] rest = new byte[body.length - offset];
+        rest[0] = '{';
+        System.arraycopy(body, offset + 1, rest, 1, rest.length - 1);
+
+        JsonNode fields = mapper.readTree(rest);
+        if (fields != null && fields.isObject()) {
+            response.setAll((ObjectNode) fields);
+        }
+    }
+
+    private JsonNode decodeRows(byte[] body, RowBoundaries boundaries, ForkJoinPool pool,
+            int chunkBytes) throws IOException {
+        ArrayNode rows = startRows();
+        int waveSize = 2 * pool.getParallelism();
+        int next = 0;
+
+        while (next < boundaries.size()) {
+            List<ResponseReader> readers = new ArrayList<>();
+            List<Callable<List<ObjectNode>>> chunks = new ArrayList<>();
+
+            while (chunks.size() < waveSize && next < boundaries.size()) {
+                int first = next;
+                int start = boundaries.getStart(first);
+
+                do {
+                    next++;
+                } while (next < boundaries.size()
+                        && boundaries.getEnd(next) - start <= chunkBytes);
+
+                // Chunks decode with their own LOB list and dictionaries.
+                ResponseReader reader = new ResponseReader(mapper, lobSpillThreshold);
+                reader.lobColumns = lobColumns;
+                reader.decimalColumns = decimalColumns;
+                readers.add(reader);
+
+                int last = next;
+                chunks.add(() -> reader.decodeRows(body, boundaries, first, last));
+            }
+
+            List<Future<List<ObjectNode>>> decoded = pool.invokeAll(chunks);
+
+            for (ResponseReader reader : readers) {
+                lobs.addAll(reader.lobs);
+            }
+
+            for (Future<List<ObjectNode>> chunk : decoded) {
+                for (ObjectNode row : join(chunk)) {
+                    addRow(rows, row);
+                }
+            }
+        }
+
+        return finishRows(rows);
+    }
+
+    private List<ObjectNode> decodeRows(byte[] body, RowBoundaries boundaries, int first,
+            int last) throws IOException {
+        JsonFactory jsonFactory = mapper.getFactory();
+        List<ObjectNode> rows = new ArrayList<>(last - first);
+
+        for (int row = first; row < last; row++) {
+            int start = boundaries.getStart(row);
+
+            try (JsonParser parser =
+                    jsonFactory.createParser(body, start, boundaries.getEnd(row) - start)) {
+                parser.nextToken();
+                rows.add(readRow(parser));
+            }
+        }
+
+        return rows;
+    }
+
+    private static List<ObjectNode> join(Future<List<ObjectNode>> chunk) throws IOException {
+        try {
+            return chunk.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while decoding results");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+
+            throw new IOException(cause);
+        }
+    }
+
+    // Indexes where each cell of the results starts instead of decoding it, so
+    // only the cells callers read are ever decoded; see RawRows. Results that
+    // don't fit the budgets as raw bytes are read as usual instead.
+    ObjectNode readLazily(byte[] body) throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return (ObjectNode) mapper.readTree(parser);
+            }
+
+            ObjectNode response = factory.objectNode();
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+
+                if (field.equals("results") && token == JsonToken.START_ARRAY) {
+                    RawRows rows = indexRows(parser, body);
+                    long size = rows.estimateHeapSize();
+
+                    if (size > heapBudget || !reserve(size)) {
+                        return read(new ByteArrayInputStream(body));
+                    }
+
+                    rows.holdReservation(reservation);
+                    response.set(field, factory.pojoNode(rows));
+                } else {
+                    JsonNode value = mapper.readTree(parser);
+                    response.set(field, value);
+
+                    if (field.equals("schema") && value.isArray()) {
+                        decimalColumns = findDecimalColumns((ArrayNode) value);
+                    }
+                }
+            }
+
+            return response;
+        } catch (IOException | RuntimeException e) {
+            if (reservation != null) {
+                reservation.close();
+            }
+
+            throw e;
+        }
+    }
+
+    private RawRows indexRows(JsonParser parser, byte[] body) throws IOException {
+        RawRows rows = new RawRows(this, mapper, body);
+
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            rows.startRow();
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String column = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                int offset = (int) parser.getTokenLocation().getByteOffset();
+
+                // Strings are skipped undecoded by the next nextToken, so their
+                // end isn't known; they run to the end of the body instead.
+                if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                }
+
+                int end = token == JsonToken.VALUE_STRING ? body.length
+                        : (int) parser.getCurrentLocation().getByteOffset();
+                rows.addCell(column, offset, end);
+            }
+        }
+
+        return rows;
+    }
+
+    // Positions a parser at the first row of a query response or of a bare
+    // array of rows, for callers that read rows one at a time. LOB cells stay
+    // plain values there, since streamed rows outlive any buffers we'd track.
+    JsonParser openRows(InputStream in) throws IOException {
+        JsonParser parser = mapper.getFactory().createParser(in);
+        JsonToken token = parser.nextToken();
+
+        if (token == JsonToken.START_ARRAY)
+            return parser;
+
+        if (token == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+
+                if (parser.nextToken() == JsonToken.START_ARRAY && field.equals("results"))
+                    return parser;
+
+                parser.skipChildren();
+            }
+        }
+
+        parser.close();
+        throw new IOException("Expected an array of rows");
+    }
+
+    private static Map<String, Boolean> findLobColumns(ArrayNode schema) {
+        Map<String, Boolean> columns = new HashMap<>();
+
+        for (JsonNode column : schema) {
+            int type = OdbcResultSetMetaData.toColumnType(column);
+
+            if (OdbcResultSetMetaData.isLob(type)) {
+                boolean binary = OdbcResultSetMetaData.isBinary(type);
+                columns.put(column.path("columnName").asText(), binary);
+            }
+        }
+
+        return columns;
+    }
+
+    private static Set<String> findDecimalColumns(ArrayNode schema) {
+        Set<String> columns = new HashSet<>();
+
+        for (JsonNode column : schema) {
+            if (OdbcResultSetMetaData.toColumnType(column) == Types.DECIMAL) {
+                columns.add(column.path("columnName").asText());
+            }
+        }
+
+        return columns;
+    }
+
+    private JsonNode readRows(JsonParser parser) throws IOException {
+        ArrayNode rows = startRows();
+
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            addRow(rows, readRow(parser));
+        }
+
+        return finishRows(rows);
+    }
+
+    private ArrayNode startRows() {
+        if (offHeap) {
+            offHeapRows = new OffHeapRows(mapper);
+        }
+
+        return factory.arrayNode();
+    }
+
+    private void addRow(ArrayNode rows, ObjectNode row) throws IOException {
+        if (spilled != null) {
+            spilled.append(row);
+            return;
+        }
+
+        long rowSize;
+        if (offHeapRows != null) {
+            long before = offHeapRows.getLength();
+            offHeapRows.append(row);
+            rowSize = offHeapRows.getLength() - before;
+        } else {
+            rows.add(row);
+            rowSize = estimateHeapSize(row);
+        }
+
+        heapSize += rowSize;
+
+        if (heapSize > heapBudget || !reserve(rowSize)) {
+            spill(rows);
+        }
+    }
+
+    private JsonNode finishRows(ArrayNode rows) throws IOException {
+        if (spilled != null) {
+            spilled.finish();
+            return factory.pojoNode(spilled);
+        }
+
+        if (offHeapRows != null) {
+            offHeapRows.finish();
+            offHeapRows.holdReservation(reservation);
+            return factory.pojoNode(offHeapRows);
+        }
+
+        if (reservation != null)
+            return factory.pojoNode(new RowStore.HeapRows(rows, !lobs.isEmpty(), reservation));
+
+        return rows;
+    }
+
+    private void spill(ArrayNode rows) throws IOException {
+        spilled = new SpilledRows(mapper);
+
+        if (offHeapRows != null) {
+            offHeapRows.moveTo(spilled);
+            offHeapRows = null;
+        } else {
+            for (JsonNode buffered : rows) {
+                spilled.append((ObjectNode) buffered);
+            }
+
+            rows.removeAll();
+        }
+
+        // Spilled rows hold next to nothing in memory.
+        if (reservation != null) {
+            reservation.close();
+        }
+    }
+
+    private boolean reserve(long bytes) throws IOException {
+        if (reservation == null || reservation.tryGrow(bytes))
+            return true;
+
+        if (reservation.getPolicy() == MemoryBudget.Policy.FAIL)
+            throw reservation.exhausted();
+
+        return false;
+    }
+
+    // A rough count of the bytes a row's nodes and entries take on the heap.
+    // Text from a dictionary-encoded column is shared, so only costs an entry.
+    private long estimateHeapSize(ObjectNode row) {
+        long size = 48;
+
+        Iterator<Map.Entry<String, JsonNode>> fields = row.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            size += 48;
+
+            if (field.getValue().isTextual()) {
+                StringDictionary dictionary = dictionaries.get(field.getKey());
+
+                if (dictionary == null || !dictionary.isEncoding()) {
+                    size += 2L * field.getValue().textValue().length();
+                }
+            }
+        }
+
+        return size;
+    }
+
+    // Reads the fields of the object the parser is positioned at.
+    ObjectNode readRow(JsonParser parser) throws IOException {
+        ObjectNode row = factory.objectNode();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String column = parser.getCurrentName();
+            row.set(column, readField(column, parser, parser.nextToken()));
+        }
+
+        return row;
+    }
+
+    private JsonNode readField(String column, JsonParser parser, JsonToken token)
+            throws IOException {
+        Boolean binary = lobColumns.get(column);
+
+        if (binary != null && token == JsonToken.VALUE_STRING)
+            return readLob(parser, binary);
+
+        if (token == JsonToken.VALUE_STRING)
+            return dictionary(column).intern(parser.getText());
+
+        return readCell(column, parser, token);
+    }
+
+    JsonNode readCell(String column, JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NUMBER_FLOAT && decimalColumns.contains(column)) {
+            ScaledDecimalNode decimal = ScaledDecimalNode.parse(parser.getTextCharacters(),
+                    parser.getTextOffset(), parser.getTextLength());
+
+            return decimal != null ? decimal : factory.numberNode(parser.getDecimalValue());
+        }
+
+        return readValue(parser, token);
+    }
+
+    // Equal text cells of a low-cardinality column share one node.
+    private StringDictionary dictionary(String column) {
+        StringDictionary dictionary = dictionaries.get(column);
+
+        if (dictionary == null) {
+            dictionary = new StringDictionary(factory);
+            dictionaries.put(column, dictionary);
+        }
+
+        return dictionary;
+    }
+
+    private JsonNode readLob(JsonParser parser, boolean binary) throws IOException {
+        // Short memos are cheaper as plain text; the parser has buffered them anyway.
+        if (!binary && parser.getTextLength() <= lobSpillThreshold) {
+            return factory.textNode(parser.getText());
+        }
+
+        LobBuffer lob = new LobBuffer(binary, lobSpillThreshold);
+        lobs.add(lob);
+
+        if (binary) {
+            parser.readBinaryValue(lob.openOutput());
+        } else {
+            try (Writer writer = lob.openWriter()) {
+                parser.getText(writer);
+            }
+        }
+
+        lob.finish();
+        return factory.pojoNode(lob);
+    }
+
+    JsonNode readValue(JsonParser parser, JsonToken token) throws IOException {
+        switch (token) {
+            case VALUE_STRING:
+                return factory.textNode(parser.getText());
+            case VALUE_NUMBER_INT:
+                switch (parser.getNumberType()) {
+                    case INT:
+                        return factory.numberNode(parser.getIntValue());
+                    case LONG:
+                        return factory.numberNode(parser.getLongValue());
+                    default:
+                        return factory.numberNode(parser.getBigIntegerValue());
+                }
+            case VALUE_NUMBER_FLOAT:
+                return factory.numberNode(parser.getDoubleValue());
+            case VALUE_TRUE:
+                return factory.booleanNode(true);
+            case VALUE_FALSE:
+                return factory.booleanNode(false);
+            case VALUE_NULL:
+                return factory.nullNode();
+            default:
+                return mapper.readTree(parser);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.kordata.odbcbridge;
+
+import java.io.IOException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+// Decodes the results array of a buffered query response in place of Jackson's
+// streaming parser, chosen with the resultDecoder connection property. A
+// decoder only has to find rows and plain cells; Rows decodes whatever it
+// hands back (LOBs, decimals, escaped text, nested values) as the default
+// reader would, and buffers the rows against the connection's budgets.
+//
+// One instance serves every query on a connection, so it must be thread-safe.
+public interface ResultDecoder {
+    // Reads the rows of the array whose '[' is at arrayStart into rows, in
+    // order. Returns the offset just past the array's ']'.
+    int decodeRows(byte[] body, int arrayStart, Rows rows) throws IOException;
+
+    interface Rows {
+        JsonNodeFactory getNodeFactory();
+
+        // Columns whose cells must go through readCell: LOBs and decimals.
+        boolean isTypedColumn(String column);
+
+        // Decodes the JSON value from start until end as a cell of column.
+        JsonNode readCell(String column, byte[] body, int start, int end) throws IOException;
+
+        // The node for a text cell, shared with equal cells of the column where
+        // it's dictionary-encoded.
+        JsonNode textCell(String column, String text);
+
+        // Decodes the row object from start until end with the default reader.
+        ObjectNode readRow(byte[] body, int start, int end) throws IOException;
+
+        void add(ObjectNode row) throws IOException;
+    }
+}
@@ -0,0 +1,72 @@
+package com.kordata.odbcbridge;
+
+import java.util.ArrayList;
+import java.util.List;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+// Builds driver-generated result sets (e.g. DatabaseMetaData) in the same shape
+// the bridge returns for queries.
+class ResultSetBuilder {
+    private static final JsonNodeFactory factory = JsonNodeFactory.instance;
+
+    private final ArrayNode schema = factory.arrayNode();
+    private final ArrayNode results = factory.arrayNode();
+    private final List<String> columnNames = new ArrayList<>();
+
+    ResultSetBuilder column(String name, String dataType) {
+        ObjectNode column = schema.addObject();
+        column.put("columnName", name);
+        column.put("dataType", dataType);
+        column.put("allowDBNull", true);
+        column.put("isAutoIncrement", false);
+        column.put("isLong", false);
+        column.put("isReadOnly", true);
+        column.put("columnSize", dataType.equals("string") ? 255
+                : dataType.equals("long") ? 19 : 10);
+        column.put("numericPrecision", 0);
+        column.put("numericScale", 0);
+        column.putNull("baseTableName");
+        column.putNull("baseCatalogName");
+        column.putNull("baseSchemaName");
+
+        columnNames.add(name);
+        return this;
+    }
+
+    ResultSetBuilder row(Object... values) {
+        ObjectNode row = results.addObject();
+
+        for (int i = 0; i < columnNames.size(); i++) {
+            String name = columnNames.get(i);
+            Object value = i < values.length ? values[i] : null;
+
+            if (value == null) {
+                row.putNull(name);
+            } else if (value instanceof String) {
+                row.put(name, (String) value);
+            } else if (value instanceof Integer) {
+                row.put(name, (Integer) value);
+            } else if (value instanceof Short) {
+                row.put(name, (Short) value);
+            } else if (value instanceof Long) {
+                row.put(name, (Long) value);
+            } else if (value instanceof Boolean) {
+                row.put(name, (Boolean) value);
+            } else {
+                row.put(name, value.toString());
+            }
+        }
+
+        return this;
+    }
+
+    OdbcResultSet build() {
+        ObjectNode response = factory.objectNode();
+        response.set("schema", schema);
+        response.set("results", results);
+
+        return new OdbcResultSet(null, response);
+    }
+}
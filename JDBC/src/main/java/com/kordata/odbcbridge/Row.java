@@ -0,0 +1,176 @@
+package com.kordata.odbcbridge;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.POJONode;
+
+// One row of a result set's stream(). Rows read the buffered values directly
+// and carry no cursor, so any number of them can be used from any thread.
+// Columns are looked up by label or 1-based index; unknown columns throw
+// IllegalArgumentException since stream lambdas can't throw SQLException.
+public final class Row {
+    private final ObjectNode values;
+    private final OdbcResultSetMetaData metaData;
+    private final DateTimeDecoder dateTimeDecoder;
+
+    Row(ObjectNode values, OdbcResultSetMetaData metaData, DateTimeDecoder dateTimeDecoder) {
+        this.values = values;
+        this.metaData = metaData;
+        this.dateTimeDecoder = dateTimeDecoder;
+    }
+
+    private JsonNode column(String columnLabel) {
+        JsonNode column = values.get(columnLabel);
+
+        if (column == null) {
+            throw new IllegalArgumentException(
+                    columnLabel + " is not a valid column in the ResultSet.");
+        }
+
+        return column;
+    }
+
+    private String label(int columnIndex) {
+        try {
+            return metaData.getColumnLabel(columnIndex);
+        } catch (SQLException e) {
+            throw new IllegalArgumentException(
+                    columnIndex + " is out of range for the ResultSet.");
+        }
+    }
+
+    private static LobBuffer lobValue(JsonNode column) {
+        if (column instanceof POJONode && ((POJONode) column).getPojo() instanceof LobBuffer) {
+            return (LobBuffer) ((POJONode) column).getPojo();
+        }
+
+        return null;
+    }
+
+    public boolean isNull(String columnLabel) {
+        return column(columnLabel).isNull();
+    }
+
+    public boolean isNull(int columnIndex) {
+        return isNull(label(columnIndex));
+    }
+
+    public String getString(String columnLabel) {
+        JsonNode column = column(columnLabel);
+
+        if (column.isNull())
+            return null;
+
+        LobBuffer lob = lobValue(column);
+        if (lob != null) {
+            try {
+                return lob.toText();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        return column.asText();
+    }
+
+    public String getString(int columnIndex) {
+        return getString(label(columnIndex));
+    }
+
+    public boolean getBoolean(String columnLabel) {
+        return column(columnLabel).asBoolean();
+    }
+
+    public int getInt(String columnLabel) {
+        return column(columnLabel).asInt();
+    }
+
+    public int getInt(int columnIndex) {
+        return getInt(label(columnIndex));
+    }
+
+    public long getLong(String columnLabel) {
+        return column(columnLabel).asLong();
+    }
+
+    public long getLong(int columnIndex) {
+        return getLong(label(columnIndex));
+    }
+
+    public double getDouble(String columnLabel) {
+        return column(columnLabel).asDouble();
+    }
+
+    public double getDouble(int columnIndex) {
+        return getDouble(label(columnIndex));
+    }
+
+    // Currency columns arrive as text so they keep their scale.
+    public BigDecimal getBigDecimal(String columnLabel) {
+        JsonNode column = column(columnLabel);
+
+        if (column.isNull())
+            return null;
+
+        if (column.isNumber())
+            return column.decimalValue();
+
+        return new BigDecimal(column.asText());
+    }
+
+    public BigDecimal getBigDecimal(int columnIndex) {
+        return getBigDecimal(label(columnIndex));
+    }
+
+    public Timestamp getTimestamp(String columnLabel) {
+        JsonNode column = column(columnLabel);
+
+        if (column.isNull())
+            return null;
+
+        try {
+            return JsonNodeExtensions.timestampValue(column, dateTimeDecoder);
+        } catch (SQLException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    public Timestamp getTimestamp(int columnIndex) {
+        return getTimestamp(label(columnIndex));
+    }
+
+    public Object getObject(String columnLabel) {
+        JsonNode column = column(columnLabel);
+        int ordinal = metaData.findColumn(columnLabel);
+
+        LobBuffer lob = lobValue(column);
+        if (lob != null) {
+            try {
+                return lob.isBinary() ? lob.toBytes() : lob.toText();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        try {
+            String odbcType = ordinal > 0 ? metaData.getOdbcType(ordinal) : "";
+            return JsonNodeExtensions.toObject(column, odbcType, dateTimeDecoder);
+        } catch (SQLException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    public Object getObject(int columnIndex) {
+        return getObject(label(columnIndex));
+    }
+
+    @Override
+    public String toString() {
+        return values.toString();
+    }
+}
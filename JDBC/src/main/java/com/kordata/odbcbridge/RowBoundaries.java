@@ -0,0 +1,102 @@
+package com.kordata.odbcbridge;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+// Where each row of a buffered results array starts and ends, found by a
+// single pass over the bytes that only tracks strings and nesting, so rows can
+// be handed to separate parsers. Elements that aren't objects end the rows, as
+// they do for ResponseReader.
+final class RowBoundaries {
+    private int[] starts = new int[1024];
+    private int[] ends = new int[1024];
+    private int size;
+    private int end;
+
+    private RowBoundaries() {
+    }
+
+    // Scans the array whose '[' is at arrayStart.
+    static RowBoundaries scan(byte[] body, int arrayStart) throws IOException {
+        RowBoundaries rows = new RowBoundaries();
+        boolean done = false;
+        int depth = 0;
+        int rowStart = -1;
+
+        for (int i = arrayStart; i < body.length; i++) {
+            switch (body[i]) {
+                case '"':
+                    // Skip the string; its escapes can't open or close anything.
+                    i++;
+                    while (i < body.length && body[i] != '"') {
+                        if (body[i] == '\\') {
+                            i++;
+                        }
+                        i++;
+                    }
+                    break;
+                case '{':
+                case '[':
+                    if (depth == 1 && body[i] == '{' && !done) {
+                        rowStart = i;
+                    } else if (depth == 1) {
+                        done = true;
+                    }
+                    depth++;
+                    break;
+                case '}':
+                case ']':
+                    depth--;
+                    if (depth == 1 && rowStart >= 0) {
+                        rows.add(rowStart, i + 1);
+                        rowStart = -1;
+                    } else if (depth == 0) {
+                        rows.end = i + 1;
+                        return rows;
+                    }
+                    break;
+                case ' ':
+                case '\t':
+                case '\r':
+                case '\n':
+                case ',':
+                    break;
+                default:
+                    // A scalar element of the array.
+                    if (depth == 1) {
+                        done = true;
+                    }
+                    break;
+            }
+        }
+
+        throw new IOException("Unterminated results array");
+    }
+
+    private void add(int start, int end) {
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+        }
+
+        starts[size] = start;
+        ends[size++] = end;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int getStart(int row) {
+        return starts[row];
+    }
+
+    int getEnd(int row) {
+        return ends[row];
+    }
+
+    // The offset just past the array's closing ']'.
+    int getEnd() {
+        return end;
+    }
+}
@@ -0,0 +1,188 @@
+package com.kordata.odbcbridge;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.fasterxml.jackson.databind.node.POJONode;
+import com.google.common.math.LongMath;
+
+// A forward cursor over a result's buffered rows for scans that shouldn't
+// allocate per row. Columns are 1-based ordinals, primitives come back
+// unboxed, text comes back as the buffered value itself, and NULL checks read
+// a per-column bitmap built on first use. Cells are read one at a time from
+// the store, so off-heap and spilled rows are never built whole. Not
+// thread-safe.
+public final class RowCursor {
+    private final RowStore rows;
+    private final int[] columns;
+    private final long[][] nullBitmaps;
+
+    private int position = -1;
+
+    RowCursor(RowStore rows, String[] columnNames) {
+        this.rows = rows;
+        this.columns = new int[columnNames.length];
+        this.nullBitmaps = new long[columnNames.length][];
+
+        for (int i = 0; i < columnNames.length; i++) {
+            columns[i] = rows.columnIndex(columnNames[i]);
+        }
+    }
+
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    // 0-based index of the current row, -1 before the first.
+    public int getPosition() {
+        return position;
+    }
+
+    public boolean next() {
+        return absolute(position + 1);
+    }
+
+    public boolean absolute(int row) {
+        position = Math.max(-1, Math.min(row, rows.size()));
+
+        return position >= 0 && position < rows.size();
+    }
+
+    // The store's index for a 1-based column.
+    private int index(int column) {
+        if (column < 1 || column > columns.length) {
+            throw new IndexOutOfBoundsException(column + " is out of range for the ResultSet.");
+        }
+
+        return columns[column - 1];
+    }
+
+    private int currentRow() {
+        if (position < 0 || position >= rows.size()) {
+            throw new IllegalStateException("The cursor is not on a row");
+        }
+
+        return position;
+    }
+
+    private JsonNode cell(int column) {
+        JsonNode cell = rows.get(currentRow(), index(column));
+        return cell != null ? cell : MissingNode.getInstance();
+    }
+
+    private long[] nullBitmap(int column) {
+        long[] bitmap = nullBitmaps[column - 1];
+
+        if (bitmap == null) {
+            int index = index(column);
+            bitmap = new long[(rows.size() + 63) >>> 6];
+
+            for (int row = 0; row < rows.size(); row++) {
+                if (rows.isNull(row, index)) {
+                    bitmap[row >>> 6] |= 1L << row;
+                }
+            }
+
+            nullBitmaps[column - 1] = bitmap;
+        }
+
+        return bitmap;
+    }
+
+    public boolean isNull(int column) {
+        return isNull(column, currentRow());
+    }
+
+    public boolean isNull(int column, int row) {
+        index(column);
+        return (nullBitmap(column)[row >>> 6] & (1L << row)) != 0;
+    }
+
+    // NULL reads as 0 or false; check isNull where it matters.
+    public long getLong(int column) {
+        return rows.getLong(currentRow(), index(column));
+    }
+
+    public int getInt(int column) {
+        return (int) getLong(column);
+    }
+
+    public double getDouble(int column) {
+        return rows.getDouble(currentRow(), index(column));
+    }
+
+    public boolean getBoolean(int column) {
+        return cell(column).asBoolean();
+    }
+
+    // An exact decimal times 10^scale, e.g. getScaledLong(column, 4) for a
+    // currency column, so sums stay exact without BigDecimal. Digits past the
+    // scale are truncated.
+    public long getScaledLong(int column, int scale) {
+        JsonNode cell = cell(column);
+
+        if (cell instanceof ScaledDecimalNode)
+            return ((ScaledDecimalNode) cell).scaledTo(scale);
+
+        if (cell.isIntegralNumber())
+            return Math.multiplyExact(cell.longValue(), LongMath.pow(10, scale));
+
+        if (cell.isNull() || cell.isMissingNode())
+            return 0;
+
+        BigDecimal value = cell.isNumber() ? cell.decimalValue() : new BigDecimal(cell.asText());
+        return value.movePointRight(scale).longValue();
+    }
+
+    // Text cells are returned as buffered, without copying; other values are
+    // formatted. Returns null for NULL.
+    public CharSequence getChars(int column) {
+        JsonNode cell = cell(column);
+
+        if (cell.isTextual())
+            return cell.textValue();
+
+        if (cell.isNull() || cell.isMissingNode())
+            return null;
+
+        if (cell instanceof POJONode && ((POJONode) cell).getPojo() instanceof LobBuffer) {
+            try {
+                return ((LobBuffer) ((POJONode) cell).getPojo()).toText();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        return cell.asText();
+    }
+
+    // Copies a column of up to max rows, starting at row firstRow, into target.
+    // NULLs are copied as 0. Returns the number of values copied.
+    public int fetchColumn(int column, long[] target, int firstRow, int max) {
+        int index = index(column);
+        int count = Math.max(0, Math.min(max, Math.min(target.length, rows.size() - firstRow)));
+
+        for (int i = 0; i < count; i++) {
+            target[i] = rows.getLong(firstRow + i, index);
+        }
+
+        return count;
+    }
+
+    public int fetchColumn(int column, double[] target, int firstRow, int max) {
+        int index = index(column);
+        int count = Math.max(0, Math.min(max, Math.min(target.length, rows.size() - firstRow)));
+
+        for (int i = 0; i < count; i++) {
+            target[i] = rows.getDouble(firstRow + i, index);
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,71 @@
+package com.kordata.odbcbridge;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+// Splits a buffered result by row range. Every range knows its exact size, so
+// parallel streams divide the rows evenly between workers.
+class RowSpliterator implements Spliterator<Row> {
+    private final RowStore rows;
+    private final OdbcResultSetMetaData metaData;
+    private final DateTimeDecoder dateTimeDecoder;
+
+    private int origin;
+    private final int fence;
+
+    RowSpliterator(RowStore rows, OdbcResultSetMetaData metaData,
+            DateTimeDecoder dateTimeDecoder, int origin, int fence) {
+        this.rows = rows;
+        this.metaData = metaData;
+        this.dateTimeDecoder = dateTimeDecoder;
+        this.origin = origin;
+        this.fence = fence;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Row> action) {
+        if (origin >= fence)
+            return false;
+
+        action.accept(row(origin++));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super Row> action) {
+        int end = fence;
+
+        for (int i = origin; i < end; i++) {
+            action.accept(row(i));
+        }
+
+        origin = end;
+    }
+
+    private Row row(int index) {
+        return new Row(rows.get(index), metaData, dateTimeDecoder);
+    }
+
+    @Override
+    public Spliterator<Row> trySplit() {
+        int mid = (origin + fence) >>> 1;
+
+        if (mid <= origin)
+            return null;
+
+        RowSpliterator prefix =
+                new RowSpliterator(rows, metaData, dateTimeDecoder, origin, mid);
+        origin = mid;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return fence - origin;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+    }
+}
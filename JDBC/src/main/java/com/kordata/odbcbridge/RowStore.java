@@ -0,0 +1,159 @@
+package com.kordata.odbcbridge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.POJONode;
+
+// The buffered rows behind a result set: on the heap, or spilled to disk once
+// a result outgrows the connection's heap budget.
+interface RowStore {
+    int size();
+
+    // Rows from a spilled store are decoded on each call.
+    ObjectNode get(int row);
+
+    // The store's index for a column name, fixed once the rows are buffered,
+    // or -1 when no row has it. Cells are read by this index below without
+    // building their row.
+    int columnIndex(String name);
+
+    // The first row's column names, for results without a schema.
+    List<String> columnNames();
+
+    // One cell decoded on its own, or null when the row lacks the column.
+    JsonNode get(int row, int column);
+
+    default boolean has(int row, int column) {
+        return get(row, column) != null;
+    }
+
+    // True for NULL and for cells the row lacks.
+    default boolean isNull(int row, int column) {
+        JsonNode cell = get(row, column);
+        return cell == null || cell.isNull();
+    }
+
+    // NULL reads as 0.
+    default long getLong(int row, int column) {
+        JsonNode cell = get(row, column);
+        return cell == null ? 0 : cell.asLong();
+    }
+
+    default double getDouble(int row, int column) {
+        JsonNode cell = get(row, column);
+        return cell == null ? 0 : cell.asDouble();
+    }
+
+    // Releases LOB cells, any temp file and any memory reservation.
+    void close();
+
+    void setOnClose(Runnable onClose);
+
+    static RowStore of(JsonNode results, boolean hasLobs) {
+        if (results instanceof POJONode && ((POJONode) results).getPojo() instanceof RowStore) {
+            return (RowStore) ((POJONode) results).getPojo();
+        }
+
+        return new HeapRows((ArrayNode) results, hasLobs, null);
+    }
+
+    final class HeapRows implements RowStore {
+        private final ArrayNode rows;
+        private final boolean hasLobs;
+        private final MemoryBudget.Reservation reservation;
+        private final Map<String, Integer> nameIndexes = new HashMap<>();
+        // Copied on write, so cells are read without a lock.
+        private volatile String[] names = new String[0];
+        private Runnable onClose;
+        private boolean closed;
+
+        HeapRows(ArrayNode rows, boolean hasLobs, MemoryBudget.Reservation reservation) {
+            this.rows = rows;
+            this.hasLobs = hasLobs;
+            this.reservation = reservation;
+        }
+
+        @Override
+        public int size() {
+            return rows.size();
+        }
+
+        @Override
+        public ObjectNode get(int row) {
+            return (ObjectNode) rows.get(row);
+        }
+
+        // Any name gets an index; rows lacking it read as missing cells.
+        @Override
+        public synchronized int columnIndex(String name) {
+            Integer index = nameIndexes.get(name);
+
+            if (index == null) {
+                index = names.length;
+                String[] grown = Arrays.copyOf(names, index + 1);
+                grown[index] = name;
+                names = grown;
+                nameIndexes.put(name, index);
+            }
+
+            return index;
+        }
+
+        @Override
+        public List<String> columnNames() {
+            List<String> columnNames = new ArrayList<>();
+
+            if (rows.size() > 0) {
+                rows.get(0).fieldNames().forEachRemaining(columnNames::add);
+            }
+
+            return columnNames;
+        }
+
+        @Override
+        public JsonNode get(int row, int column) {
+            String[] names = this.names;
+
+            return column >= 0 && column < names.length ? rows.get(row).get(names[column])
+                    : null;
+        }
+
+        @Override
+        public void setOnClose(Runnable onClose) {
+            this.onClose = onClose;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (closed)
+                return;
+
+            closed = true;
+
+            if (hasLobs) {
+                for (JsonNode row : rows) {
+                    for (JsonNode cell : row) {
+                        if (cell instanceof POJONode
+                                && ((POJONode) cell).getPojo() instanceof LobBuffer) {
+                            ((LobBuffer) ((POJONode) cell).getPojo()).close();
+                        }
+                    }
+                }
+            }
+
+            if (reservation != null) {
+                reservation.close();
+            }
+
+            if (onClose != null) {
+                onClose.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.kordata.odbcbridge;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.node.NumericNode;
+
+// An exact decimal cell held as an unscaled long and a scale, as Access stores
+// currency (scale 4). Reading it as a long or double doesn't allocate; a
+// BigDecimal is only created when one is asked for.
+public final class ScaledDecimalNode extends NumericNode {
+    static final int MAX_SCALE = 18;
+
+    private static final long[] POWERS_OF_TEN = new long[MAX_SCALE + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i <= MAX_SCALE; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final long unscaled;
+    private final int scale;
+
+    public ScaledDecimalNode(long unscaled, int scale) {
+        if (scale < 0 || scale > MAX_SCALE) {
+            throw new IllegalArgumentException("Scale must be between 0 and " + MAX_SCALE);
+        }
+
+        this.unscaled = unscaled;
+        this.scale = scale;
+    }
+
+    // Parses plain decimal text such as -1234.5678. Returns null for text with
+    // an exponent or more digits than a long holds, which callers read as a
+    // BigDecimal instead.
+    static ScaledDecimalNode parse(char[] chars, int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        boolean negative = false;
+
+        if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+            negative = chars[i] == '-';
+            i++;
+        }
+
+        long unscaled = 0;
+        int digits = 0;
+        int scale = -1;
+
+        for (; i < end; i++) {
+            char c = chars[i];
+
+            if (c == '.' && scale < 0) {
+                scale = 0;
+            } else if (c >= '0' && c <= '9') {
+                // 18 digits always fit in a long.
+                if (++digits > 18)
+                    return null;
+
+                unscaled = unscaled * 10 + (c - '0');
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else {
+                return null;
+            }
+        }
+
+        if (digits == 0)
+            return null;
+
+        return new ScaledDecimalNode(negative ? -unscaled : unscaled, Math.max(scale, 0));
+    }
+
+    public long unscaledValue() {
+        return unscaled;
+    }
+
+    public int scale() {
+        return scale;
+    }
+
+    // The value times 10^scale, e.g. cents for a scale of 2, truncating any
+    // further digits.
+    public long scaledTo(int scale) {
+        if (scale >= this.scale)
+            return Math.multiplyExact(unscaled, POWERS_OF_TEN[scale - this.scale]);
+
+        return unscaled / POWERS_OF_TEN[this.scale - scale];
+    }
+
+    @Override
+    public JsonToken asToken() {
+        return JsonToken.VALUE_NUMBER_FLOAT;
+    }
+
+    @Override
+    public JsonParser.NumberType numberType() {
+        return JsonParser.NumberType.BIG_DECIMAL;
+    }
+
+    @Override
+    public boolean isFloatingPointNumber() {
+        return true;
+    }
+
+    @Override
+    public boolean isBigDecimal() {
+        return true;
+    }
+
+    @Override
+    public boolean canConvertToInt() {
+        long value = longValue();
+        return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE;
+    }
+
+    @Override
+    public boolean canConvertToLong() {
+        return true;
+    }
+
+    @Override
+    public Number numberValue() {
+        return decimalValue();
+    }
+
+    @Override
+    public int intValue() {
+        return (int) longValue();
+    }
+
+    @Override
+    public long longValue() {
+        return unscaled / POWERS_OF_TEN[scale];
+    }
+
+    // Exact for the unscaled values below 2^53 that currency columns hold, as
+    // both operands are then exact doubles and division rounds once.
+    @Override
+    public double doubleValue() {
+        return (double) unscaled / POWERS_OF_TEN[scale];
+    }
+
+    @Override
+    public BigDecimal decimalValue() {
+        return BigDecimal.valueOf(unscaled, scale);
+    }
+
+    @Override
+    public BigInteger bigIntegerValue() {
+        return BigInteger.valueOf(longValue());
+    }
+
+    @Override
+    public String asText() {
+        if (scale == 0)
+            return Long.toString(unscaled);
+
+        StringBuilder text = new StringBuilder(21);
+        long whole = unscaled / POWERS_OF_TEN[scale];
+        long fraction = Math.abs(unscaled % POWERS_OF_TEN[scale]);
+
+        if (unscaled < 0 && whole == 0) {
+            text.append('-');
+        }
+
+        text.append(whole).append('.');
+        String digits = Long.toString(fraction);
+        for (int i = digits.length(); i < scale; i++) {
+            text.append('0');
+        }
+
+        return text.append(digits).toString();
+    }
+
+    @Override
+    public void serialize(JsonGenerator generator, SerializerProvider provider)
+            throws IOException {
+        generator.writeNumber(asText());
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof ScaledDecimalNode))
+            return false;
+
+        ScaledDecimalNode node = (ScaledDecimalNode) other;
+        return node.unscaled == unscaled && node.scale == scale;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(unscaled) * 31 + scale;
+    }
+}
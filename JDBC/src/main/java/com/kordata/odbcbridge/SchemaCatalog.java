@@ -0,0 +1,385 @@
+package com.kordata.odbcbridge;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Throwables;
+
+public class SchemaCatalog {
+    public static final long DEFAULT_TTL_SECONDS = 300;
+
+    // Access doesn't report primary keys through ODBC; tables designed in Access
+    // name their primary key index "PrimaryKey".
+    private static final String PRIMARY_KEY_INDEX = "PrimaryKey";
+
+    // One load per database at a time; callers for the same database wait on
+    // its future rather than on a map lock held across the fetch.
+    private static final ConcurrentMap<String, CompletableFuture<SchemaCatalog>> catalogs =
+            new ConcurrentHashMap<>();
+
+    public static class Table {
+        private final String name;
+        private final String type;
+        private final String remarks;
+
+        Table(JsonNode node) {
+            name = text(node, "TABLE_NAME");
+            type = text(node, "TABLE_TYPE");
+            remarks = text(node, "REMARKS");
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getRemarks() {
+            return remarks;
+        }
+    }
+
+    public static class Column {
+        private final String tableName;
+        private final String name;
+        private final int dataType;
+        private final String typeName;
+        private final int columnSize;
+        private final int decimalDigits;
+        private final int nullable;
+        private final String remarks;
+        private final String defaultValue;
+        private final int ordinalPosition;
+
+        Column(JsonNode node) {
+            tableName = text(node, "TABLE_NAME");
+            name = text(node, "COLUMN_NAME");
+            dataType = node.path("DATA_TYPE").asInt();
+            typeName = text(node, "TYPE_NAME");
+            columnSize = node.path("COLUMN_SIZE").asInt();
+            decimalDigits = node.path("DECIMAL_DIGITS").asInt();
+            nullable = node.path("NULLABLE").asInt();
+            remarks = text(node, "REMARKS");
+            defaultValue = text(node, "COLUMN_DEF");
+            ordinalPosition = node.path("ORDINAL_POSITION").asInt();
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getDataType() {
+            return dataType;
+        }
+
+        public String getTypeName() {
+            return typeName;
+        }
+
+        public int getColumnSize() {
+            return columnSize;
+        }
+
+        public int getDecimalDigits() {
+            return decimalDigits;
+        }
+
+        public int getNullable() {
+            return nullable;
+        }
+
+        public String getRemarks() {
+            return remarks;
+        }
+
+        public String getDefaultValue() {
+            return defaultValue;
+        }
+
+        public int getOrdinalPosition() {
+            return ordinalPosition;
+        }
+    }
+
+    public static class Index {
+        private final String tableName;
+        private final boolean nonUnique;
+        private final String name;
+        private final int type;
+        private final int ordinalPosition;
+        private final String columnName;
+        private final String ascOrDesc;
+        private final long cardinality;
+        private final long pages;
+
+        Index(JsonNode node) {
+            tableName = text(node, "TABLE_NAME");
+            nonUnique = node.path("NON_UNIQUE").asBoolean();
+            name = text(node, "INDEX_NAME");
+            type = node.path("TYPE").asInt();
+            ordinalPosition = node.path("ORDINAL_POSITION").asInt();
+            columnName = text(node, "COLUMN_NAME");
+            ascOrDesc = text(node, "ASC_OR_DESC");
+            cardinality = node.path("CARDINALITY").asLong();
+            pages = node.path("PAGES").asLong();
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+
+        public boolean isNonUnique() {
+            return nonUnique;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getType() {
+            return type;
+        }
+
+        public int getOrdinalPosition() {
+            return ordinalPosition;
+        }
+
+        public String getColumnName() {
+            return columnName;
+        }
+
+        public String getAscOrDesc() {
+            return ascOrDesc;
+        }
+
+        public long getCardinality() {
+            return cardinality;
+        }
+
+        public long getPages() {
+            return pages;
+        }
+
+        public boolean isPrimaryKey() {
+            return PRIMARY_KEY_INDEX.equalsIgnoreCase(name) && columnName != null;
+        }
+    }
+
+    private final List<Table> tables;
+    private final List<Column> columns;
+    private final List<Index> indexes;
+    private final long loadedAt;
+
+    public SchemaCatalog(ObjectNode schema) {
+        tables = new ArrayList<>();
+        schema.path("tables").forEach(node -> tables.add(new Table(node)));
+        tables.sort(Comparator.comparing(Table::getType, Comparator.nullsFirst(String::compareTo))
+                .thenComparing(Table::getName, String.CASE_INSENSITIVE_ORDER));
+
+        columns = new ArrayList<>();
+        schema.path("columns").forEach(node -> columns.add(new Column(node)));
+        columns.sort(Comparator.comparing(Column::getTableName, String.CASE_INSENSITIVE_ORDER)
+                .thenComparingInt(Column::getOrdinalPosition));
+
+        indexes = new ArrayList<>();
+        schema.path("indexes").forEach(node -> indexes.add(new Index(node)));
+
+        loadedAt = System.nanoTime();
+    }
+
+    public static SchemaCatalog forDatabase(BridgeAPI api) throws IOException {
+        long ttlNanos = TimeUnit.SECONDS.toNanos(api.getCatalogTtl());
+        String key = api.getDatabaseKey();
+
+        while (true) {
+            CompletableFuture<SchemaCatalog> current = catalogs.get(key);
+
+            if (current != null && !isStale(current, ttlNanos))
+                return await(current);
+
+            CompletableFuture<SchemaCatalog> load = new CompletableFuture<>();
+            boolean claimed = current == null ? catalogs.putIfAbsent(key, load) == null
+                    : catalogs.replace(key, current, load);
+
+            // Another caller started a load first; wait on that one instead.
+            if (!claimed)
+                continue;
+
+            try {
+                SchemaCatalog catalog = new SchemaCatalog(api.fetchSchema());
+                load.complete(catalog);
+                return catalog;
+            } catch (IOException | RuntimeException e) {
+                catalogs.remove(key, load);
+                load.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+
+    private static boolean isStale(CompletableFuture<SchemaCatalog> catalog, long ttlNanos) {
+        return catalog.isDone()
+                && (catalog.isCompletedExceptionally() || catalog.join().isExpired(ttlNanos));
+    }
+
+    private static SchemaCatalog await(CompletableFuture<SchemaCatalog> catalog)
+            throws IOException {
+        try {
+            return catalog.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for the schema");
+        } catch (ExecutionException e) {
+            Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new IOException(e.getCause());
+        }
+    }
+
+    public static void invalidate(BridgeAPI api) {
+        catalogs.remove(api.getDatabaseKey());
+    }
+
+    static boolean changesSchema(String fingerprint) {
+        return fingerprint.startsWith("create ") || fingerprint.startsWith("alter ")
+                || fingerprint.startsWith("drop ");
+    }
+
+    boolean isExpired(long ttlNanos) {
+        return System.nanoTime() - loadedAt > ttlNanos;
+    }
+
+    public List<Table> getTables(String tableNamePattern, String[] types) {
+        Pattern namePattern = compilePattern(tableNamePattern);
+        List<Table> matches = new ArrayList<>();
+
+        for (Table table : tables) {
+            if (matches(namePattern, table.getName()) && isOneOf(table.getType(), types)) {
+                matches.add(table);
+            }
+        }
+
+        return matches;
+    }
+
+    public List<String> getTableTypes() {
+        List<String> types = new ArrayList<>();
+
+        for (Table table : tables) {
+            if (table.getType() != null && !types.contains(table.getType())) {
+                types.add(table.getType());
+            }
+        }
+
+        Collections.sort(types);
+        return types;
+    }
+
+    public List<Column> getColumns(String tableNamePattern, String columnNamePattern) {
+        Pattern tablePattern = compilePattern(tableNamePattern);
+        Pattern columnPattern = compilePattern(columnNamePattern);
+        List<Column> matches = new ArrayList<>();
+
+        for (Column column : columns) {
+            if (matches(tablePattern, column.getTableName())
+                    && matches(columnPattern, column.getName())) {
+                matches.add(column);
+            }
+        }
+
+        return matches;
+    }
+
+    public List<Index> getPrimaryKeys(String table) {
+        List<Index> keys = new ArrayList<>();
+
+        for (Index index : indexes) {
+            if (index.isPrimaryKey() && table != null
+                    && table.equalsIgnoreCase(index.getTableName())) {
+                keys.add(index);
+            }
+        }
+
+        keys.sort(Comparator.comparing(Index::getColumnName, String.CASE_INSENSITIVE_ORDER));
+        return keys;
+    }
+
+    public List<Index> getIndexes(String table, boolean unique) {
+        List<Index> matches = new ArrayList<>();
+
+        for (Index index : indexes) {
+            if (table != null && table.equalsIgnoreCase(index.getTableName())
+                    && (!unique || !index.isNonUnique())) {
+                matches.add(index);
+            }
+        }
+
+        matches.sort(Comparator.comparing(Index::isNonUnique).thenComparingInt(Index::getType)
+                .thenComparing(Index::getName, Comparator.nullsFirst(String::compareTo))
+                .thenComparingInt(Index::getOrdinalPosition));
+        return matches;
+    }
+
+    // Translates a JDBC search pattern (% and _ wildcards, \ escape) into a
+    // case-insensitive regex. A null pattern matches everything.
+    static Pattern compilePattern(String pattern) {
+        if (pattern == null || pattern.equals("%"))
+            return null;
+
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+
+            if (c == '\\' && i + 1 < pattern.length()) {
+                regex.append(Pattern.quote(String.valueOf(pattern.charAt(++i))));
+            } else if (c == '%') {
+                regex.append(".*");
+            } else if (c == '_') {
+                regex.append('.');
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+
+        return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    }
+
+    private static boolean matches(Pattern pattern, String value) {
+        return pattern == null || (value != null && pattern.matcher(value).matches());
+    }
+
+    private static boolean isOneOf(String type, String[] types) {
+        if (types == null)
+            return true;
+
+        for (String candidate : types) {
+            if (candidate.equalsIgnoreCase(type))
+                return true;
+        }
+
+        return false;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+
+        return value == null || value.isNull() ? null : value.asText();
+    }
+}
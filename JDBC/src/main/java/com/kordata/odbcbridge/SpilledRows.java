@@ -0,0 +1,96 @@
+package com.kordata.odbcbridge;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Rows of a result too large for the heap, appended to a temp file. Once
+// written the file is memory-mapped, so scrollable cursors can jump to any row.
+class SpilledRows extends BinaryRows {
+    private static final Logger logger = Logger.getLogger(SpilledRows.class.getName());
+
+    public static final long DEFAULT_HEAP_BUDGET = 256L * 1024 * 1024;
+
+    // Rows never straddle a mapping; each maps at most this many bytes.
+    private static final long MAX_SEGMENT = 1L << 30;
+
+    private final File file;
+    private OutputStream output;
+
+    SpilledRows(ObjectMapper mapper) throws IOException {
+        super(mapper);
+        this.file = File.createTempFile("odbcbridge-rows", ".tmp");
+
+        try {
+            this.output = new BufferedOutputStream(new FileOutputStream(file), 64 * 1024);
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        }
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    @Override
+    protected void write(byte[] row, int length, int index, long offset) throws IOException {
+        output.write(row, 0, length);
+    }
+
+    @Override
+    void finish() throws IOException {
+        super.finish();
+        output.close();
+        output = null;
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+                FileChannel channel = raf.getChannel()) {
+            int firstRow = 0;
+
+            while (firstRow < size()) {
+                long base = getOffset(firstRow);
+                int end = firstRow + 1;
+
+                while (end < size() && rowEnd(end) - base <= MAX_SEGMENT) {
+                    end++;
+                }
+
+                long limit = end < size() ? getOffset(end) : getLength();
+                addSegment(firstRow, base,
+                        channel.map(FileChannel.MapMode.READ_ONLY, base, limit - base));
+                firstRow = end;
+            }
+        }
+    }
+
+    private long rowEnd(int row) {
+        return row + 1 < size() ? getOffset(row + 1) : getLength();
+    }
+
+    @Override
+    protected void release() {
+        if (output != null) {
+            try {
+                output.close();
+            } catch (IOException e) {
+                // Nothing to flush to a file we're deleting.
+            }
+        }
+
+        // A mapping can keep the file open until it's collected, and on
+        // Windows that blocks the delete. Java 8 can't unmap it on demand, so
+        // the path is logged rather than left to a hook that grows for the
+        // life of the JVM.
+        if (!file.delete() && file.exists()) {
+            logger.log(Level.WARNING, "Could not delete spilled rows at {0}", file.getPath());
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.kordata.odbcbridge;
+
+public final class SqlFingerprint {
+    private SqlFingerprint() {
+    }
+
+    // Reduces a statement to its shape: literals become ?, whitespace is
+    // collapsed, keywords and unquoted identifiers are lower-cased (Access
+    // identifiers are case-insensitive) and IN lists collapse to (?+).
+    public static String normalize(String sql) {
+        if (sql == null)
+            return "";
+
+        StringBuilder out = new StringBuilder(sql.length());
+        int length = sql.length();
+        int i = 0;
+
+        while (i < length) {
+            char c = sql.charAt(i);
+
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+
+            if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                i = skipLineComment(sql, i);
+                continue;
+            }
+
+            if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                i = skipBlockComment(sql, i);
+                continue;
+            }
+
+            // Access treats both '...' and "..." as string literals and #...# as a
+            // date literal. Identifiers are quoted with [...] or `...`.
+            if (c == '\'' || c == '"' || c == '#') {
+                i = skipQuoted(sql, i, c);
+                appendToken(out, "?");
+                continue;
+            }
+
+            if (c == '[' || c == '`') {
+                int end = skipQuoted(sql, i, c == '[' ? ']' : '`');
+                appendToken(out, sql.substring(i, end));
+                i = end;
+                continue;
+            }
+
+            if (isNumberStart(sql, i)) {
+                i = skipNumber(sql, i);
+                appendToken(out, "?");
+                continue;
+            }
+
+            if (isWordChar(c)) {
+                int end = i;
+                while (end < length && isWordChar(sql.charAt(end)))
+                    end++;
+                appendToken(out, sql.substring(i, end).toLowerCase());
+                i = end;
+                continue;
+            }
+
+            appendToken(out, String.valueOf(c));
+            i++;
+        }
+
+        return collapseLists(out);
+    }
+
+    private static void appendToken(StringBuilder out, String token) {
+        if (out.length() > 0) {
+            char previous = out.charAt(out.length() - 1);
+            char next = token.charAt(0);
+
+            boolean tight = previous == '(' || previous == '.' || next == ')' || next == ','
+                    || next == '.';
+
+            if (!tight)
+                out.append(' ');
+        }
+
+        out.append(token);
+    }
+
+    private static String collapseLists(StringBuilder out) {
+        String text = out.toString();
+
+        if (text.indexOf("?,") < 0)
+            return text;
+
+        return text.replaceAll("\\(\\?(, \\?|,\\?)+\\)", "(?+)");
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    private static boolean isNumberStart(String sql, int i) {
+        char c = sql.charAt(i);
+
+        if (c == '.' && i + 1 < sql.length()) {
+            c = sql.charAt(i + 1);
+        }
+
+        if (c < '0' || c > '9')
+            return false;
+
+        // Digits inside an identifier such as Address2 are not literals.
+        return i == 0 || !isWordChar(sql.charAt(i - 1));
+    }
+
+    private static int skipNumber(String sql, int i) {
+        int length = sql.length();
+
+        while (i < length) {
+            char c = sql.charAt(i);
+
+            if ((c >= '0' && c <= '9') || c == '.') {
+                i++;
+            } else if ((c == 'e' || c == 'E') && i + 1 < length) {
+                char next = sql.charAt(i + 1);
+                if (next == '+' || next == '-') {
+                    i += 2;
+                } else {
+                    i++;
+                }
+            } else {
+                break;
+            }
+        }
+
+        return i;
+    }
+
+    static int skipQuoted(String sql, int start, char close) {
+        int length = sql.length();
+        int i = start + 1;
+
+        while (i < length) {
+            if (sql.charAt(i) == close) {
+                // Doubled quote characters are escapes inside the literal.
+                if (close != ']' && close != '#' && i + 1 < length && sql.charAt(i + 1) == close) {
+                    i += 2;
+                    continue;
+                }
+
+                return i + 1;
+            }
+
+            i++;
+        }
+
+        return length;
+    }
+
+    static int skipLineComment(String sql, int i) {
+        int end = sql.indexOf('\n', i);
+
+        return end < 0 ? sql.length() : end + 1;
+    }
+
+    static int skipBlockComment(String sql, int i) {
+        int end = sql.indexOf("*/", i + 2);
+
+        return end < 0 ? sql.length() : end + 2;
+    }
+}
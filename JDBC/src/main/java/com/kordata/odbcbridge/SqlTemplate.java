@@ -0,0 +1,62 @@
+package com.kordata.odbcbridge;
+
+import java.util.Arrays;
+
+// A prepared statement's SQL parsed once: the text plus where its ? placeholders
+// are. Templates are immutable and shared through the connection's statement
+// cache.
+public final class SqlTemplate {
+    private final String sql;
+    private final int[] placeholderPositions;
+
+    private SqlTemplate(String sql, int[] placeholderPositions) {
+        this.sql = sql;
+        this.placeholderPositions = placeholderPositions;
+    }
+
+    public static SqlTemplate parse(String sql) {
+        int length = sql.length();
+        int[] positions = new int[8];
+        int count = 0;
+        int i = 0;
+
+        while (i < length) {
+            char c = sql.charAt(i);
+
+            if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                i = SqlFingerprint.skipLineComment(sql, i);
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                i = SqlFingerprint.skipBlockComment(sql, i);
+            } else if (c == '\'' || c == '"' || c == '#' || c == '`') {
+                i = SqlFingerprint.skipQuoted(sql, i, c);
+            } else if (c == '[') {
+                i = SqlFingerprint.skipQuoted(sql, i, ']');
+            } else {
+                if (c == '?') {
+                    if (count == positions.length) {
+                        positions = Arrays.copyOf(positions, count * 2);
+                    }
+
+                    positions[count++] = i;
+                }
+
+                i++;
+            }
+        }
+
+        return new SqlTemplate(sql, Arrays.copyOf(positions, count));
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public int getParameterCount() {
+        return placeholderPositions.length;
+    }
+
+    // Offset of the given 1-based placeholder in the SQL text.
+    public int getPlaceholderPosition(int parameterIndex) {
+        return placeholderPositions[parameterIndex - 1];
+    }
+}
@@ -0,0 +1,75 @@
+package com.kordata.odbcbridge;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.node.POJONode;
+
+// A stream-valued statement parameter. It sits in the parameter array as a
+// POJONode and is only read when the request body is written, so binary data is
+// base64-encoded on the fly instead of being copied into the tree first.
+class StreamParameter extends JsonSerializable.Base {
+    private final InputStream binary;
+    private final Reader text;
+    private final int length;
+
+    private StreamParameter(InputStream binary, Reader text, long length) {
+        this.binary = binary;
+        this.text = text;
+        // Jackson takes an int length; -1 reads to the end of the stream.
+        this.length = length < 0 || length > Integer.MAX_VALUE ? -1 : (int) length;
+    }
+
+    static StreamParameter binary(InputStream in, long length) {
+        return new StreamParameter(in, null, length);
+    }
+
+    static StreamParameter text(Reader reader, long length) {
+        return new StreamParameter(null, reader, length);
+    }
+
+    boolean isNull() {
+        return binary == null && text == null;
+    }
+
+    static boolean isStream(JsonNode node) {
+        return node instanceof POJONode && ((POJONode) node).getPojo() instanceof StreamParameter;
+    }
+
+    static boolean containsStream(JsonNode parameters) {
+        if (parameters == null)
+            return false;
+
+        for (JsonNode parameter : parameters) {
+            if (isStream(parameter))
+                return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        if (binary != null) {
+            gen.writeBinary(binary, length);
+        } else {
+            gen.writeString(text, length);
+        }
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers,
+            TypeSerializer typeSer) throws IOException {
+        serialize(gen, serializers);
+    }
+
+    @Override
+    public String toString() {
+        return binary != null ? "[binary stream]" : "[character stream]";
+    }
+}
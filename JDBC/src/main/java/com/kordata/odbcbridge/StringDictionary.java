@@ -0,0 +1,62 @@
+package com.kordata.odbcbridge;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+// The distinct values of one text column, so the state codes and status names
+// Access tables are full of are held once per result instead of once per
+// cell. Each value gets an int code. A column that turns out to have too many
+// distinct values, or values too long to be codes, stops being encoded.
+final class StringDictionary {
+    static final int MAX_ENTRIES = 1024;
+    static final int MAX_LENGTH = 64;
+
+    private final JsonNodeFactory factory;
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<TextNode> values = new ArrayList<>();
+    private boolean disabled;
+
+    StringDictionary(JsonNodeFactory factory) {
+        this.factory = factory;
+    }
+
+    // The code of text, adding it if there's room; -1 once the column isn't
+    // dictionary-encoded.
+    int encode(String text) {
+        if (disabled)
+            return -1;
+
+        Integer code = codes.get(text);
+        if (code != null)
+            return code;
+
+        if (text.length() > MAX_LENGTH || values.size() == MAX_ENTRIES) {
+            // Values already handed out stay valid; new ones are stored as-is.
+            disabled = true;
+            codes.clear();
+            return -1;
+        }
+
+        values.add(factory.textNode(text));
+        codes.put(text, values.size() - 1);
+        return values.size() - 1;
+    }
+
+    boolean isEncoding() {
+        return !disabled;
+    }
+
+    TextNode decode(int code) {
+        return values.get(code);
+    }
+
+    // The shared node for text, or a new one if the column isn't encoded.
+    TextNode intern(String text) {
+        int code = encode(text);
+        return code < 0 ? factory.textNode(text) : values.get(code);
+    }
+}
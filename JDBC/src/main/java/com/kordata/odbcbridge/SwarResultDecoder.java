@@ -0,0 +1,470 @@
+package com.kordata.odbcbridge;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+// A ResultDecoder for the flat rows the bridge returns, selected with
+// resultDecoder=swar. Structure is found eight bytes at a time: a word holding
+// none of the bytes a scan stops at (quotes, backslashes, brackets) is skipped
+// whole, so long text and runs of digits cost a word test rather than a
+// branch per byte. Text, integers, doubles and literals are decoded
+// straight from the bytes in the same pass, and column names are reused from
+// the previous row. Anything else falls back to Jackson, per cell or, for nested
+// values, per row.
+public final class SwarResultDecoder implements ResultDecoder {
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGHS = 0x8080808080808080L;
+
+    private static final long QUOTES = ONES * '"';
+    private static final long BACKSLASHES = ONES * '\\';
+    private static final long OPEN_BRACES = ONES * '{';
+    private static final long CLOSE_BRACES = ONES * '}';
+    private static final long OPEN_BRACKETS = ONES * '[';
+    private static final long CLOSE_BRACKETS = ONES * ']';
+
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+
+    @Override
+    public int decodeRows(byte[] body, int arrayStart, Rows rows) throws IOException {
+        RowDecoder decoder = new RowDecoder(body, rows);
+        int i = skipWhitespace(body, arrayStart + 1);
+
+        if (i < body.length && body[i] == ']')
+            return i + 1;
+
+        while (i < body.length) {
+            // Like the default reader, the rows end at an element that isn't one.
+            if (body[i] != '{')
+                return decoder.skipNested(arrayStart);
+
+            i = skipWhitespace(body, decoder.decode(i));
+            if (i < body.length && body[i] == ']')
+                return i + 1;
+
+            if (i == body.length || body[i] != ',')
+                throw new IOException("Expected ',' or ']' at offset " + i);
+
+            i = skipWhitespace(body, i + 1);
+        }
+
+        throw new IOException("Unterminated results array");
+    }
+
+    // Non-zero when any byte of word equals the byte repeated in pattern.
+    private static long matches(long word, long pattern) {
+        long x = word ^ pattern;
+        return (x - ONES) & ~x & HIGHS;
+    }
+
+    private static int skipWhitespace(byte[] body, int i) {
+        while (i < body.length && (body[i] == ' ' || body[i] == '\n' || body[i] == '\r'
+                || body[i] == '\t')) {
+            i++;
+        }
+
+        return i;
+    }
+
+    // Scans and decodes the rows of one response. Rows of a result share their
+    // columns, so the name found at each position is kept while it matches.
+    private static final class RowDecoder {
+        private final byte[] body;
+        private final ByteBuffer words;
+        private final Rows rows;
+        private final JsonNodeFactory factory;
+        private final List<byte[]> nameBytes = new ArrayList<>();
+        private final List<String> names = new ArrayList<>();
+        private boolean[] typed = new boolean[16];
+        private boolean escaped;
+
+        RowDecoder(byte[] body, Rows rows) {
+            this.body = body;
+            this.rows = rows;
+            this.factory = rows.getNodeFactory();
+            this.words = ByteBuffer.wrap(body).order(ByteOrder.nativeOrder());
+        }
+
+        // The offset just past the string whose opening quote is at start;
+        // escaped tells whether it held a backslash.
+        int skipString(int start) throws IOException {
+            int i = start + 1;
+            escaped = false;
+
+            while (i < body.length) {
+                if (i + 8 <= body.length) {
+                    long word = words.getLong(i);
+
+                    if ((matches(word, QUOTES) | matches(word, BACKSLASHES)) == 0) {
+                        i += 8;
+                        continue;
+                    }
+                }
+
+                if (body[i] == '"')
+                    return i + 1;
+
+                if (body[i] == '\\') {
+                    escaped = true;
+                    i++;
+                }
+
+                i++;
+            }
+
+            throw new IOException("Unterminated string at offset " + start);
+        }
+
+        // The offset just past the object or array opening at start.
+        int skipNested(int start) throws IOException {
+            int depth = 0;
+            int i = start;
+
+            while (i < body.length) {
+                if (i + 8 <= body.length) {
+                    long word = words.getLong(i);
+
+                    if ((matches(word, QUOTES) | matches(word, OPEN_BRACES)
+                            | matches(word, CLOSE_BRACES) | matches(word, OPEN_BRACKETS)
+                            | matches(word, CLOSE_BRACKETS)) == 0) {
+                        i += 8;
+                        continue;
+                    }
+                }
+
+                switch (body[i]) {
+                    case '"':
+                        i = skipString(i);
+                        continue;
+                    case '{':
+                    case '[':
+                        depth++;
+                        break;
+                    case '}':
+                    case ']':
+                        if (--depth == 0)
+                            return i + 1;
+                        break;
+                    default:
+                        break;
+                }
+
+                i++;
+            }
+
+            throw new IOException("Unterminated value at offset " + start);
+        }
+
+        // Decodes the row object at start into rows, in one pass unless it
+        // has to fall back. Returns the offset just past the row.
+        int decode(int start) throws IOException {
+            ObjectNode row = factory.objectNode();
+            int i = skipWhitespace(body, start + 1);
+
+            if (i < body.length && body[i] == '}') {
+                rows.add(row);
+                return i + 1;
+            }
+
+            for (int field = 0; i < body.length; field++) {
+                if (body[i] != '"')
+                    break;
+
+                int nameEnd = skipString(i);
+                String name = name(field, i + 1, nameEnd - 1);
+                i = skipWhitespace(body, nameEnd);
+
+                if (name == null || i == body.length || body[i] != ':')
+                    break;
+
+                i = skipWhitespace(body, i + 1);
+                int valueEnd = valueEnd(i);
+
+                if (valueEnd < 0)
+                    break;
+
+                row.set(name, value(field, name, i, valueEnd));
+
+                i = skipWhitespace(body, valueEnd);
+                if (i < body.length && body[i] == '}') {
+                    rows.add(row);
+                    return i + 1;
+                }
+
+                if (i == body.length || body[i] != ',')
+                    break;
+
+                i = skipWhitespace(body, i + 1);
+            }
+
+            // Nested values and anything unexpected go to Jackson whole.
+            int end = skipNested(start);
+            rows.add(rows.readRow(body, start, end));
+            return end;
+        }
+
+        // The name from start until end, or null when it isn't valid.
+        private String name(int field, int start, int end) {
+            if (field < names.size()) {
+                byte[] bytes = nameBytes.get(field);
+
+                if (bytes.length == end - start && rangeEquals(bytes, start))
+                    return names.get(field);
+            }
+
+            String name = escaped ? unescape(start, end)
+                    : new String(body, start, end - start, StandardCharsets.UTF_8);
+
+            if (name != null) {
+                byte[] bytes = Arrays.copyOfRange(body, start, end);
+
+                if (field == typed.length) {
+                    typed = Arrays.copyOf(typed, field * 2);
+                }
+                typed[field] = rows.isTypedColumn(name);
+
+                if (field < names.size()) {
+                    nameBytes.set(field, bytes);
+                    names.set(field, name);
+                } else {
+                    nameBytes.add(bytes);
+                    names.add(name);
+                }
+            }
+
+            return name;
+        }
+
+        // Decodes JSON escapes; null for an invalid one. ASCII text, the usual
+        // case, is copied a run at a time between the escapes.
+        private String unescape(int start, int end) {
+            byte[] ascii = new byte[end - start];
+            int length = 0;
+            int run = start;
+
+            for (int i = start; i < end; i++) {
+                // Words of plain ASCII are skipped whole.
+                while (i + 8 <= end) {
+                    long word = words.getLong(i);
+
+                    if (((word & HIGHS) | matches(word, BACKSLASHES)) != 0)
+                        break;
+
+                    i += 8;
+                }
+
+                if (i == end)
+                    break;
+
+                byte b = body[i];
+
+                if (b < 0)
+                    return unescapeUtf8(start, end);
+
+                if (b != '\\')
+                    continue;
+
+                System.arraycopy(body, run, ascii, length, i - run);
+                length += i - run;
+
+                int c = escape(++i, end);
+                if (c < 0)
+                    return null;
+
+                if (c >= 0x80)
+                    return unescapeUtf8(start, end);
+
+                ascii[length++] = (byte) c;
+                i += body[i] == 'u' ? 4 : 0;
+                run = i + 1;
+            }
+
+            System.arraycopy(body, run, ascii, length, end - run);
+            length += end - run;
+
+            return new String(ascii, 0, length, StandardCharsets.ISO_8859_1);
+        }
+
+        private String unescapeUtf8(int start, int end) {
+            StringBuilder text = new StringBuilder(end - start);
+            int run = start;
+
+            for (int i = start; i < end; i++) {
+                if (body[i] != '\\')
+                    continue;
+
+                text.append(new String(body, run, i - run, StandardCharsets.UTF_8));
+
+                int c = escape(++i, end);
+                if (c < 0)
+                    return null;
+
+                text.append((char) c);
+                i += body[i] == 'u' ? 4 : 0;
+                run = i + 1;
+            }
+
+            return text.append(new String(body, run, end - run, StandardCharsets.UTF_8))
+                    .toString();
+        }
+
+        // The char escaped by the backslash before i, or -1.
+        private int escape(int i, int end) {
+            switch (body[i]) {
+                case 'b':
+                    return '\b';
+                case 'f':
+                    return '\f';
+                case 'n':
+                    return '\n';
+                case 'r':
+                    return '\r';
+                case 't':
+                    return '\t';
+                case 'u':
+                    return i + 4 < end ? hex(i + 1) : -1;
+                case '"':
+                case '\\':
+                case '/':
+                    return body[i];
+                default:
+                    return -1;
+            }
+        }
+
+        // The four hex digits at start, or -1.
+        private int hex(int start) {
+            int code = 0;
+
+            for (int i = start; i < start + 4; i++) {
+                int digit = Character.digit(body[i], 16);
+                if (digit < 0)
+                    return -1;
+
+                code = code << 4 | digit;
+            }
+
+            return code;
+        }
+
+        private boolean rangeEquals(byte[] bytes, int start) {
+            for (int i = 0; i < bytes.length; i++) {
+                if (bytes[i] != body[start + i])
+                    return false;
+            }
+
+            return true;
+        }
+
+        // The offset just past the scalar at start, or -1 for a nested value.
+        private int valueEnd(int start) throws IOException {
+            if (body[start] == '"')
+                return skipString(start);
+
+            if (body[start] == '{' || body[start] == '[')
+                return -1;
+
+            int i = start;
+            while (i < body.length && body[i] != ',' && body[i] != '}' && body[i] != ' '
+                    && body[i] != '\n' && body[i] != '\r' && body[i] != '\t') {
+                i++;
+            }
+
+            return i;
+        }
+
+        private JsonNode value(int field, String column, int start, int end)
+                throws IOException {
+            if (typed[field])
+                return rows.readCell(column, body, start, end);
+
+            JsonNode value;
+            switch (body[start]) {
+                case '"':
+                    value = text(column, start + 1, end - 1);
+                    break;
+                case 't':
+                    value = literal(start, end, TRUE) ? factory.booleanNode(true) : null;
+                    break;
+                case 'f':
+                    value = literal(start, end, FALSE) ? factory.booleanNode(false) : null;
+                    break;
+                case 'n':
+                    value = literal(start, end, NULL) ? factory.nullNode() : null;
+                    break;
+                default:
+                    value = number(start, end);
+                    break;
+            }
+
+            return value != null ? value : rows.readCell(column, body, start, end);
+        }
+
+        // Relies on escaped still describing the value's string.
+        private JsonNode text(String column, int start, int end) {
+            String text = escaped ? unescape(start, end)
+                    : new String(body, start, end - start, StandardCharsets.UTF_8);
+
+            return text != null ? rows.textCell(column, text) : null;
+        }
+
+        private boolean literal(int start, int end, byte[] literal) {
+            return end - start == literal.length && rangeEquals(literal, start);
+        }
+
+        // Integers that fit a long, and doubles; null for anything else.
+        private JsonNode number(int start, int end) {
+            boolean negative = body[start] == '-';
+            int first = negative ? start + 1 : start;
+            boolean integral = true;
+
+            for (int i = first; i < end; i++) {
+                byte b = body[i];
+
+                if (b == '.' || b == 'e' || b == 'E' || b == '+' || b == '-') {
+                    integral = false;
+                } else if (b < '0' || b > '9') {
+                    return null;
+                }
+            }
+
+            if (first == end)
+                return null;
+
+            if (!integral) {
+                String text = new String(body, start, end - start, StandardCharsets.US_ASCII);
+
+                try {
+                    return factory.numberNode(Double.parseDouble(text));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+
+            // 18 digits always fit; longer integers are left to Jackson.
+            if (end - first > 18)
+                return null;
+
+            long value = 0;
+            for (int i = first; i < end; i++) {
+                value = value * 10 + (body[i] - '0');
+            }
+
+            if (negative) {
+                value = -value;
+            }
+
+            return value == (int) value ? factory.numberNode((int) value)
+                    : factory.numberNode(value);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.kordata.odbcbridge;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.kordata.odbcbridge.HttpTransport.Response;
+
+// Iterates the rows of GET /v1/{database}/{table}, or of a query, as they
+// arrive, so only the current row is held in memory. Close it to release the
+// connection if the rows aren't read to the end.
+public class TableReader implements Iterator<ObjectNode>, Closeable {
+    // Sent by bridges that apply ?fields= and ?where.Column= themselves.
+    static final String QUERY_HEADER = "X-AccessBridge-Query";
+
+    private final ResponseReader reader;
+    private final Response response;
+    private final JsonParser parser;
+
+    // Projection and filters the bridge didn't apply.
+    private final List<String> columns;
+    private final Map<String, String> filters = new HashMap<>();
+
+    private ObjectNode next;
+    private boolean done;
+
+    TableReader(ResponseReader reader, Response response, List<String> columns,
+            Map<String, ?> filters) throws IOException {
+        this.reader = reader;
+        this.response = response;
+        this.columns = columns;
+        filters.forEach((column, value) -> this.filters.put(column, String.valueOf(value)));
+
+        try {
+            parser = reader.openRows(response.body());
+        } catch (IOException e) {
+            response.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !done) {
+            try {
+                advance();
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        return next != null;
+    }
+
+    @Override
+    public ObjectNode next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        ObjectNode row = next;
+        next = null;
+        return row;
+    }
+
+    private void advance() throws IOException {
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            ObjectNode row = reader.readRow(parser);
+
+            if (matches(row)) {
+                if (!columns.isEmpty()) {
+                    row.retain(columns);
+                }
+
+                next = row;
+                return;
+            }
+        }
+
+        done = true;
+        close();
+    }
+
+    private boolean matches(ObjectNode row) {
+        for (Map.Entry<String, String> filter : filters.entrySet()) {
+            if (!filter.getValue().equals(row.path(filter.getKey()).asText())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public void close() {
+        try {
+            parser.close();
+        } catch (IOException e) {
+            // The response is closed below either way.
+        }
+
+        response.close();
+    }
+}
@@ -0,0 +1,236 @@
+package com.kordata.odbcbridge;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+// Inserts or updates records by primary key without the bridge's per-record
+// existence check. The keys already in the table are fetched up front, the
+// records are split into inserts and updates, and each group is sent as
+// batched mutates: one round trip for the keys plus one per batch.
+public class UpsertPlanner {
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    // Beyond this many keys per record the key range is too sparse to scan,
+    // so keys are looked up with IN lists instead.
+    private static final int MAX_RANGE_DENSITY = 16;
+    private static final int IN_LIST_SIZE = 100;
+
+    private final Connection connection;
+    private final String table;
+    private final String primaryKey;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    public UpsertPlanner(Connection connection, String table, String primaryKey) {
+        this.connection = connection;
+        this.table = table;
+        this.primaryKey = primaryKey;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+
+        this.batchSize = batchSize;
+    }
+
+    // Every record must have the columns of the first one, primary key included.
+    public UpsertResult upsert(List<? extends Map<String, ?>> records) throws SQLException {
+        if (records.isEmpty())
+            return new UpsertResult(0, 0);
+
+        List<String> columns = new ArrayList<>(records.get(0).keySet());
+        if (!columns.contains(primaryKey)) {
+            throw new SQLException("Records must include the primary key " + primaryKey);
+        }
+
+        List<Map<String, ?>> inserts = new ArrayList<>();
+        List<Map<String, ?>> updates = new ArrayList<>();
+
+        if (hasNumericKeys(records)) {
+            LongHashSet existing = fetchNumericKeys(records);
+
+            for (Map<String, ?> record : records) {
+                long key = ((Number) record.get(primaryKey)).longValue();
+
+                // A key repeated in the batch is inserted once, then updated.
+                (existing.add(key) ? inserts : updates).add(record);
+            }
+        } else {
+            Set<String> existing = fetchTextKeys(records);
+
+            for (Map<String, ?> record : records) {
+                String key = String.valueOf(record.get(primaryKey));
+                (existing.add(key) ? inserts : updates).add(record);
+            }
+        }
+
+        executeInserts(columns, inserts);
+        int updated = executeUpdates(columns, updates);
+
+        return new UpsertResult(inserts.size(), updated);
+    }
+
+    private boolean hasNumericKeys(List<? extends Map<String, ?>> records) {
+        for (Map<String, ?> record : records) {
+            Object key = record.get(primaryKey);
+
+            if (!(key instanceof Integer || key instanceof Long || key instanceof Short
+                    || key instanceof Byte)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private LongHashSet fetchNumericKeys(List<? extends Map<String, ?>> records)
+            throws SQLException {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+
+        for (Map<String, ?> record : records) {
+            long key = ((Number) record.get(primaryKey)).longValue();
+            min = Math.min(min, key);
+            max = Math.max(max, key);
+        }
+
+        LongHashSet keys = new LongHashSet(records.size());
+
+        if ((double) max - min > (double) records.size() * MAX_RANGE_DENSITY) {
+            for (String key : fetchKeysIn(records)) {
+                keys.add(Long.parseLong(key));
+            }
+
+            return keys;
+        }
+
+        String sql = "SELECT [" + primaryKey + "] FROM [" + table + "] WHERE ["
+                + primaryKey + "] BETWEEN ? AND ?";
+
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, min);
+            statement.setLong(2, max);
+
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    keys.add(rs.getLong(1));
+                }
+            }
+        }
+
+        return keys;
+    }
+
+    // Access compares text without regard to case, so the keys do too.
+    private Set<String> fetchTextKeys(List<? extends Map<String, ?>> records)
+            throws SQLException {
+        Set<String> keys = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        keys.addAll(fetchKeysIn(records));
+
+        return keys;
+    }
+
+    private List<String> fetchKeysIn(List<? extends Map<String, ?>> records)
+            throws SQLException {
+        List<String> keys = new ArrayList<>();
+
+        for (int first = 0; first < records.size(); first += IN_LIST_SIZE) {
+            List<? extends Map<String, ?>> chunk =
+                    records.subList(first, Math.min(first + IN_LIST_SIZE, records.size()));
+
+            StringBuilder sql = new StringBuilder("SELECT [").append(primaryKey)
+                    .append("] FROM [").append(table).append("] WHERE [").append(primaryKey)
+                    .append("] IN (");
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "?" : ",?");
+            }
+            sql.append(')');
+
+            try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    statement.setObject(i + 1, chunk.get(i).get(primaryKey));
+                }
+
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        keys.add(rs.getString(1));
+                    }
+                }
+            }
+        }
+
+        return keys;
+    }
+
+    private void executeInserts(List<String> columns, List<Map<String, ?>> records)
+            throws SQLException {
+        if (records.isEmpty())
+            return;
+
+        StringBuilder sql = new StringBuilder("INSERT INTO [").append(table).append("] (");
+        for (int i = 0; i < columns.size(); i++) {
+            sql.append(i == 0 ? "[" : ", [").append(columns.get(i)).append(']');
+        }
+        sql.append(") VALUES (");
+        for (int i = 0; i < columns.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(')');
+
+        executeBatches(sql.toString(), columns, records);
+    }
+
+    // Returns how many records were sent as updates.
+    private int executeUpdates(List<String> columns, List<Map<String, ?>> records)
+            throws SQLException {
+        List<String> assigned = new ArrayList<>(columns);
+        assigned.remove(primaryKey);
+
+        // Records with only a key have nothing to update, so aren't counted.
+        if (records.isEmpty() || assigned.isEmpty())
+            return 0;
+
+        StringBuilder sql = new StringBuilder("UPDATE [").append(table).append("] SET ");
+        for (int i = 0; i < assigned.size(); i++) {
+            sql.append(i == 0 ? "[" : ", [").append(assigned.get(i)).append("] = ?");
+        }
+        sql.append(" WHERE [").append(primaryKey).append("] = ?");
+
+        assigned.add(primaryKey);
+        executeBatches(sql.toString(), assigned, records);
+
+        return records.size();
+    }
+
+    private void executeBatches(String sql, List<String> columns,
+            List<Map<String, ?>> records) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < records.size(); i++) {
+                Map<String, ?> record = records.get(i);
+
+                for (int c = 0; c < columns.size(); c++) {
+                    statement.setObject(c + 1, record.get(columns.get(c)));
+                }
+
+                statement.addBatch();
+
+                if ((i + 1) % batchSize == 0 || i == records.size() - 1) {
+                    statement.executeBatch();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.kordata.odbcbridge;
+
+public class UpsertResult {
+    private final int insertCount;
+    private final int updateCount;
+
+    public UpsertResult(int insertCount, int updateCount) {
+        this.insertCount = insertCount;
+        this.updateCount = updateCount;
+    }
+
+    public int getInsertCount() {
+        return insertCount;
+    }
+
+    public int getUpdateCount() {
+        return updateCount;
+    }
+
+    @Override
+    public String toString() {
+        return insertCount + " inserted, " + updateCount + " updated";
+    }
+}
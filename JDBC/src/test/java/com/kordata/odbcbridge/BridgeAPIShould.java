@@ -7,17 +7,47 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import okhttp3.HttpUrl;
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import okhttp3.mockwebserver.RecordedRequest;
 import static org.junit.Assert.*;
+import static org.junit.Assume.assumeFalse;
 import static org.junit.Assume.assumeNoException;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.StringReader;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 public class BridgeAPIShould {
+    private static volatile boolean tripwireInitialized;
+
+    // Sets the flag above if anything initializes it.
+    public static class Tripwire {
+        static {
+            tripwireInitialized = true;
+        }
+    }
+
     private final ObjectMapper mapper;
     private final MockWebServer server;
     private final BridgeAPI api;
@@ -85,42 +115,51 @@ public class BridgeAPIShould {
     }
 
     @Test
-    public void parseHostFromConnectionString() {
+    public void parseHostFromConnectionString() throws SQLException {
         api.setURL(aConnectionString);
 
         assertEquals("somehost", api.getHost());
     }
 
     @Test
-    public void parsePortFromConnectionString() {
+    public void parsePortFromConnectionString() throws SQLException {
         api.setURL(aConnectionString);
 
         assertEquals(5000, api.getPort());
     }
 
     @Test
-    public void parseDatabaseNameFromConnectionString() {
+    public void parseDatabaseNameFromConnectionString() throws SQLException {
         api.setURL(aConnectionString);
 
         assertEquals("a_database", api.getDatabase());
     }
 
     @Test
-    public void parseUserNameFromConnectionString() {
+    public void parseUserNameFromConnectionString() throws SQLException {
         api.setURL(aConnectionString);
 
         assertEquals("aUser", api.getUsername());
     }
 
     @Test
-    public void parsePasswordFromConnectionString() {
+    public void parsePasswordFromConnectionString() throws SQLException {
         api.setURL(aConnectionString);
 
         assertEquals("aPassword", api.getPassword());
     }
 
     @Test
-    public void handleBadConnectionStrings() {
+    public void parseUseSslFromConnectionString() throws SQLException {
+        api.setURL(aConnectionString + "useSsl=true;");
+        assertTrue(api.getUseSsl());
+
+        api.setURL(aConnectionString + "useSsl=false;");
+        assertFalse(api.getUseSsl());
+    }
+
+    @Test
+    public void handleBadConnectionStrings() throws SQLException {
         api.setURL(aBadConnectionString);
 
         assertNull(api.getHost());
@@ -128,7 +167,27 @@ public class BridgeAPIShould {
     }
 
     @Test
-    public void returnQueryResultFromQuery() throws IOException, InterruptedException {
+    public void rejectMalformedPropertyValuesWithSqlExceptions() {
+        String[] properties = {"slowQueryThreshold=abc", "catalogTtl=1h",
+                "lobSpillThreshold=-", "resultHeapBudget=1e6", "memoryWaitTimeout=soon",
+                "maxScanConcurrency=many", "http2=sometimes", "memoryPolicy=ignore",
+                "timeZone=Nowhere/Special"};
+
+        for (String property : properties) {
+            try {
+                api.setURL(aConnectionString + property + ";");
+                fail("Accepted " + property);
+            } catch (SQLException e) {
+                String[] keyValue = property.split("=");
+                assertEquals("Invalid value for connection property " + keyValue[0] + ": "
+                        + keyValue[1], e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void returnQueryResultFromQuery()
+            throws IOException, InterruptedException, SQLException {
         // Arrange
         int resultSetSize = 3;
         server.enqueue(new MockResponse().setBody(buildQueryResponseString(resultSetSize)));
@@ -162,7 +221,7 @@ public class BridgeAPIShould {
 
     @Test
     public void returnCorrectNumberOfRowsUpdatedForMutate()
-            throws IOException, InterruptedException {
+            throws IOException, InterruptedException, SQLException {
         // Arrange
         int rowsAffected = 3;
         server.enqueue(new MockResponse().setBody(buildMutateResponseString(rowsAffected)));
@@ -188,4 +247,385 @@ public class BridgeAPIShould {
         assertEquals("/v1/a_database/query", request.getPath());
         assertEquals(requestBody, expectedRequest);
     }
+
+    @Test
+    public void streamParametersIntoAChunkedBody()
+            throws IOException, InterruptedException, SQLException {
+        server.enqueue(new MockResponse().setBody(buildMutateResponseString(1)));
+
+        api.setURL(buildConnectionString(server.url("/")));
+
+        byte[] attachment = new byte[256 * 1024];
+        new Random(7).nextBytes(attachment);
+
+        ArrayNode params = mapper.createArrayNode();
+        params.addPOJO(StreamParameter.binary(new ByteArrayInputStream(attachment), -1));
+        params.addPOJO(StreamParameter.text(new StringReader("notes"), -1));
+        params.add(42);
+
+        api.mutate("UPDATE Customers SET Photo = ?, Notes = ? WHERE ID = ?", params);
+
+        RecordedRequest request = server.takeRequest();
+        JsonNode sent = mapper.readTree(request.getBody().readUtf8()).get("parameters");
+
+        assertEquals("chunked", request.getHeader("Transfer-Encoding"));
+        assertArrayEquals(attachment, sent.get(0).binaryValue());
+        assertEquals("notes", sent.get(1).textValue());
+        assertEquals(42, sent.get(2).intValue());
+    }
+
+    @Test
+    public void writeParametersWithoutATree()
+            throws IOException, InterruptedException, SQLException {
+        server.enqueue(new MockResponse().setBody(buildMutateResponseString(1)));
+
+        api.setURL(buildConnectionString(server.url("/")));
+
+        ParameterWriter parameters = new ParameterWriter() {
+            @Override
+            public int size() {
+                return 2;
+            }
+
+            @Override
+            public boolean isStreaming() {
+                return false;
+            }
+
+            @Override
+            public void write(JsonGenerator generator) throws IOException {
+                generator.writeStartArray();
+                generator.writeString("Hello");
+                generator.writeNumber(42);
+                generator.writeEndArray();
+            }
+        };
+
+        api.mutate("UPDATE Customers SET FirstName = ? WHERE ID = ?", parameters);
+
+        RecordedRequest request = server.takeRequest();
+        String body = request.getBody().readUtf8();
+        JsonNode sent = mapper.readTree(body).get("parameters");
+
+        assertEquals(String.valueOf(body.length()), request.getHeader("Content-Length"));
+        assertEquals("Hello", sent.get(0).textValue());
+        assertEquals(42, sent.get(1).intValue());
+    }
+
+    @Test
+    public void sendRegisteredStatementsByHandle()
+            throws IOException, InterruptedException, SQLException {
+        server.enqueue(new MockResponse().setBody("{\"handle\":\"abc123\"}"));
+        server.enqueue(new MockResponse().setBody(buildMutateResponseString(1)));
+        server.enqueue(new MockResponse().setBody(buildMutateResponseString(1)));
+
+        api.setURL(buildConnectionString(server.url("/")) + "useStatementHandles=true;");
+
+        String sql = "UPDATE Customers SET FirstName = ? WHERE ID = ?";
+        ArrayNode params = mapper.createArrayNode().add("Hello").add(42);
+
+        api.mutate(sql, params);
+        api.mutate(sql, params);
+
+        RecordedRequest register = server.takeRequest();
+        assertEquals("/v1/a_database/statements", register.getPath());
+        assertEquals(sql, mapper.readTree(register.getBody().readUtf8()).get("command").asText());
+
+        for (int i = 0; i < 2; i++) {
+            RecordedRequest request = server.takeRequest();
+            JsonNode sent = mapper.readTree(request.getBody().readUtf8());
+
+            assertEquals("/v1/a_database/statements/abc123/mutate", request.getPath());
+            assertFalse(sent.has("command"));
+            assertEquals(params, sent.get("parameters"));
+        }
+    }
+
+    @Test
+    public void reregisterStatementsTheServerHasForgotten()
+            throws IOException, InterruptedException, SQLException {
+        server.enqueue(new MockResponse().setBody("{\"handle\":\"abc123\"}"));
+        server.enqueue(new MockResponse().setResponseCode(410));
+        server.enqueue(new MockResponse().setBody("{\"handle\":\"def456\"}"));
+        server.enqueue(new MockResponse().setBody(buildQueryResponseString(1)));
+
+        api.setURL(buildConnectionString(server.url("/")) + "useStatementHandles=true;");
+
+        ObjectNode result = api.query("SELECT * FROM Customers WHERE ID = ?",
+                mapper.createArrayNode().add(42));
+
+        assertEquals(1, result.get("results").size());
+        assertEquals("/v1/a_database/statements", server.takeRequest().getPath());
+        assertEquals("/v1/a_database/statements/abc123/query", server.takeRequest().getPath());
+        assertEquals("/v1/a_database/statements", server.takeRequest().getPath());
+        assertEquals("/v1/a_database/statements/def456/query", server.takeRequest().getPath());
+    }
+
+    @Test
+    public void fallBackToSqlWhenTheServerLacksStatementHandles()
+            throws IOException, InterruptedException, SQLException {
+        server.enqueue(new MockResponse().setResponseCode(404));
+        server.enqueue(new MockResponse().setBody(buildMutateResponseString(1)));
+        server.enqueue(new MockResponse().setBody(buildMutateResponseString(1)));
+
+        api.setURL(buildConnectionString(server.url("/")) + "useStatementHandles=true;");
+
+        String sql = "UPDATE Customers SET FirstName = ? WHERE ID = ?";
+        ArrayNode params = mapper.createArrayNode().add("Hello").add(42);
+
+        assertEquals(1, api.mutate(sql, params));
+        assertEquals(1, api.mutate(sql, params));
+
+        assertEquals("/v1/a_database/statements", server.takeRequest().getPath());
+        assertEquals(api.getQueryEndpoint(), server.takeRequest().getPath());
+        assertEquals(api.getQueryEndpoint(), server.takeRequest().getPath());
+        assertFalse(api.getUseStatementHandles());
+    }
+
+    // A stand-in for the bridge's statement registry: registers SQL under a new
+    // handle, runs statements by handle and answers 410 for evicted handles.
+    private class StatementRegistry extends Dispatcher {
+        private final Map<String, String> handles = new ConcurrentHashMap<>();
+        private final List<String> executed = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger registrations = new AtomicInteger();
+
+        void evictAll() {
+            handles.clear();
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            try {
+                JsonNode body = mapper.readTree(request.getBody().readUtf8());
+                String[] path = request.getPath().split("/");
+
+                if (path.length == 4 && path[3].equals("statements")) {
+                    String handle = "h" + registrations.incrementAndGet();
+                    handles.put(handle, body.get("command").asText());
+                    return new MockResponse().setBody("{\"handle\":\"" + handle + "\"}");
+                }
+
+                if (path.length != 6 || !path[3].equals("statements")) {
+                    return new MockResponse().setResponseCode(404);
+                }
+
+                String sql = handles.get(path[4]);
+                if (sql == null) {
+                    return new MockResponse().setResponseCode(410);
+                }
+
+                executed.add(sql + " " + body.get("parameters"));
+                return new MockResponse().setBody(path[5].equals("query")
+                        ? buildQueryResponseString(1)
+                        : buildMutateResponseString(1));
+            } catch (IOException e) {
+                return new MockResponse().setResponseCode(400);
+            }
+        }
+    }
+
+    @Test
+    public void registerLookUpAndReregisterHandlesWithTheServer() throws IOException, SQLException {
+        StatementRegistry registry = new StatementRegistry();
+        server.setDispatcher(registry);
+
+        api.setURL(buildConnectionString(server.url("/")) + "useStatementHandles=true;");
+
+        String update = "UPDATE Customers SET FirstName = ? WHERE ID = ?";
+        String select = "SELECT * FROM Customers WHERE ID = ?";
+
+        assertEquals(1, api.mutate(update, mapper.createArrayNode().add("Hello").add(1)));
+        assertEquals(1, api.mutate(update, mapper.createArrayNode().add("World").add(2)));
+        assertEquals(1, api.query(select, mapper.createArrayNode().add(3))
+                .get("results").size());
+        assertEquals(2, registry.registrations.get());
+
+        // The server forgets every handle; each statement registers again once.
+        registry.evictAll();
+        assertEquals(1, api.mutate(update, mapper.createArrayNode().add("Again").add(4)));
+        assertEquals(1, api.mutate(update, mapper.createArrayNode().add("More").add(5)));
+        assertEquals(1, api.query(select, mapper.createArrayNode().add(6))
+                .get("results").size());
+        assertEquals(4, registry.registrations.get());
+
+        assertEquals(Arrays.asList(update + " [\"Hello\",1]", update + " [\"World\",2]",
+                select + " [3]", update + " [\"Again\",4]", update + " [\"More\",5]",
+                select + " [6]"), registry.executed);
+        assertTrue(api.getUseStatementHandles());
+    }
+
+    @Test
+    public void countCallsOnTheSharedTransport() throws IOException, SQLException {
+        server.enqueue(new MockResponse().setBody(buildMutateResponseString(1)));
+
+        api.setURL(buildConnectionString(server.url("/")));
+
+        HttpTransport transport = api.getHttpTransport();
+        long completed = transport.getStats().getCompletedCalls();
+
+        assertTrue(transport instanceof OkHttpTransport);
+        assertSame(transport, new BridgeAPI().getHttpTransport());
+
+        api.mutate("DELETE FROM Customers", (ArrayNode) null);
+
+        assertTrue(transport.getStats().getCompletedCalls() > completed);
+        assertTrue(transport.getStats().getOpenConnections() >= 1);
+    }
+
+    @Test
+    public void notInitializeClassesThatAreNotResultDecoders() throws SQLException {
+        try {
+            api.setURL(aConnectionString + "resultDecoder=" + Tripwire.class.getName() + ";");
+            fail("Expected an unknown result decoder");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Unknown result decoder " + Tripwire.class.getName(), e.getMessage());
+        }
+
+        assertFalse(tripwireInitialized);
+    }
+
+    @Test
+    public void notInitializeClassesThatAreNotTransports() throws SQLException {
+        try {
+            api.setURL(aConnectionString + "httpTransport=" + Tripwire.class.getName() + ";");
+            fail("Expected an unavailable transport");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Unavailable HTTP transport " + Tripwire.class.getName(),
+                    e.getMessage());
+        }
+
+        assertFalse(tripwireInitialized);
+    }
+
+    @Test
+    public void keepHttp11CallLimitsForPlainHttpByDefault() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                release.await();
+                return new MockResponse().setBody(buildMutateResponseString(1));
+            }
+        });
+        OkHttpTransport transport = new OkHttpTransport();
+        CountDownLatch done = new CountDownLatch(10);
+        HttpTransport.Callback callback = new HttpTransport.Callback() {
+            @Override
+            public void onResponse(HttpTransport.Response response) {
+                response.close();
+                done.countDown();
+            }
+
+            @Override
+            public void onFailure(IOException e) {
+                done.countDown();
+            }
+        };
+
+        try {
+            for (int i = 0; i < 10; i++) {
+                transport.newCall(HttpTransport.Request.get(server.url("/").toString()))
+                        .enqueue(callback);
+            }
+            for (int i = 0; i < 5; i++) {
+                assertNotNull(server.takeRequest(5, TimeUnit.SECONDS));
+            }
+
+            assertNull(server.takeRequest(200, TimeUnit.MILLISECONDS));
+            assertEquals(5, transport.getStats().getActiveCalls());
+        } finally {
+            release.countDown();
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void sendRequestsThroughTheJdkTransport()
+            throws IOException, InterruptedException, SQLException {
+        assumeFalse("java.net.http needs Java 11",
+                System.getProperty("java.specification.version").startsWith("1."));
+
+        server.enqueue(new MockResponse().setBody(buildQueryResponseString(2)));
+        server.enqueue(new MockResponse().setBody(buildMutateResponseString(1)));
+        server.enqueue(new MockResponse().setResponseCode(500));
+
+        api.setURL(buildConnectionString(server.url("/")) + "httpTransport=jdk;");
+        assertEquals("JdkHttpTransport", api.getHttpTransport().getClass().getSimpleName());
+
+        ObjectNode result = api.query("SELECT * FROM Customers", (ArrayNode) null);
+        assertEquals("FName1", result.get("results").get(1).get("FirstName").textValue());
+
+        byte[] attachment = new byte[256 * 1024];
+        new Random(7).nextBytes(attachment);
+        ArrayNode params = mapper.createArrayNode()
+                .addPOJO(StreamParameter.binary(new ByteArrayInputStream(attachment), -1))
+                .add(42);
+        assertEquals(1, api.mutate("UPDATE Customers SET Photo = ? WHERE ID = ?", params));
+
+        try {
+            api.mutate("DELETE FROM Customers", (ArrayNode) null);
+            fail("Expected the 500 to fail the mutate");
+        } catch (IOException e) {
+            assertEquals("HTTP 500", e.getMessage());
+        }
+
+        server.takeRequest();
+        RecordedRequest streamed = server.takeRequest();
+        JsonNode sent = mapper.readTree(streamed.getBody().readUtf8()).get("parameters");
+        assertArrayEquals(attachment, sent.get(0).binaryValue());
+        assertEquals(-1, api.getHttpTransport().getStats().getOpenConnections());
+    }
+
+    @Test
+    public void multiplexConcurrentQueriesOverOneH2cConnection() throws Exception {
+        MockWebServer h2c = new MockWebServer();
+        h2c.setProtocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE));
+        int statements = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(statements);
+        // The shared transports pool connections across tests, so count on a private one.
+        OkHttpTransport transport = new OkHttpTransport(HttpTransport.Http2Mode.PRIOR_KNOWLEDGE);
+
+        try {
+            for (int i = 0; i < statements; i++) {
+                h2c.enqueue(new MockResponse().setBody(buildQueryResponseString(3)));
+            }
+            h2c.enqueue(new MockResponse().setBody(buildQueryResponseString(0)));
+
+            api.setURL(buildConnectionString(h2c.url("/")) + "http2=prior_knowledge;");
+            assertEquals(HttpTransport.Http2Mode.PRIOR_KNOWLEDGE, api.getHttp2());
+            api.setHttpTransport(transport);
+
+            List<Future<ObjectNode>> results = new ArrayList<>();
+            for (int i = 0; i < statements; i++) {
+                results.add(executor.submit(
+                        () -> api.query("SELECT * FROM Customers", (ArrayNode) null)));
+            }
+            for (Future<ObjectNode> result : results) {
+                assertEquals(3, result.get().get("results").size());
+            }
+
+            HttpTransport.Request request = HttpTransport.Request.get(h2c.url("/").toString());
+            try (HttpTransport.Response response = transport.newCall(request).execute()) {
+                assertEquals("h2_prior_knowledge", response.protocol());
+            }
+
+            assertEquals(1, transport.getStats().getOpenConnections());
+        } finally {
+            executor.shutdownNow();
+            h2c.shutdown();
+        }
+    }
+
+    @Test
+    public void negotiateHttp2OverTlsInsteadOfPriorKnowledge() throws SQLException {
+        api.setURL(aConnectionString + "http2=prior_knowledge;");
+
+        assertTrue(api.getUseSsl());
+        assertSame(BridgeAPI.transport("okhttp"), api.getHttpTransport());
+
+        api.setURL(aConnectionString + "http2=off;");
+
+        assertNotSame(BridgeAPI.transport("okhttp"), api.getHttpTransport());
+    }
 }
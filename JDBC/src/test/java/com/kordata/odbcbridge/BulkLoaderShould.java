@@ -0,0 +1,233 @@
+package com.kordata.odbcbridge;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+public class BulkLoaderShould {
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final MockWebServer server = new MockWebServer();
+    private final BridgeAPI api = new BridgeAPI();
+
+    private String buildConnectionString(HttpUrl baseUrl) {
+        return "jdbc:odbcbridge://" + baseUrl.host() + ":" + baseUrl.port()
+                + ";databaseName=a_database;user=aUser;password=aPassword;useSsl=false;";
+    }
+
+    private List<Map<String, Object>> buildRecords(int count) {
+        List<Map<String, Object>> records = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> record = new HashMap<>();
+            record.put("ID", i);
+            record.put("LastName", "LName" + i);
+            records.add(record);
+        }
+
+        return records;
+    }
+
+    @Before
+    public void setUp() throws IOException, SQLException {
+        server.start();
+        api.setURL(buildConnectionString(server.url("/")));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void reportRecordsTheBridgeRejected() throws IOException, InterruptedException {
+        server.enqueue(new MockResponse().setBody("[{\"success\":true},{\"success\":false}]"));
+        server.enqueue(new MockResponse().setBody("[{\"success\":true},{\"success\":true}]"));
+        server.enqueue(new MockResponse().setBody("[{\"success\":false}]"));
+
+        BulkLoader loader = api.newBulkLoader();
+        loader.setChunkSize(2);
+        loader.setParallelism(1);
+
+        BulkLoadReport report = loader.load("Customers", "ID", buildRecords(5).iterator());
+
+        assertEquals(5, report.getRecordCount());
+        assertArrayEquals(new int[] {1, 4}, report.getFailedRecords());
+
+        RecordedRequest request = server.takeRequest();
+        assertEquals("/v1/a_database/Customers?primaryKey=ID", request.getPath());
+        JsonNode sent = mapper.readTree(request.getBody().readUtf8());
+        assertEquals(2, sent.size());
+        assertEquals("LName0", sent.get(0).get("LastName").asText());
+    }
+
+    @Test
+    public void sendChunksInParallelWithinTheLimit() throws IOException {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        // Rejects records with even IDs and fails one chunk outright.
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+
+                try {
+                    Thread.sleep(20);
+                    JsonNode records = mapper.readTree(request.getBody().readUtf8());
+
+                    if (records.get(0).get("ID").asInt() == 500) {
+                        return new MockResponse().setResponseCode(500);
+                    }
+
+                    ArrayNode results = mapper.createArrayNode();
+                    for (JsonNode record : records) {
+                        results.addObject().put("success", record.get("ID").asInt() % 2 != 0);
+                    }
+
+                    return new MockResponse().setBody(results.toString());
+                } catch (IOException e) {
+                    return new MockResponse().setResponseCode(400);
+                } finally {
+                    active.decrementAndGet();
+                }
+            }
+        });
+
+        BulkLoader loader = api.newBulkLoader();
+        loader.setChunkSize(100);
+        loader.setParallelism(3);
+
+        BulkLoadReport report = loader.load("Customers", "ID", buildRecords(1000).iterator());
+
+        assertEquals(1000, report.getRecordCount());
+        assertEquals(550, report.getFailureCount());
+        assertTrue(report.isFailed(501));
+        assertFalse(report.isFailed(601));
+        assertEquals(1, report.getErrors().size());
+        assertEquals(10, server.getRequestCount());
+        assertTrue(peak.get() <= 3);
+    }
+
+    @Test
+    public void sendDatesAsStatementParametersDo()
+            throws IOException, InterruptedException, SQLException {
+        server.enqueue(new MockResponse().setBody("[{\"success\":true}]"));
+        api.setURL(buildConnectionString(server.url("/")) + "timeZone=America/New_York;");
+
+        Instant instant = Instant.parse("2019-04-09T14:30:01Z");
+        Map<String, Object> record = new HashMap<>();
+        record.put("Created", Date.from(instant));
+        record.put("Visited", Timestamp.from(instant));
+        record.put("Updated", instant);
+        record.put("Due", LocalDate.of(2019, 4, 30));
+
+        BulkLoadReport report = api.newBulkLoader().load("Customers", "ID",
+                Collections.singletonList(record).iterator());
+        assertEquals(0, report.getFailureCount());
+
+        JsonNode sent = mapper.readTree(server.takeRequest().getBody().readUtf8()).get(0);
+        assertEquals("2019-04-09 10:30:01", sent.get("Created").asText());
+        assertEquals("2019-04-09 10:30:01", sent.get("Visited").asText());
+        assertEquals("2019-04-09 10:30:01", sent.get("Updated").asText());
+        assertEquals("2019-04-30", sent.get("Due").asText());
+    }
+
+    // Counts the calls canceled through it, for the driver to select by name.
+    public static class CancelCountingTransport implements HttpTransport {
+        static final AtomicInteger canceled = new AtomicInteger();
+
+        private final HttpTransport transport = new OkHttpTransport();
+
+        @Override
+        public Call newCall(Request request) {
+            Call call = transport.newCall(request);
+
+            return new Call() {
+                @Override
+                public Response execute() throws IOException {
+                    return call.execute();
+                }
+
+                @Override
+                public void enqueue(Callback callback) {
+                    call.enqueue(callback);
+                }
+
+                @Override
+                public void cancel() {
+                    canceled.incrementAndGet();
+                    call.cancel();
+                }
+            };
+        }
+
+        @Override
+        public Stats getStats() {
+            return transport.getStats();
+        }
+    }
+
+    @Test
+    public void cancelChunksInFlightWhenTheRecordsFail() throws IOException, SQLException {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                Thread.sleep(2000);
+                return new MockResponse().setBody("[{\"success\":true}]");
+            }
+        });
+        api.setURL(buildConnectionString(server.url("/")) + "httpTransport="
+                + CancelCountingTransport.class.getName() + ";");
+
+        Iterator<Map<String, Object>> records = buildRecords(2).iterator();
+        Iterator<Map<String, Object>> failing = new Iterator<Map<String, Object>>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Map<String, Object> next() {
+                if (!records.hasNext())
+                    throw new IllegalStateException("Source closed");
+
+                return records.next();
+            }
+        };
+
+        BulkLoader loader = api.newBulkLoader();
+        loader.setChunkSize(1);
+        int canceledBefore = CancelCountingTransport.canceled.get();
+
+        try {
+            loader.load("Customers", "ID", failing);
+            fail("Expected the failing records to end the load");
+        } catch (IllegalStateException e) {
+            assertEquals("Source closed", e.getMessage());
+        }
+
+        assertEquals(canceledBefore + 2, CancelCountingTransport.canceled.get());
+    }
+}
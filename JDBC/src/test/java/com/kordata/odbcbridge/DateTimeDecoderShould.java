@@ -0,0 +1,95 @@
+package com.kordata.odbcbridge;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+
+public class DateTimeDecoderShould {
+    private final ZoneId newYork = ZoneId.of("America/New_York");
+
+    @Test
+    public void readLocalDateTimesInTheConnectionZone() {
+        DateTimeDecoder decoder = new DateTimeDecoder(newYork);
+
+        Timestamp actual = decoder.toTimestamp("2019-04-09T14:30:01");
+
+        Instant expected = LocalDateTime.of(2019, 4, 9, 14, 30, 1).atZone(newYork).toInstant();
+        assertEquals(expected, actual.toInstant());
+    }
+
+    @Test
+    public void honorExplicitOffsets() {
+        DateTimeDecoder decoder = new DateTimeDecoder(newYork);
+
+        assertEquals(Instant.parse("2019-04-09T14:30:01Z"),
+                decoder.toTimestamp("2019-04-09T14:30:01Z").toInstant());
+        assertEquals(Instant.parse("2019-04-09T12:30:01Z"),
+                decoder.toTimestamp("2019-04-09T14:30:01+02:00").toInstant());
+        assertEquals(Instant.parse("2019-04-09T14:30:01Z"),
+                decoder.toTimestamp("2019-04-09T14:30:01Z", ZoneId.of("Asia/Tokyo")).toInstant());
+    }
+
+    @Test
+    public void keepFractionalSeconds() {
+        DateTimeDecoder decoder = new DateTimeDecoder(ZoneId.of("UTC"));
+
+        Timestamp actual = decoder.toTimestamp("2019-04-09 14:30:01.1234567");
+
+        assertEquals(123456700, actual.getNanos());
+        assertEquals(Instant.parse("2019-04-09T14:30:01.1234567Z"), actual.toInstant());
+    }
+
+    @Test
+    public void matchJavaTimeAcrossDaylightSavingTransitions() {
+        DateTimeDecoder decoder = new DateTimeDecoder(newYork);
+        LocalDateTime start = LocalDateTime.of(2019, 3, 9, 0, 0);
+
+        for (LocalDateTime local = start; local.isBefore(start.plusDays(3)); local =
+                local.plusMinutes(15)) {
+            Timestamp actual = decoder.toTimestamp(local.toString());
+
+            assertEquals(local.toString(), local.atZone(newYork).toInstant(), actual.toInstant());
+        }
+
+        start = LocalDateTime.of(2019, 11, 2, 0, 0);
+        for (LocalDateTime local = start; local.isBefore(start.plusDays(3)); local =
+                local.plusMinutes(15)) {
+            Timestamp actual = decoder.toTimestamp(local.toString());
+
+            assertEquals(local.toString(), local.atZone(newYork).toInstant(), actual.toInstant());
+        }
+    }
+
+    @Test
+    public void splitDateTimesIntoDatesAndTimes() {
+        DateTimeDecoder decoder = new DateTimeDecoder(newYork);
+
+        // Access stores time-only values on its 1899-12-30 epoch.
+        assertEquals(LocalTime.of(14, 30, 1), decoder.toTime("1899-12-30T14:30:01").toLocalTime());
+        assertEquals(LocalTime.of(14, 30, 1), decoder.toTime("14:30:01").toLocalTime());
+        assertEquals(LocalDate.of(2019, 4, 9), decoder.toDate("2019-04-09T14:30:01").toLocalDate());
+        assertEquals(LocalDate.of(2019, 4, 9), decoder.toDate("2019-04-09").toLocalDate());
+        assertEquals(LocalDateTime.of(1600, 2, 29, 0, 0).atZone(newYork).toInstant(),
+                decoder.toTimestamp("1600-02-29").toInstant());
+        assertEquals(LocalDate.of(2020, 2, 29), decoder.toDate("2020-02-29").toLocalDate());
+    }
+
+    @Test
+    public void rejectMalformedValues() {
+        DateTimeDecoder decoder = new DateTimeDecoder(newYork);
+
+        assertNull(decoder.toTimestamp("not a date"));
+        assertNull(decoder.toTimestamp("2019-13-09"));
+        assertNull(decoder.toTimestamp("2019-02-29"));
+        assertNull(decoder.toTimestamp("2019-04-31"));
+        assertNull(decoder.toDate("1900-02-29"));
+        assertNull(decoder.toTimestamp("2019-04-09T25:00:00"));
+        assertNull(decoder.toTimestamp("2019-04-09T14:30:01 garbage"));
+        assertNull(decoder.toDate(""));
+    }
+}
@@ -0,0 +1,39 @@
+package com.kordata.odbcbridge;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class LongHashSetShould {
+    @Test
+    public void trackZeroAndNegativeKeys() {
+        LongHashSet set = new LongHashSet();
+
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        assertTrue(set.add(-1));
+        assertTrue(set.contains(0));
+        assertTrue(set.contains(-1));
+        assertFalse(set.contains(1));
+        assertEquals(2, set.size());
+    }
+
+    @Test
+    public void matchAHashSetAcrossResizes() {
+        LongHashSet set = new LongHashSet(4);
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(3);
+
+        for (int i = 0; i < 10000; i++) {
+            long key = random.nextInt(20000) - 10000;
+            assertEquals(expected.add(key), set.add(key));
+        }
+
+        assertEquals(expected.size(), set.size());
+        for (long key = -10000; key < 10000; key++) {
+            assertEquals(expected.contains(key), set.contains(key));
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.kordata.odbcbridge;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import static org.junit.Assert.*;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.io.ByteStreams;
+
+public class MemoryBudgetShould {
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final MockWebServer server = new MockWebServer();
+    private final OdbcDriver driver = new OdbcDriver();
+    private final long globalLimit = MemoryBudget.global().getLimit();
+
+    private Connection connection;
+    private String connectionString;
+
+    @Before
+    public void setUp() throws IOException {
+        server.start();
+
+        HttpUrl baseUrl = server.url("/");
+        connectionString = "jdbc:odbcbridge://" + baseUrl.host() + ":" + baseUrl.port()
+                + ";databaseName=a_database;user=aUser;password=aPassword;useSsl=false;";
+    }
+
+    @After
+    public void tearDown() throws IOException, SQLException {
+        if (connection != null) {
+            connection.close();
+        }
+
+        server.shutdown();
+        MemoryBudget.global().setLimit(globalLimit);
+    }
+
+    private String buildQueryResponse(int rows) throws IOException {
+        ObjectNode response = mapper.createObjectNode();
+        response.putArray("schema").addObject().put("columnName", "Name").put("dataType",
+                "string");
+        ArrayNode results = response.putArray("results");
+        for (int i = 0; i < rows; i++) {
+            results.addObject().put("Name", "Customer " + i);
+        }
+
+        return mapper.writeValueAsString(response);
+    }
+
+    @Test
+    public void accountForOpenResultsUntilTheyAreClosed() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(200));
+        server.enqueue(new MockResponse().setBody(buildQueryResponse(10)));
+
+        connection = driver.connect(connectionString, null);
+        MemoryBudget.Account account = ((OdbcConnection) connection).getMemoryAccount();
+
+        ResultSet rs = connection.createStatement().executeQuery("SELECT Name FROM Customers");
+        assertTrue(account.getUsedBytes() > 0);
+
+        rs.close();
+        assertEquals(0, account.getUsedBytes());
+    }
+
+    @Test
+    public void releaseResultsWhenTheirStatementCloses() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(200));
+        server.enqueue(new MockResponse().setBody(buildQueryResponse(10)));
+
+        connection = driver.connect(connectionString, null);
+        MemoryBudget.Account account = ((OdbcConnection) connection).getMemoryAccount();
+
+        Statement statement = connection.createStatement();
+        statement.executeQuery("SELECT Name FROM Customers");
+        assertTrue(account.getUsedBytes() > 0);
+
+        statement.close();
+        assertEquals(0, account.getUsedBytes());
+    }
+
+    @Test
+    public void ignoreBudgetsInTheConnectionUrl() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(200));
+
+        connection = driver.connect(connectionString + "memoryBudget=2048;", null);
+
+        assertEquals(globalLimit, MemoryBudget.global().getLimit());
+    }
+
+    @Test
+    public void failFastOnceTheBudgetIsExhausted() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(200));
+        server.enqueue(new MockResponse().setBody(buildQueryResponse(100)));
+        server.enqueue(new MockResponse().setBody(buildQueryResponse(1)));
+
+        MemoryBudget.global().setLimit(2048);
+        connection = driver.connect(connectionString + "memoryPolicy=fail;", null);
+
+        try {
+            connection.createStatement().executeQuery("SELECT Name FROM Customers");
+            fail("Expected the result to exceed the budget");
+        } catch (SQLException e) {
+            assertTrue(e.getMessage().contains("budget"));
+        }
+
+        // The failed result gave its reservation back.
+        assertEquals(0, MemoryBudget.global().getUsedBytes());
+        ResultSet rs = connection.createStatement().executeQuery("SELECT Name FROM Customers");
+        assertTrue(rs.next());
+    }
+
+    @Test
+    public void spillResultsOnceTheBudgetIsExhausted() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(200));
+        server.enqueue(new MockResponse().setBody(buildQueryResponse(100)));
+
+        MemoryBudget.global().setLimit(2048);
+        connection = driver.connect(connectionString, null);
+
+        ResultSet rs = connection.createStatement().executeQuery("SELECT Name FROM Customers");
+        assertEquals(0, ((OdbcConnection) connection).getMemoryAccount().getUsedBytes());
+        assertTrue(rs.last());
+        assertEquals("Customer 99", rs.getString(1));
+    }
+
+    @Test
+    public void blockAdmissionUntilAResultIsReleased() throws Exception {
+        MemoryBudget budget = new MemoryBudget(100);
+        MemoryBudget.Account holder = budget.newAccount();
+        MemoryBudget.Account waiter = budget.newAccount();
+        waiter.setPolicy(MemoryBudget.Policy.BLOCK);
+
+        MemoryBudget.Reservation held = holder.newReservation();
+        assertTrue(held.tryGrow(100));
+        assertFalse(waiter.newReservation().tryGrow(1));
+
+        CompletableFuture<Boolean> admitted = CompletableFuture.supplyAsync(() -> {
+            try {
+                return waiter.admit();
+            } catch (IOException e) {
+                return false;
+            }
+        });
+
+        Thread.sleep(50);
+        assertFalse(admitted.isDone());
+
+        held.close();
+        assertTrue(admitted.get(5, TimeUnit.SECONDS));
+        assertEquals(0, budget.getUsedBytes());
+    }
+
+    @Test
+    public void reserveWholeBodiesBeforeBufferingThem() throws Exception {
+        MemoryBudget budget = new MemoryBudget(4096);
+        MemoryBudget.Reservation reservation = budget.newAccount().newReservation();
+        byte[] body = new byte[3000];
+
+        BridgeAPI.BufferedBody buffered = BridgeAPI.bufferBody(new ByteArrayInputStream(body),
+                body.length, Long.MAX_VALUE, reservation);
+        assertEquals(3000, buffered.bytes.length);
+        assertEquals(3000, budget.getUsedBytes());
+
+        // Too big for what's left, so the body is streamed untouched.
+        InputStream in = new ByteArrayInputStream(body);
+        buffered = BridgeAPI.bufferBody(in, body.length, Long.MAX_VALUE, reservation);
+        assertNull(buffered.bytes);
+        assertSame(in, buffered.stream);
+        assertEquals(3000, budget.getUsedBytes());
+
+        reservation.close();
+        assertEquals(0, budget.getUsedBytes());
+    }
+
+    @Test
+    public void streamBodiesOfUnknownLengthThatOutgrowTheBudget() throws Exception {
+        MemoryBudget budget = new MemoryBudget(20_000);
+        MemoryBudget.Reservation reservation = budget.newAccount().newReservation();
+        byte[] body = new byte[50_000];
+        new Random(3).nextBytes(body);
+
+        BridgeAPI.BufferedBody buffered = BridgeAPI.bufferBody(new ByteArrayInputStream(body),
+                -1, Long.MAX_VALUE, reservation);
+
+        assertNull(buffered.bytes);
+        assertArrayEquals(body, ByteStreams.toByteArray(buffered.stream));
+        assertTrue(budget.getUsedBytes() <= 20_000);
+
+        reservation.close();
+        buffered = BridgeAPI.bufferBody(new ByteArrayInputStream(body, 0, 10_000), -1,
+                Long.MAX_VALUE, reservation);
+        assertArrayEquals(Arrays.copyOf(body, 10_000), buffered.bytes);
+    }
+
+    @Test
+    public void rejectBodiesTooLargeForAnArray() {
+        try {
+            BridgeAPI.bufferBody(new ByteArrayInputStream(new byte[0]),
+                    Integer.MAX_VALUE + 1L, Long.MAX_VALUE, null);
+            fail("Expected the body to be rejected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("too large"));
+        }
+    }
+}
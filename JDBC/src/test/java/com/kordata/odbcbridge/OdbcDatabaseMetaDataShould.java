@@ -0,0 +1,208 @@
+package com.kordata.odbcbridge;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+public class OdbcDatabaseMetaDataShould {
+    private final ObjectMapper mapper;
+    private final MockWebServer server;
+    private final OdbcDriver driver;
+
+    private Connection connection;
+    private String connectionString;
+
+    private String buildConnectionString(HttpUrl baseUrl) {
+        return "jdbc:odbcbridge://" + baseUrl.host() + ":" + baseUrl.port()
+                + ";databaseName=a_database;user=aUser;password=aPassword;useSsl=false;";
+    }
+
+    public OdbcDatabaseMetaDataShould() {
+        mapper = new ObjectMapper();
+        server = new MockWebServer();
+        driver = new OdbcDriver();
+    }
+
+    private String buildSchemaResponseString() throws IOException {
+        ObjectNode response = mapper.createObjectNode();
+
+        ArrayNode tables = response.putArray("tables");
+        tables.addObject().put("TABLE_NAME", "Customers").put("TABLE_TYPE", "TABLE");
+        tables.addObject().put("TABLE_NAME", "Customer_Orders").put("TABLE_TYPE", "TABLE");
+        tables.addObject().put("TABLE_NAME", "CustomerView").put("TABLE_TYPE", "VIEW");
+
+        ArrayNode columns = response.putArray("columns");
+        columns.addObject().put("TABLE_NAME", "Customers").put("COLUMN_NAME", "ID")
+                .put("DATA_TYPE", 4).put("TYPE_NAME", "COUNTER").put("NULLABLE", 0)
+                .put("ORDINAL_POSITION", 1);
+        columns.addObject().put("TABLE_NAME", "Customers").put("COLUMN_NAME", "LastName")
+                .put("DATA_TYPE", -9).put("TYPE_NAME", "VARCHAR").put("COLUMN_SIZE", 50)
+                .put("NULLABLE", 1).put("ORDINAL_POSITION", 2);
+        columns.addObject().put("TABLE_NAME", "Customer_Orders").put("COLUMN_NAME", "Placed")
+                .put("DATA_TYPE", 11).put("TYPE_NAME", "DATETIME").put("NULLABLE", 2)
+                .put("ORDINAL_POSITION", 1);
+
+        ArrayNode indexes = response.putArray("indexes");
+        indexes.addObject().put("TABLE_NAME", "Customers").put("INDEX_NAME", "PrimaryKey")
+                .put("NON_UNIQUE", 0).put("TYPE", 3).put("ORDINAL_POSITION", 1)
+                .put("COLUMN_NAME", "ID").put("CARDINALITY", 5000000000L).put("PAGES", 1);
+
+        return mapper.writeValueAsString(response);
+    }
+
+    @Before
+    public void setUp() throws IOException, SQLException {
+        server.start();
+        connectionString = buildConnectionString(server.url("/"));
+
+        server.enqueue(new MockResponse().setResponseCode(200));
+        server.enqueue(new MockResponse().setBody(buildSchemaResponseString()));
+
+        connection = driver.connect(connectionString, null);
+    }
+
+    @After
+    public void tearDown() throws IOException, SQLException {
+        if (connection != null) {
+            connection.close();
+        }
+        if (server != null) {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void filterTablesByPatternAndType() throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+
+        ResultSet rs = metaData.getTables(null, null, "customer%", new String[] {"TABLE"});
+
+        assertTrue(rs.next());
+        assertEquals("Customer_Orders", rs.getString("TABLE_NAME"));
+        assertTrue(rs.next());
+        assertEquals("Customers", rs.getString("TABLE_NAME"));
+        assertFalse(rs.next());
+    }
+
+    @Test
+    public void honorEscapedWildcards() throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        String pattern = "Customer" + metaData.getSearchStringEscape() + "_Orders";
+
+        ResultSet rs = metaData.getTables(null, null, pattern, null);
+
+        assertTrue(rs.next());
+        assertEquals("Customer_Orders", rs.getString("TABLE_NAME"));
+        assertFalse(rs.next());
+    }
+
+    @Test
+    public void describeColumnsWithJdbcTypes() throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+
+        ResultSet rs = metaData.getColumns(null, null, "%", "%");
+
+        assertTrue(rs.next());
+        assertEquals("Customer_Orders", rs.getString("TABLE_NAME"));
+        assertEquals(Types.TIMESTAMP, rs.getInt("DATA_TYPE"));
+        assertEquals("", rs.getString("IS_NULLABLE"));
+        assertTrue(rs.next());
+        assertEquals("ID", rs.getString("COLUMN_NAME"));
+        assertEquals("YES", rs.getString("IS_AUTOINCREMENT"));
+        assertEquals("NO", rs.getString("IS_NULLABLE"));
+        assertTrue(rs.next());
+        assertEquals("LastName", rs.getString("COLUMN_NAME"));
+        assertEquals(Types.NVARCHAR, rs.getInt("DATA_TYPE"));
+        assertEquals("YES", rs.getString("IS_NULLABLE"));
+        assertFalse(rs.next());
+    }
+
+    @Test
+    public void reportIndexStatisticsAsLongs() throws SQLException {
+        ResultSet rs = connection.getMetaData().getIndexInfo(null, null, "Customers", false, true);
+
+        assertEquals(Types.BIGINT, rs.getMetaData().getColumnType(11));
+        assertEquals(Types.BIGINT, rs.getMetaData().getColumnType(12));
+        assertTrue(rs.next());
+        assertEquals(5000000000L, rs.getLong("CARDINALITY"));
+        assertEquals(5000000000L, rs.getObject("CARDINALITY"));
+        assertFalse(rs.next());
+    }
+
+    @Test
+    public void reportPrimaryKeys() throws SQLException {
+        ResultSet rs = connection.getMetaData().getPrimaryKeys(null, null, "customers");
+
+        assertTrue(rs.next());
+        assertEquals("ID", rs.getString("COLUMN_NAME"));
+        assertEquals(1, rs.getShort("KEY_SEQ"));
+        assertFalse(rs.next());
+    }
+
+    @Test
+    public void loadTheCatalogOnce() throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+
+        metaData.getTables(null, null, "%", null);
+        metaData.getColumns(null, null, "Customers", "%");
+        connection.getMetaData().getPrimaryKeys(null, null, "Customers");
+
+        // The health check plus a single schema request.
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void shareOneLoadBetweenConcurrentCallers() throws Exception {
+        MockWebServer slow = new MockWebServer();
+        slow.enqueue(new MockResponse().setResponseCode(500));
+        slow.enqueue(new MockResponse().setBody(buildSchemaResponseString())
+                .setBodyDelay(200, TimeUnit.MILLISECONDS));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            BridgeAPI api = new BridgeAPI();
+            api.setURL(buildConnectionString(slow.url("/")));
+
+            // A failed load isn't cached; the next caller tries again.
+            try {
+                SchemaCatalog.forDatabase(api);
+                fail("Expected the 500 to fail the load");
+            } catch (IOException e) {
+                assertEquals(1, slow.getRequestCount());
+            }
+
+            List<Future<SchemaCatalog>> loads = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                loads.add(executor.submit(() -> SchemaCatalog.forDatabase(api)));
+            }
+
+            SchemaCatalog catalog = loads.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<SchemaCatalog> load : loads) {
+                assertSame(catalog, load.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(2, slow.getRequestCount());
+        } finally {
+            executor.shutdownNow();
+            slow.shutdown();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.kordata.odbcbridge;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneId;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class OdbcPreparedStatementShould {
+    private final ObjectMapper mapper;
+    private final MockWebServer server;
+    private final OdbcDriver driver;
+
+    private Connection connection;
+
+    private String buildConnectionString(HttpUrl baseUrl) {
+        return "jdbc:odbcbridge://" + baseUrl.host() + ":" + baseUrl.port()
+                + ";databaseName=a_database;user=aUser;password=aPassword;useSsl=false;";
+    }
+
+    public OdbcPreparedStatementShould() {
+        mapper = new ObjectMapper();
+        server = new MockWebServer();
+        driver = new OdbcDriver();
+    }
+
+    @Before
+    public void setUp() throws IOException, SQLException {
+        server.start();
+        server.enqueue(new MockResponse().setResponseCode(200));
+
+        connection = driver.connect(buildConnectionString(server.url("/")), null);
+    }
+
+    @After
+    public void tearDown() throws IOException, SQLException {
+        if (connection != null) {
+            connection.close();
+        }
+        if (server != null) {
+            server.shutdown();
+        }
+    }
+
+    private JsonNode takeParameters() throws IOException, InterruptedException {
+        server.takeRequest();
+        RecordedRequest request = server.takeRequest();
+
+        return mapper.readTree(request.getBody().readUtf8()).get("parameters");
+    }
+
+    @Test
+    public void bindParametersByOneBasedIndex() throws Exception {
+        server.enqueue(new MockResponse().setBody("{\"rowsAffected\":1}"));
+
+        PreparedStatement statement = connection
+                .prepareStatement("UPDATE Customers SET Name = ?, Balance = ? WHERE ID = ?");
+        statement.setInt(3, 7);
+        statement.setString(1, "Ada");
+        statement.setBigDecimal(2, new BigDecimal("12.50"));
+        statement.executeUpdate();
+
+        JsonNode parameters = takeParameters();
+        assertEquals(3, parameters.size());
+        assertEquals("Ada", parameters.get(0).textValue());
+        assertEquals(12.5, parameters.get(1).doubleValue(), 0);
+        assertEquals(7, parameters.get(2).intValue());
+    }
+
+    @Test
+    public void reuseSlotsAfterClearParameters() throws Exception {
+        server.enqueue(new MockResponse().setBody("{\"rowsAffected\":1}"));
+
+        PreparedStatement statement =
+                connection.prepareStatement("DELETE FROM Customers WHERE ID = ?");
+        statement.setInt(1, 1);
+        statement.clearParameters();
+        statement.setObject(1, 2L);
+        statement.executeUpdate();
+
+        assertEquals(2, takeParameters().get(0).intValue());
+    }
+
+    @Test
+    public void sendTimestampsInTheConnectionTimeZone() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(200));
+        server.enqueue(new MockResponse().setBody("{\"rowsAffected\":1}"));
+
+        Timestamp written = Timestamp.from(Instant.parse("2019-04-09T14:30:01.25Z"));
+        try (Connection zoned = driver.connect(
+                buildConnectionString(server.url("/")) + "timeZone=America/New_York;", null)) {
+            PreparedStatement statement =
+                    zoned.prepareStatement("UPDATE Customers SET Visited = ? WHERE ID = 1");
+            statement.setTimestamp(1, written);
+            statement.executeUpdate();
+        }
+
+        server.takeRequest();
+        String sent = takeParameters().get(0).textValue();
+
+        assertEquals("2019-04-09 10:30:01.25", sent);
+        assertEquals(written,
+                new DateTimeDecoder(ZoneId.of("America/New_York")).toTimestamp(sent));
+    }
+
+    @Test
+    public void rejectMissingAndOutOfRangeParameters() throws SQLException {
+        PreparedStatement statement =
+                connection.prepareStatement("DELETE FROM Customers WHERE ID = ?");
+
+        try {
+            statement.setInt(2, 1);
+            fail();
+        } catch (SQLException e) {
+            assertEquals("Parameter index out of range: 2", e.getMessage());
+        }
+
+        try {
+            statement.executeUpdate();
+            fail();
+        } catch (SQLException e) {
+            assertEquals("No value specified for parameter 1", e.getMessage());
+        }
+    }
+
+    @Test
+    public void sendBatchesInOneRequest() throws Exception {
+        server.enqueue(new MockResponse().setBody("{\"rowsAffected\":[1,0]}"));
+
+        PreparedStatement statement =
+                connection.prepareStatement("UPDATE Customers SET Name = ? WHERE ID = ?");
+        statement.setString(1, "Ada");
+        statement.setInt(2, 1);
+        statement.addBatch();
+        statement.setInt(2, 2);
+        statement.addBatch();
+
+        assertArrayEquals(new int[] {1, 0}, statement.executeBatch());
+
+        server.takeRequest();
+        RecordedRequest request = server.takeRequest();
+        JsonNode sets = mapper.readTree(request.getBody().readUtf8()).get("parameterSets");
+
+        assertEquals("/v1/a_database/batch", request.getPath());
+        assertEquals("[[\"Ada\",1],[\"Ada\",2]]", sets.toString());
+        assertArrayEquals(new int[0], statement.executeBatch());
+    }
+}
@@ -0,0 +1,124 @@
+package com.kordata.odbcbridge;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Locale;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+public class OdbcResultSetMetaDataShould {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private ArrayNode buildSchema() {
+        ArrayNode schema = mapper.createArrayNode();
+
+        ObjectNode id = schema.addObject();
+        id.put("columnName", "ID");
+        id.put("dataType", "int");
+        id.put("allowDBNull", false);
+        id.put("isAutoIncrement", true);
+        id.put("isReadOnly", false);
+
+        ObjectNode balance = schema.addObject();
+        balance.put("columnName", "Balance");
+        balance.put("dataType", "decimal");
+        balance.put("dataTypeName", "CURRENCY");
+        balance.put("numericPrecision", 19);
+        balance.put("numericScale", 4);
+        balance.put("allowDBNull", true);
+
+        ObjectNode notes = schema.addObject();
+        notes.put("columnName", "Notes");
+        notes.put("dataType", "string");
+        notes.put("isLong", true);
+        notes.put("isReadOnly", true);
+
+        ObjectNode photo = schema.addObject();
+        photo.put("columnName", "Photo");
+        photo.put("dataType", "unknown");
+        photo.put("dataTypeName", "LONGBINARY");
+        photo.put("isLong", true);
+
+        return schema;
+    }
+
+    @Test
+    public void mapBridgeTypesToJdbcTypes() throws SQLException {
+        ResultSetMetaData metaData = new OdbcResultSetMetaData(buildSchema());
+
+        assertEquals(Types.INTEGER, metaData.getColumnType(1));
+        assertEquals(Types.DECIMAL, metaData.getColumnType(2));
+        assertEquals(Types.LONGVARCHAR, metaData.getColumnType(3));
+        assertEquals(Types.LONGVARBINARY, metaData.getColumnType(4));
+        assertEquals(byte[].class.getName(), metaData.getColumnClassName(4));
+    }
+
+    @Test
+    public void reportColumnFlags() throws SQLException {
+        ResultSetMetaData metaData = new OdbcResultSetMetaData(buildSchema());
+
+        assertTrue(metaData.isAutoIncrement(1));
+        assertEquals(ResultSetMetaData.columnNoNulls, metaData.isNullable(1));
+        assertTrue(metaData.isSigned(2));
+        assertTrue(metaData.isCurrency(2));
+        assertEquals(4, metaData.getScale(2));
+        assertTrue(metaData.isReadOnly(3));
+        assertFalse(metaData.isSigned(3));
+    }
+
+    @Test
+    public void findColumnsIgnoringCase() {
+        OdbcResultSetMetaData metaData = new OdbcResultSetMetaData(buildSchema());
+
+        assertEquals(2, metaData.findColumn("Balance"));
+        assertEquals(3, metaData.findColumn("NOTES"));
+        assertEquals(0, metaData.findColumn("Missing"));
+    }
+
+    @Test
+    public void findColumnsIgnoringCaseInAnyLocale() throws SQLException {
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            ArrayNode schema = buildSchema();
+            ((ObjectNode) schema.get(3)).put("dataTypeName", "longbinary");
+            OdbcResultSetMetaData metaData = new OdbcResultSetMetaData(schema);
+
+            assertEquals(1, metaData.findColumn("id"));
+            assertEquals(Types.LONGVARBINARY, metaData.getColumnType(4));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    public void rejectOutOfRangeColumns() {
+        ResultSetMetaData metaData = new OdbcResultSetMetaData(buildSchema());
+
+        try {
+            metaData.getColumnType(5);
+            fail();
+        } catch (SQLException e) {
+            assertEquals("Column index out of bounds", e.getMessage());
+        }
+    }
+
+    @Test
+    public void shareCompiledMetaDataAcrossResultsWithTheSameSchema() {
+        OdbcStatement statement = new OdbcStatement(null, null);
+
+        OdbcResultSetMetaData first = statement.getMetaData(buildSchema());
+        OdbcResultSetMetaData second = statement.getMetaData(buildSchema());
+
+        ArrayNode otherSchema = buildSchema();
+        otherSchema.remove(3);
+        OdbcResultSetMetaData third = statement.getMetaData(otherSchema);
+
+        assertSame(first, second);
+        assertNotSame(first, third);
+    }
+}
@@ -12,6 +12,11 @@ import okhttp3.mockwebserver.MockWebServer;
 import static org.junit.Assert.*;
 import static org.junit.Assume.assumeNoException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.sql.Blob;
+import java.sql.Clob;
 import java.sql.Connection;
 import java.sql.Date;
 import java.sql.ResultSet;
@@ -22,11 +27,18 @@ import java.sql.Timestamp;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Spliterator;
 import java.util.stream.IntStream;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.google.common.base.Strings;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CharStreams;
 
 public class OdbcResultSetShould {
     private final ObjectMapper mapper;
@@ -443,4 +455,512 @@ public class OdbcResultSetShould {
             assumeNoException(e);
         }
     }
+
+    private String buildLobResponseString(byte[] photo, String notes)
+            throws JsonProcessingException {
+        ObjectNode response = mapper.createObjectNode();
+
+        ArrayNode schema = response.putArray("schema");
+        schema.addObject().put("columnName", "Photo").put("dataType", "unknown")
+                .put("dataTypeName", "LONGBINARY").put("isLong", true);
+        schema.addObject().put("columnName", "Notes").put("dataType", "string")
+                .put("isLong", true);
+
+        ArrayNode results = response.putArray("results");
+        results.addObject().put("Photo", photo).put("Notes", notes);
+
+        return mapper.writeValueAsString(response);
+    }
+
+    @Test
+    public void streamBinaryColumns() throws Exception {
+        byte[] photo = new byte[64 * 1024];
+        new Random(42).nextBytes(photo);
+
+        server.enqueue(new MockResponse().setResponseCode(200));
+        server.enqueue(new MockResponse().setBody(buildLobResponseString(photo, "short")));
+
+        connection = driver.connect(connectionString + "lobSpillThreshold=1024;", null);
+        statement = connection.createStatement();
+
+        ResultSet rs = statement.executeQuery("SELECT Photo, Notes FROM Customers");
+        rs.next();
+
+        try (InputStream in = rs.getBinaryStream("Photo")) {
+            assertArrayEquals(photo, ByteStreams.toByteArray(in));
+        }
+
+        Blob blob = rs.getBlob(1);
+        assertEquals(photo.length, blob.length());
+        assertArrayEquals(Arrays.copyOfRange(photo, 10, 20), blob.getBytes(11, 10));
+        assertArrayEquals(photo, rs.getBytes("Photo"));
+    }
+
+    @Test
+    public void streamMemoColumns() throws Exception {
+        String notes = Strings.repeat("Notes \u00e9 ", 500);
+
+        server.enqueue(new MockResponse().setResponseCode(200));
+        server.enqueue(new MockResponse().setBody(buildLobResponseString(new byte[0], notes)));
+
+        connection = driver.connect(connectionString + "lobSpillThreshold=1024;", null);
+        statement = connection.createStatement();
+
+        ResultSet rs = statement.executeQuery("SELECT Photo, Notes FROM Customers");
+        rs.next();
+
+        try (Reader reader = rs.getCharacterStream("Notes")) {
+            assertEquals(notes, CharStreams.toString(reader));
+        }
+
+        Clob clob = rs.getClob("Notes");
+        assertEquals(notes.length(), clob.length());
+        assertEquals("Notes \u00e9", clob.getSubString(1, 7));
+        assertEquals(notes, rs.getString("Notes"));
+    }
+
+    @Test
+    public void deleteLobFilesWhenTheStatementCloses() throws Exception {
+        byte[] photo = new byte[64 * 1024];
+        new Random(42).nextBytes(photo);
+
+        server.enqueue(new MockResponse().setResponseCode(200));
+        server.enqueue(new MockResponse().setBody(buildLobResponseString(photo, "short")));
+
+        int filesBefore = tempFiles("odbcbridge-lob");
+        connection = driver.connect(connectionString + "lobSpillThreshold=1024;", null);
+        statement = connection.createStatement();
+
+        ResultSet rs = statement.executeQuery("SELECT Photo, Notes FROM Customers");
+        assertEquals(filesBefore + 1, tempFiles("odbcbridge-lob"));
+
+        statement.close();
+        assertTrue(rs.isClosed());
+        assertEquals(filesBefore, tempFiles("odbcbridge-lob"));
+    }
+
+    @Test
+    public void streamRowsInParallel() throws Exception {
+        ObjectNode response = mapper.createObjectNode();
+        response.putArray("schema").addObject().put("columnName", "Amount")
+                .put("dataType", "decimal");
+        ArrayNode results = response.putArray("results");
+        for (int i = 1; i <= 10000; i++) {
+            results.addObject().put("Amount", i + ".25");
+        }
+
+        server.enqueue(new MockResponse().setResponseCode(200));
+        server.enqueue(new MockResponse().setBody(mapper.writeValueAsString(response)));
+
+        connection = driver.connect(connectionString, null);
+        statement = connection.createStatement();
+
+        OdbcResultSet rs = statement.executeQuery("SELECT Amount FROM Orders")
+                .unwrap(OdbcResultSet.class);
+        Spliterator<Row> rows = rs.stream().spliterator();
+
+        assertTrue(rows.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+        assertEquals(5000, rows.trySplit().estimateSize());
+
+        BigDecimal total = rs.stream().parallel().map(row -> row.getBigDecimal(1))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        assertEquals(new BigDecimal("50007500.00"), total);
+        assertTrue(rs.next());
+        assertEquals("1.25", rs.getString("Amount"));
+    }
+
+    @Test
+    public void scanPrimitivesThroughACursor() throws Exception {
+        ObjectNode response = mapper.createObjectNode();
+        ArrayNode schema = response.putArray("schema");
+        schema.addObject().put("columnName", "ID").put("dataType", "int");
+        schema.addObject().put("columnName", "Name").put("dataType", "string");
+        schema.addObject().put("columnName", "Price").put("dataType", "double");
+        ArrayNode results = response.putArray("results");
+        for (int i = 0; i < 100; i++) {
+            ObjectNode row = results.addObject().put("ID", i).put("Name", "Item " + i);
+            if (i % 10 == 0) {
+                row.putNull("Price");
+            } else {
+                row.put("Price", i * 1.5);
+            }
+        }
+
+        server.enqueue(new MockResponse().setResponseCode(200));
+        server.enqueue(new MockResponse().setBody(mapper.writeValueAsString(response)));
+
+        connection = driver.connect(connectionString, null);
+        statement = connection.createStatement();
+
+        RowCursor cursor = statement.executeQuery("SELECT * FROM Items")
+                .unwrap(OdbcResultSet.class).cursor();
+
+        double total = 0;
+        int nulls = 0;
+        while (cursor.next()) {
+            if (cursor.isNull(3)) {
+                nulls++;
+            } else {
+                total += cursor.getDouble(3);
+            }
+        }
+
+        assertEquals(10, nulls);
+        assertEquals(6750, total, 0);
+
+        cursor.absolute(42);
+        assertEquals(42, cursor.getLong(1));
+        assertEquals("Item 42", cursor.getChars(2).toString());
+
+        long[] ids = new long[32];
+        assertEquals(20, cursor.fetchColumn(1, ids, 80, 32));
+        assertEquals(99, ids[19]);
+        assertTrue(cursor.isNull(3, 90));
+    }
+
+    @Test
+    public void readSingleCellsFromEveryRowStorage() throws Exception {
+        ObjectNode response = mapper.createObjectNode();
+        ArrayNode schema = response.putArray("schema");
+        schema.addObject().put("columnName", "ID").put("dataType", "int");
+        schema.addObject().put("columnName", "Name").put("dataType", "string");
+        schema.addObject().put("columnName", "Price").put("dataType", "double");
+        ArrayNode results = response.putArray("results");
+        for (int i = 0; i < 100; i++) {
+            ObjectNode row = results.addObject().put("ID", i == 7 ? -(1L << 40) : i)
+                    .put("Name", "Item " + i);
+            if (i % 10 == 0) {
+                row.putNull("Price");
+            } else {
+                row.put("Price", i * 1.5);
+            }
+        }
+        String body = mapper.writeValueAsString(response);
+
+        for (String storage : new String[] {"resultStorage=offheap;", "resultStorage=lazy;",
+                "resultHeapBudget=1024;"}) {
+            server.enqueue(new MockResponse().setResponseCode(200));
+            server.enqueue(new MockResponse().setBody(body));
+
+            connection = driver.connect(connectionString + storage, null);
+            ResultSet rs = connection.createStatement().executeQuery("SELECT * FROM Items");
+            RowCursor cursor = rs.unwrap(OdbcResultSet.class).cursor();
+
+            double total = 0;
+            int nulls = 0;
+            while (cursor.next()) {
+                if (cursor.isNull(3)) {
+                    nulls++;
+                } else {
+                    total += cursor.getDouble(3);
+                }
+            }
+
+            assertEquals(storage, 10, nulls);
+            assertEquals(storage, 7425 - 675, total, 0);
+
+            cursor.absolute(7);
+            assertEquals(storage, -(1L << 40), cursor.getLong(1));
+            assertEquals(storage, 10.5, cursor.getDouble(3), 0);
+            assertEquals(storage, "Item 7", cursor.getChars(2).toString());
+
+            long[] ids = new long[32];
+            double[] prices = new double[32];
+            assertEquals(storage, 20, cursor.fetchColumn(1, ids, 80, 32));
+            assertEquals(storage, 20, cursor.fetchColumn(3, prices, 80, 32));
+            assertEquals(storage, 99, ids[19]);
+            assertEquals(storage, 0, prices[10], 0);
+            assertEquals(storage, 148.5, prices[19], 0);
+            assertTrue(storage, cursor.isNull(3, 90));
+
+            assertTrue(storage, rs.absolute(91));
+            assertEquals(storage, 0, rs.getInt("Price"));
+            assertTrue(storage, rs.wasNull());
+            assertTrue(storage, rs.next());
+            assertEquals(storage, 91, rs.getShort("ID"));
+            assertEquals(storage, 136.5f, rs.getFloat("Price"), 0);
+            assertFalse(storage, rs.wasNull());
+
+            connection.close();
+        }
+    }
+
+    private static int spilledFiles() {
+        return tempFiles("odbcbridge-rows");
+    }
+
+    private static int tempFiles(String prefix) {
+        String[] files = new java.io.File(System.getProperty("java.io.tmpdir"))
+                .list((dir, name) -> name.startsWith(prefix));
+        return files == null ? 0 : files.length;
+    }
+
+    @Test
+    public void spillResultsPastTheHeapBudget() throws Exception {
+        ObjectNode response = mapper.createObjectNode();
+        ArrayNode schema = response.putArray("schema");
+        schema.addObject().put("columnName", "ID").put("dataType", "int");
+        schema.addObject().put("columnName", "Name").put("dataType", "string");
+        schema.addObject().put("columnName", "Price").put("dataType", "double");
+        ArrayNode results = response.putArray("results");
+        for (int i = 0; i < 500; i++) {
+            ObjectNode row = results.addObject().put("ID", i - 250).put("Name", "It\u00e9m " + i);
+            if (i % 10 == 0) {
+                row.putNull("Price");
+            } else {
+                row.put("Price", i * 1.5);
+            }
+        }
+
+        server.enqueue(new MockResponse().setResponseCode(200));
+        server.enqueue(new MockResponse().setBody(mapper.writeValueAsString(response)));
+
+        int filesBefore = spilledFiles();
+        connection = driver.connect(connectionString + "resultHeapBudget=1024;", null);
+        statement = connection.createStatement();
+
+        ResultSet rs = statement.executeQuery("SELECT * FROM Items");
+        assertEquals(filesBefore + 1, spilledFiles());
+
+        assertTrue(rs.last());
+        assertEquals(249, rs.getInt("ID"));
+        assertEquals("It\u00e9m 499", rs.getString("Name"));
+
+        assertTrue(rs.absolute(11));
+        assertEquals(-240, rs.getInt(1));
+        assertEquals(0, rs.getDouble(3), 0);
+        assertTrue(rs.wasNull());
+
+        assertTrue(rs.previous());
+        assertEquals(13.5, rs.getDouble("Price"), 0);
+
+        assertEquals(500, rs.unwrap(OdbcResultSet.class).stream().count());
+
+        rs.close();
+        assertEquals(filesBefore, spilledFiles());
+    }
+
+    @Test
+    public void deleteSpilledRowsWhenTheStatementClosesOrReexecutes() throws Exception {
+        ObjectNode response = mapper.createObjectNode();
+        response.putArray("schema").addObject().put("columnName", "Name")
+                .put("dataType", "string");
+        ArrayNode results = response.putArray("results");
+        for (int i = 0; i < 500; i++) {
+            results.addObject().put("Name", "Item " + i);
+        }
+        String body = mapper.writeValueAsString(response);
+
+        server.enqueue(new MockResponse().setResponseCode(200));
+        server.enqueue(new MockResponse().setBody(body));
+        server.enqueue(new MockResponse().setBody(body));
+
+        int filesBefore = spilledFiles();
+        connection = driver.connect(connectionString + "resultHeapBudget=1024;", null);
+        statement = connection.createStatement();
+
+        ResultSet first = statement.executeQuery("SELECT Name FROM Items");
+        ResultSet second = statement.executeQuery("SELECT Name FROM Items");
+        assertTrue(first.isClosed());
+        assertEquals(filesBefore + 1, spilledFiles());
+
+        statement.close();
+        assertTrue(second.isClosed());
+        assertEquals(filesBefore, spilledFiles());
+    }
+
+    private ObjectNode buildTestRecordResponse(int rows) {
+        ObjectNode response = mapper.createObjectNode();
+        ArrayNode schema = response.putArray("schema");
+        String[][] columns = { {"FirstName", "string"}, {"LastName", "string"},
+                {"ADateTime", "dateTime"}, {"ABoolean", "boolean"}, {"AnInteger", "int"},
+                {"ADouble", "double"}, {"ATime", "time"}, {"ADate", "date"},
+                {"ANull", "string"}};
+        for (String[] column : columns) {
+            schema.addObject().put("columnName", column[0]).put("dataType", column[1]);
+        }
+        ArrayNode results = response.putArray("results");
+        IntStream.range(0, rows).mapToObj(this::createTestRecord).forEach(results::add);
+
+        return response;
+    }
+
+    @Test
+    public void readRowsKeptOffHeap() throws Exception {
+        ObjectNode response = buildTestRecordResponse(50);
+        ((ObjectNode) response.path("results").get(7)).put("AnInteger", 1L << 40)
+                .put("ADouble", -0.5);
+
+        server.enqueue(new MockResponse().setResponseCode(200));
+        server.enqueue(new MockResponse().setBody(mapper.writeValueAsString(response)));
+
+        connection = driver.connect(connectionString + "resultStorage=offheap;", null);
+        statement = connection.createStatement();
+
+        ResultSet rs = statement.executeQuery("SELECT * FROM TestRecords");
+
+        assertTrue(rs.absolute(8));
+        assertEquals("fName7", rs.getString("FirstName"));
+        assertEquals(1L << 40, rs.getLong("AnInteger"));
+        assertEquals(-0.5, rs.getDouble("ADouble"), 0);
+        assertTrue(rs.getBoolean("ABoolean"));
+        assertNull(rs.getString("ANull"));
+        assertTrue(rs.wasNull());
+
+        assertTrue(rs.last());
+        assertEquals(49, rs.getInt("AnInteger"));
+        assertEquals(Timestamp.from(Instant.parse("2019-04-09T14:30:01Z")),
+                rs.getTimestamp("ADateTime"));
+        assertTrue(((OdbcConnection) connection).getMemoryAccount().getUsedBytes() > 0);
+
+        rs.close();
+        assertEquals(0, ((OdbcConnection) connection).getMemoryAccount().getUsedBytes());
+    }
+
+    private String buildCustomerResponse(int rows) throws JsonProcessingException {
+        String[] states = {"WA", "OR", "CA"};
+        ObjectNode response = mapper.createObjectNode();
+        ArrayNode schema = response.putArray("schema");
+        schema.addObject().put("columnName", "Name").put("dataType", "string");
+        schema.addObject().put("columnName", "State").put("dataType", "string");
+        ArrayNode results = response.putArray("results");
+        for (int i = 0; i < rows; i++) {
+            results.addObject().put("Name", "Customer " + i).put("State", states[i % 3]);
+        }
+
+        return mapper.writeValueAsString(response);
+    }
+
+    @Test
+    public void shareTextOfLowCardinalityColumns() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(200));
+        server.enqueue(new MockResponse().setBody(buildCustomerResponse(30)));
+        server.enqueue(new MockResponse().setResponseCode(200));
+        server.enqueue(new MockResponse().setBody(buildCustomerResponse(30)));
+
+        connection = driver.connect(connectionString, null);
+        statement = connection.createStatement();
+
+        ResultSet rs = statement.executeQuery("SELECT Name, State FROM Customers");
+        assertTrue(rs.absolute(1));
+        String state = rs.getString("State");
+        assertTrue(rs.absolute(4));
+        assertSame(state, rs.getString("State"));
+        assertEquals("Customer 3", rs.getString("Name"));
+        rs.close();
+
+        connection.close();
+        connection = driver.connect(connectionString + "resultStorage=offheap;", null);
+        statement = connection.createStatement();
+
+        rs = statement.executeQuery("SELECT Name, State FROM Customers");
+        assertTrue(rs.absolute(2));
+        state = rs.getString("State");
+        assertTrue(rs.absolute(29));
+        assertSame(state, rs.getString("State"));
+        assertEquals("OR", state);
+    }
+
+    @Test
+    public void decodeLazilyReadCellsOnly() throws Exception {
+        ObjectNode response = buildTestRecordResponse(20);
+        ((ObjectNode) response.path("results").get(3)).put("LastName", "O\"Brien \u00e9")
+                .put("AnInteger", -70000000000L);
+
+        server.enqueue(new MockResponse().setResponseCode(200));
+        server.enqueue(new MockResponse().setBody(mapper.writeValueAsString(response)));
+
+        connection = driver.connect(connectionString + "resultStorage=lazy;", null);
+        statement = connection.createStatement();
+
+        ResultSet rs = statement.executeQuery("SELECT * FROM TestRecords");
+
+        assertTrue(rs.absolute(4));
+        assertEquals("O\"Brien \u00e9", rs.getString("LastName"));
+        assertEquals("fName3", rs.getString(1));
+        assertEquals(-70000000000L, rs.getLong("AnInteger"));
+        assertEquals(42.3, rs.getDouble("ADouble"), 0);
+        assertEquals(5, rs.findColumn("AnInteger"));
+
+        assertTrue(rs.next());
+        assertNull(rs.getString("ANull"));
+        assertTrue(rs.wasNull());
+        assertTrue(rs.getBoolean("ABoolean"));
+
+        assertEquals(20, rs.unwrap(OdbcResultSet.class).stream()
+                .filter(row -> row.getString("FirstName").startsWith("fName")).count());
+        assertTrue(((OdbcConnection) connection).getMemoryAccount().getUsedBytes() > 0);
+
+        rs.close();
+        assertEquals(0, ((OdbcConnection) connection).getMemoryAccount().getUsedBytes());
+    }
+
+    private String buildInvoiceResponse() throws JsonProcessingException {
+        ObjectNode response = mapper.createObjectNode();
+        response.putArray("schema").addObject().put("columnName", "Amount").put("dataType",
+                "decimal");
+        ArrayNode results = response.putArray("results");
+        results.addObject().putRawValue("Amount", new RawValue("12345678901234.5678"));
+        results.addObject().putRawValue("Amount", new RawValue("0.1000"));
+        results.addObject().putRawValue("Amount", new RawValue("-0.0500"));
+
+        return mapper.writeValueAsString(response);
+    }
+
+    @Test
+    public void readDecimalsExactly() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(200));
+        server.enqueue(new MockResponse().setBody(buildInvoiceResponse()));
+        server.enqueue(new MockResponse().setResponseCode(200));
+        server.enqueue(new MockResponse().setBody(buildInvoiceResponse()));
+
+        connection = driver.connect(connectionString, null);
+        statement = connection.createStatement();
+
+        ResultSet rs = statement.executeQuery("SELECT Amount FROM Invoices");
+        assertTrue(rs.next());
+        assertEquals(new BigDecimal("12345678901234.5678"), rs.getBigDecimal("Amount"));
+        assertEquals(12345678901234L, rs.getLong("Amount"));
+
+        RowCursor cursor = rs.unwrap(OdbcResultSet.class).cursor();
+        long total = 0;
+        while (cursor.next()) {
+            total += cursor.getScaledLong(1, 4);
+        }
+        assertEquals(123456789012345678L + 1000 - 500, total);
+
+        connection.close();
+        connection = driver.connect(connectionString + "resultStorage=offheap;", null);
+        statement = connection.createStatement();
+
+        rs = statement.executeQuery("SELECT Amount FROM Invoices");
+        assertTrue(rs.absolute(3));
+        assertEquals(new BigDecimal("-0.0500"), rs.getBigDecimal("Amount"));
+        assertEquals(-0.05, rs.getDouble("Amount"), 0);
+        assertEquals("-0.0500", rs.getString("Amount"));
+    }
+
+    @Test
+    public void readRowsWithTheConfiguredDecoder() throws Exception {
+        ObjectNode response = buildTestRecordResponse(50);
+        ((ObjectNode) response.path("results").get(7)).put("LastName", "Tab\there");
+
+        server.enqueue(new MockResponse().setResponseCode(200));
+        server.enqueue(new MockResponse().setBody(mapper.writeValueAsString(response)));
+
+        connection = driver.connect(connectionString + "resultDecoder=swar;", null);
+        statement = connection.createStatement();
+
+        ResultSet rs = statement.executeQuery("SELECT * FROM TestRecords");
+
+        assertTrue(rs.absolute(8));
+        assertEquals("Tab\there", rs.getString("LastName"));
+        assertEquals("fName7", rs.getString(1));
+        assertEquals(42.3, rs.getDouble("ADouble"), 0);
+        assertNull(rs.getString("ANull"));
+        assertTrue(rs.getBoolean("ABoolean"));
+        assertTrue(rs.last());
+        assertEquals(50, rs.getRow());
+    }
 }
@@ -0,0 +1,197 @@
+package com.kordata.odbcbridge;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+public class PartitionedScanShould {
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final MockWebServer server = new MockWebServer();
+    private final BridgeAPI api = new BridgeAPI();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+    private volatile int tableSize = 100;
+
+    private String buildConnectionString(HttpUrl baseUrl) {
+        return "jdbc:odbcbridge://" + baseUrl.host() + ":" + baseUrl.port()
+                + ";databaseName=a_database;user=aUser;password=aPassword;useSsl=false;"
+                + "maxScanConcurrency=2;";
+    }
+
+    // Serves a table of IDs 1..tableSize plus one row with a NULL ID, in descending
+    // order within each range so ordered scans have to ask for ORDER BY.
+    private class TableDispatcher extends Dispatcher {
+        @Override
+        public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+            peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+
+            try {
+                Thread.sleep(10);
+
+                JsonNode body = mapper.readTree(request.getBody().readUtf8());
+                String sql = body.get("command").asText();
+                ObjectNode response = mapper.createObjectNode();
+                response.putArray("schema");
+                ArrayNode results = response.putArray("results");
+
+                if (sql.startsWith("SELECT MIN")) {
+                    results.addObject().put("lo", 1).put("hi", tableSize);
+                } else if (sql.contains("IS NULL")) {
+                    results.addObject().putNull("ID");
+                } else {
+                    long start = body.get("parameters").get(0).asLong();
+                    long end = body.get("parameters").get(1).asLong();
+
+                    for (long id = end - 1; id >= start; id--) {
+                        results.addObject().put("ID", id);
+                    }
+
+                    if (sql.endsWith("ORDER BY [ID]")) {
+                        List<JsonNode> sorted = new ArrayList<>();
+                        results.forEach(sorted::add);
+                        sorted.sort((a, b) -> Long.compare(a.get("ID").asLong(),
+                                b.get("ID").asLong()));
+                        results.removeAll();
+                        results.addAll(sorted);
+                    }
+                }
+
+                return new MockResponse().setBody(response.toString());
+            } catch (IOException e) {
+                return new MockResponse().setResponseCode(400);
+            } finally {
+                active.decrementAndGet();
+            }
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException, SQLException {
+        server.setDispatcher(new TableDispatcher());
+        server.start();
+        api.setURL(buildConnectionString(server.url("/")));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void splitTheKeyRangeIntoEvenPartitions() throws IOException {
+        PartitionedScan scan = new PartitionedScan(api, "Customers", "ID");
+        scan.setPartitions(3);
+
+        List<PartitionedScan.Range> ranges = scan.plan();
+
+        assertEquals(4, ranges.size());
+        assertEquals("[ID] IS NULL", ranges.get(0).condition);
+        assertEquals("[1,35]", ranges.get(1).parameters.toString());
+        assertEquals("[35,68]", ranges.get(2).parameters.toString());
+        assertEquals("[68,101]", ranges.get(3).parameters.toString());
+    }
+
+    @Test
+    public void returnEveryRowWithinTheDatabaseLimit() throws IOException {
+        PartitionedScan scan = new PartitionedScan(api, "Customers", "ID");
+        scan.setPartitions(8);
+
+        Set<String> ids = new HashSet<>();
+        try (PartitionedScan.Rows rows = scan.open()) {
+            rows.forEachRemaining(row -> assertTrue(ids.add(row.get("ID").asText())));
+        }
+
+        assertEquals(101, ids.size());
+        assertTrue(peak.get() <= 2);
+    }
+
+    @Test
+    public void keepSplitColumnOrderWhenAsked() throws IOException {
+        PartitionedScan scan = new PartitionedScan(api, "Customers", "ID");
+        scan.setPartitions(4);
+        scan.setOrdered(true);
+
+        List<JsonNode> ids = new ArrayList<>();
+        try (PartitionedScan.Rows rows = scan.open()) {
+            rows.forEachRemaining(row -> ids.add(row.get("ID")));
+        }
+
+        assertEquals(101, ids.size());
+        assertTrue(ids.get(0).isNull());
+        for (int i = 1; i <= 100; i++) {
+            assertEquals(i, ids.get(i).asInt());
+        }
+    }
+
+    @Test
+    public void startOrderedRangesOnlyAsTheyAreRead() throws Exception {
+        PartitionedScan scan = new PartitionedScan(api, "Customers", "ID");
+        scan.setPartitions(8);
+        scan.setOrdered(true);
+
+        try (PartitionedScan.Rows rows = scan.open()) {
+            Thread.sleep(200);
+            assertEquals(1, server.getRequestCount());
+
+            assertEquals(101, countOrdered(rows));
+        }
+
+        assertEquals(10, server.getRequestCount());
+        assertTrue(peak.get() <= 2);
+    }
+
+    private static int countOrdered(PartitionedScan.Rows rows) {
+        int count = 0;
+        long last = Long.MIN_VALUE;
+
+        while (rows.hasNext()) {
+            JsonNode id = rows.next().get("ID");
+            long value = id.isNull() ? Long.MIN_VALUE : id.asLong();
+            assertTrue(value >= last);
+            last = value;
+            count++;
+        }
+
+        return count;
+    }
+
+    // Two ordered scans sharing the database's permits, with ranges too big for
+    // a consumer queue, one of them from a connection allowing more threads.
+    // The second is read first, while the first's ranges are already running.
+    @Test(timeout = 60_000)
+    public void finishConcurrentOrderedScansOfLargeRanges() throws Exception {
+        tableSize = 6000;
+        BridgeAPI wider = new BridgeAPI();
+        wider.setURL(buildConnectionString(server.url("/")) + "maxScanConcurrency=4;");
+
+        PartitionedScan first = new PartitionedScan(api, "Customers", "ID");
+        first.setOrdered(true);
+        PartitionedScan second = new PartitionedScan(wider, "Customers", "ID");
+        second.setOrdered(true);
+
+        try (PartitionedScan.Rows firstRows = first.open();
+                PartitionedScan.Rows secondRows = second.open()) {
+            Thread.sleep(500);
+
+            assertEquals(6001, countOrdered(secondRows));
+            assertEquals(6001, countOrdered(firstRows));
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.kordata.odbcbridge;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+public class QueryMonitorShould {
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Logger logger = Logger.getLogger(QueryMonitor.class.getName());
+    private final List<LogRecord> logged = new ArrayList<>();
+
+    private final Handler handler = new Handler() {
+        @Override
+        public void publish(LogRecord record) {
+            logged.add(record);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    @Before
+    public void setUp() {
+        logger.addHandler(handler);
+    }
+
+    @After
+    public void tearDown() {
+        logger.removeHandler(handler);
+    }
+
+    @Test
+    public void stripLiteralsFromFingerprints() {
+        String first = SqlFingerprint.normalize(
+                "SELECT * FROM Customers WHERE LastName = 'Smith' AND Age > 42");
+        String second = SqlFingerprint.normalize(
+                "select *  from Customers where LastName='O''Brien' and Age>7");
+
+        assertEquals("select * from customers where lastname = ? and age > ?", first);
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void keepQuotedIdentifiersAndDigitsInNames() {
+        String actual = SqlFingerprint.normalize(
+                "SELECT [Address 2], Address2 FROM `Order Details` WHERE Shipped = #2019-04-09#");
+
+        assertEquals("select [Address 2], address2 from `Order Details` where shipped = ?",
+                actual);
+    }
+
+    @Test
+    public void collapseInLists() {
+        String three = SqlFingerprint.normalize("SELECT * FROM Orders WHERE ID IN (1, 2, 3)");
+        String five = SqlFingerprint.normalize("SELECT * FROM Orders WHERE ID IN (1,2,3,4,5)");
+
+        assertEquals("select * from orders where id in (?+)", three);
+        assertEquals(three, five);
+    }
+
+    @Test
+    public void aggregateExecutionsByFingerprint() {
+        QueryMonitor monitor = new QueryMonitor();
+
+        monitor.record("SELECT * FROM Orders WHERE ID = 1", null, ms(10), 100);
+        monitor.record("SELECT * FROM Orders WHERE ID = 2", null, ms(30), 300);
+
+        List<QueryStatistics> statistics = monitor.getStatistics();
+
+        assertEquals(1, statistics.size());
+        assertEquals(2, statistics.get(0).getCount());
+        assertEquals(400, statistics.get(0).getTotalBytes());
+        assertEquals(40, statistics.get(0).getTotalTime(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void keepOnlyTheMostExpensiveFingerprints() {
+        QueryMonitor monitor = new QueryMonitor(2, 16);
+
+        monitor.record("SELECT * FROM A", null, ms(50), 0);
+        monitor.record("SELECT * FROM B", null, ms(5), 0);
+        monitor.record("SELECT * FROM C", null, ms(20), 0);
+
+        List<QueryStatistics> statistics = monitor.getStatistics();
+
+        assertEquals(2, statistics.size());
+        assertEquals("select * from c", statistics.get(1).getFingerprint());
+        assertEquals("select * from a", statistics.get(0).getFingerprint());
+    }
+
+    @Test
+    public void logSlowQueriesWithRedactedParameters() {
+        QueryMonitor monitor = new QueryMonitor();
+        monitor.setSlowQueryThreshold(100);
+
+        ArrayNode array = mapper.createArrayNode();
+        array.add("secret");
+        ParameterWriter parameters = ParameterWriter.of(array);
+
+        monitor.record("SELECT * FROM Users WHERE Password = ?", parameters, ms(50), 0);
+        monitor.record("SELECT * FROM Users WHERE Password = ?", parameters, ms(150), 0);
+
+        assertEquals(1, logged.size());
+        assertFalse(logged.get(0).getMessage().contains("secret"));
+        assertTrue(logged.get(0).getMessage().contains("1 parameters redacted"));
+    }
+
+    private static long ms(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
@@ -0,0 +1,134 @@
+package com.kordata.odbcbridge;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.POJONode;
+
+public class ResponseReaderShould {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private ObjectNode read(String json, long threshold) throws IOException {
+        ResponseReader reader = new ResponseReader(mapper, threshold);
+
+        return reader.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static final String RESPONSE = "{\"schema\":["
+            + "{\"columnName\":\"ID\",\"dataType\":\"int\"},"
+            + "{\"columnName\":\"Photo\",\"dataType\":\"unknown\","
+            + "\"dataTypeName\":\"LONGBINARY\"}],"
+            + "\"results\":[{\"ID\":1,\"Photo\":\"AAECAwQFBgcICQoLDA0ODxAREhM=\"},"
+            + "{\"ID\":2,\"Photo\":null}]}";
+
+    @Test
+    public void decodeBinaryColumnsIntoLobBuffers() throws IOException {
+        ObjectNode response = read(RESPONSE, 1024);
+
+        JsonNode first = response.get("results").get(0);
+        assertEquals(1, first.get("ID").intValue());
+
+        LobBuffer lob = (LobBuffer) ((POJONode) first.get("Photo")).getPojo();
+        assertEquals(20, lob.length());
+        assertFalse(lob.isSpilled());
+        assertEquals(19, lob.toBytes()[19]);
+
+        assertTrue(response.get("results").get(1).get("Photo").isNull());
+    }
+
+    @Test
+    public void spillLargeValuesToDiskAndDeleteThemOnClose() throws IOException {
+        ObjectNode response = read(RESPONSE, 8);
+
+        LobBuffer lob = (LobBuffer) ((POJONode) response.get("results").get(0).get("Photo"))
+                .getPojo();
+        File file = lob.getFile();
+
+        assertTrue(lob.isSpilled());
+        assertEquals(20, file.length());
+        assertEquals(19, lob.toBytes()[19]);
+
+        lob.close();
+        assertFalse(file.exists());
+    }
+
+    private static String buildLargeResponse(int rows) {
+        StringBuilder json = new StringBuilder("{\"schema\":["
+                + "{\"columnName\":\"ID\",\"dataType\":\"int\"},"
+                + "{\"columnName\":\"Note\",\"dataType\":\"string\"},"
+                + "{\"columnName\":\"Price\",\"dataType\":\"decimal\"}],\n\"results\": [");
+
+        for (int i = 0; i < rows; i++) {
+            json.append(i == 0 ? "" : ", ").append("{\"ID\":").append(i)
+                    .append(",\"Note\":\"{[\\\"row\\\\\\\" ").append(i).append("]}\"")
+                    .append(",\"Price\":").append(i).append(".25}");
+        }
+
+        return json.append("] , \"rowsAffected\": -1}").toString();
+    }
+
+    @Test
+    public void decodeChunksInParallelInOrder() throws IOException {
+        byte[] body = buildLargeResponse(1000).getBytes(StandardCharsets.UTF_8);
+        ObjectNode expected = new ResponseReader(mapper, 1024)
+                .read(new ByteArrayInputStream(body));
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ObjectNode response =
+                    new ResponseReader(mapper, 1024).readInParallel(body, pool, 512);
+
+            assertEquals(expected, response);
+            assertEquals(-1, response.get("rowsAffected").intValue());
+            assertEquals("{[\"row\\\" 999]}",
+                    response.get("results").get(999).get("Note").textValue());
+            assertTrue(response.get("results").get(3).get("Price") instanceof ScaledDecimalNode);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void collectLobsOfEveryChunk() throws IOException {
+        byte[] body = RESPONSE.getBytes(StandardCharsets.UTF_8);
+
+        ObjectNode response = new ResponseReader(mapper, 1024)
+                .readInParallel(body, ForkJoinPool.commonPool(), 1);
+
+        JsonNode photo = response.get("results").get(0).get("Photo");
+        assertEquals(19, ((LobBuffer) ((POJONode) photo).getPojo()).toBytes()[19]);
+        assertEquals(2, response.get("results").get(1).get("ID").intValue());
+    }
+
+    @Test
+    public void decodeTheSameRowsWithTheSwarDecoder() throws IOException {
+        String json = "{\"schema\":[{\"columnName\":\"Price\",\"dataType\":\"decimal\"}],"
+                + "\"results\": [ {\"ID\":1, \"Name\":\"caf\u00e9 \\\"{}\\\"\", \"Big\":"
+                + "123456789012345678901, \"Ratio\":-1.5e3, \"Ok\":true, \"Gone\":null,"
+                + " \"Price\":12.3400},\n{\"ID\":-2147483649,\"Name\":\"a long name past one"
+                + " word\",\"Tags\":[\"x\",{\"y\":1}],\"Ok\":false,\"Price\":0.5},"
+                + "{\"N\\u0061me\":\"escaped name\",\"ID\":3}, {}], \"rowsAffected\": 3}";
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+
+        ObjectNode expected = new ResponseReader(mapper, 1024)
+                .read(new ByteArrayInputStream(body));
+        ObjectNode response = new ResponseReader(mapper, 1024)
+                .readWith(body, new SwarResultDecoder());
+
+        assertEquals(expected, response);
+        assertTrue(response.get("results").get(0).get("Price") instanceof ScaledDecimalNode);
+        assertEquals(-2147483649L, response.get("results").get(1).get("ID").longValue());
+
+        ObjectNode lobs = new ResponseReader(mapper, 1024)
+                .readWith(RESPONSE.getBytes(StandardCharsets.UTF_8), new SwarResultDecoder());
+        JsonNode photo = lobs.get("results").get(0).get("Photo");
+        assertEquals(19, ((LobBuffer) ((POJONode) photo).getPojo()).toBytes()[19]);
+    }
+}
@@ -0,0 +1,41 @@
+package com.kordata.odbcbridge;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.math.BigDecimal;
+
+public class ScaledDecimalNodeShould {
+    private static ScaledDecimalNode parse(String text) {
+        return ScaledDecimalNode.parse(text.toCharArray(), 0, text.length());
+    }
+
+    @Test
+    public void parsePlainDecimals() {
+        ScaledDecimalNode node = parse("-1234.5600");
+
+        assertEquals(-12345600, node.unscaledValue());
+        assertEquals(4, node.scale());
+        assertEquals(new BigDecimal("-1234.5600"), node.decimalValue());
+        assertEquals("-1234.5600", node.asText());
+        assertEquals("-0.0005", parse("-0.0005").asText());
+        assertEquals(42, parse("42").longValue());
+    }
+
+    @Test
+    public void leaveWhatALongCannotHoldToBigDecimal() {
+        assertNull(parse("1234567890123456.789"));
+        assertNull(parse("1.5E3"));
+        assertNull(parse("-"));
+    }
+
+    @Test
+    public void convertWithoutBigDecimal() {
+        ScaledDecimalNode node = parse("19.9950");
+
+        assertEquals(19, node.longValue());
+        assertEquals(19.995, node.doubleValue(), 0);
+        assertEquals(1999, node.scaledTo(2));
+        assertEquals(199950000, node.scaledTo(7));
+        assertTrue(node.canConvertToInt());
+    }
+}
@@ -0,0 +1,25 @@
+package com.kordata.odbcbridge;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SqlTemplateShould {
+    @Test
+    public void findPlaceholders() {
+        String sql = "SELECT * FROM Orders WHERE CustomerID = ? AND Total > ?";
+
+        SqlTemplate template = SqlTemplate.parse(sql);
+
+        assertEquals(2, template.getParameterCount());
+        assertEquals(sql.indexOf('?'), template.getPlaceholderPosition(1));
+        assertEquals(sql.lastIndexOf('?'), template.getPlaceholderPosition(2));
+    }
+
+    @Test
+    public void ignoreQuestionMarksInLiteralsIdentifiersAndComments() {
+        SqlTemplate template = SqlTemplate.parse("SELECT [Why?], 'really?', \"it''s?\" "
+                + "-- what?\n FROM Notes /* who? */ WHERE Note LIKE '?%' AND ID = ?");
+
+        assertEquals(1, template.getParameterCount());
+    }
+}
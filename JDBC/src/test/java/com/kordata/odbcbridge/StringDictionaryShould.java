@@ -0,0 +1,41 @@
+package com.kordata.odbcbridge;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+public class StringDictionaryShould {
+    private final StringDictionary dictionary = new StringDictionary(JsonNodeFactory.instance);
+
+    @Test
+    public void shareOneNodePerDistinctValue() {
+        assertSame(dictionary.intern(new String("WA")), dictionary.intern(new String("WA")));
+        assertEquals(dictionary.encode("OR"), dictionary.encode("OR"));
+        assertEquals("OR", dictionary.decode(dictionary.encode("OR")).textValue());
+    }
+
+    @Test
+    public void stopEncodingHighCardinalityColumns() {
+        int first = dictionary.encode("Customer 0");
+        for (int i = 1; i < StringDictionary.MAX_ENTRIES; i++) {
+            assertTrue(dictionary.encode("Customer " + i) >= 0);
+        }
+
+        assertEquals(-1, dictionary.encode("One too many"));
+        assertFalse(dictionary.isEncoding());
+        assertEquals(-1, dictionary.encode("Customer 1"));
+
+        // Codes handed out before stay readable.
+        assertEquals("Customer 0", dictionary.decode(first).textValue());
+    }
+
+    @Test
+    public void leaveLongValuesUnencoded() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i <= StringDictionary.MAX_LENGTH; i++) {
+            text.append('x');
+        }
+
+        assertEquals(-1, dictionary.encode(text.toString()));
+    }
+}
@@ -0,0 +1,104 @@
+package com.kordata.odbcbridge;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+public class TableReaderShould {
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final MockWebServer server = new MockWebServer();
+    private final BridgeAPI api = new BridgeAPI();
+
+    private String buildConnectionString(HttpUrl baseUrl) {
+        return "jdbc:odbcbridge://" + baseUrl.host() + ":" + baseUrl.port()
+                + ";databaseName=a_database;user=aUser;password=aPassword;useSsl=false;";
+    }
+
+    private String buildRows(int count) {
+        ArrayNode rows = mapper.createArrayNode();
+
+        for (int i = 0; i < count; i++) {
+            rows.addObject().put("ID", i).put("City", i % 2 == 0 ? "Boise" : "Nampa")
+                    .put("Company", "Company " + i);
+        }
+
+        return rows.toString();
+    }
+
+    private List<ObjectNode> readAll(TableReader reader) {
+        List<ObjectNode> rows = new ArrayList<>();
+        reader.forEachRemaining(rows::add);
+        return rows;
+    }
+
+    @Before
+    public void setUp() throws IOException, SQLException {
+        server.start();
+        api.setURL(buildConnectionString(server.url("/")));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void streamEveryRowOfATable() throws IOException, InterruptedException {
+        server.enqueue(new MockResponse().setBody(buildRows(1000)));
+
+        try (TableReader reader = api.readTable("Customers")) {
+            List<ObjectNode> rows = readAll(reader);
+
+            assertEquals(1000, rows.size());
+            assertEquals("Company 999", rows.get(999).get("Company").asText());
+            assertFalse(reader.hasNext());
+        }
+
+        assertEquals("/v1/a_database/Customers", server.takeRequest().getPath());
+    }
+
+    @Test
+    public void letTheBridgeProjectAndFilter() throws IOException, InterruptedException {
+        server.enqueue(new MockResponse().setBody("[{\"ID\":4}]")
+                .setHeader("X-AccessBridge-Query", "fields,where"));
+
+        List<ObjectNode> rows;
+        try (TableReader reader = api.readTable("Customers", Arrays.asList("ID", "Company"),
+                Collections.singletonMap("City", "Boise"))) {
+            rows = readAll(reader);
+        }
+
+        RecordedRequest request = server.takeRequest();
+        assertEquals("ID,Company", request.getRequestUrl().queryParameter("fields"));
+        assertEquals("Boise", request.getRequestUrl().queryParameter("where.City"));
+        assertEquals(1, rows.size());
+    }
+
+    @Test
+    public void projectAndFilterLocallyForOlderBridges() throws IOException {
+        server.enqueue(new MockResponse().setBody(buildRows(10)));
+
+        List<ObjectNode> rows;
+        try (TableReader reader = api.readTable("Customers", Arrays.asList("ID"),
+                Collections.singletonMap("City", "Nampa"))) {
+            rows = readAll(reader);
+        }
+
+        assertEquals(5, rows.size());
+        assertEquals("{\"ID\":1}", rows.get(0).toString());
+    }
+}
@@ -0,0 +1,187 @@
+package com.kordata.odbcbridge;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+public class UpsertPlannerShould {
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final MockWebServer server = new MockWebServer();
+    private final OdbcDriver driver = new OdbcDriver();
+    private final List<JsonNode> batches = new ArrayList<>();
+    private final List<String> queries = new ArrayList<>();
+
+    private Connection connection;
+
+    private String buildConnectionString(HttpUrl baseUrl) {
+        return "jdbc:odbcbridge://" + baseUrl.host() + ":" + baseUrl.port()
+                + ";databaseName=a_database;user=aUser;password=aPassword;useSsl=false;";
+    }
+
+    private Map<String, Object> customer(Object id, String name) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("ID", id);
+        record.put("Name", name);
+        return record;
+    }
+
+    // Answers key lookups with the given existing keys and records batches.
+    private void serveExistingKeys(Object... keys) {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if (request.getMethod().equals("GET")) {
+                    return new MockResponse().setResponseCode(200);
+                }
+
+                try {
+                    JsonNode body = mapper.readTree(request.getBody().readUtf8());
+
+                    if (request.getPath().endsWith("/batch")) {
+                        batches.add(body);
+
+                        ObjectNode response = mapper.createObjectNode();
+                        ArrayNode rowsAffected = response.putArray("rowsAffected");
+                        body.get("parameterSets").forEach(set -> rowsAffected.add(1));
+                        return new MockResponse().setBody(response.toString());
+                    }
+
+                    queries.add(body.get("command").asText());
+
+                    ObjectNode response = mapper.createObjectNode();
+                    response.putArray("schema").addObject().put("columnName", "ID")
+                            .put("dataType", "int");
+                    ArrayNode results = response.putArray("results");
+                    for (Object key : keys) {
+                        results.addObject().putPOJO("ID", key);
+                    }
+                    return new MockResponse().setBody(mapper.writeValueAsString(response));
+                } catch (IOException e) {
+                    return new MockResponse().setResponseCode(200);
+                }
+            }
+        });
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException, SQLException {
+        if (connection != null) {
+            connection.close();
+        }
+        server.shutdown();
+    }
+
+    @Test
+    public void splitRecordsIntoInsertsAndUpdates() throws Exception {
+        serveExistingKeys(2, 3);
+        connection = driver.connect(buildConnectionString(server.url("/")), null);
+
+        List<Map<String, Object>> records = new ArrayList<>();
+        for (int id = 1; id <= 4; id++) {
+            records.add(customer(id, "Customer " + id));
+        }
+        records.add(customer(4, "Customer 4 again"));
+
+        UpsertResult result =
+                new UpsertPlanner(connection, "Customers", "ID").upsert(records);
+
+        assertEquals(2, result.getInsertCount());
+        assertEquals(3, result.getUpdateCount());
+        assertEquals(1, queries.size());
+        assertTrue(queries.get(0).endsWith("WHERE [ID] BETWEEN ? AND ?"));
+        assertEquals(2, batches.size());
+
+        JsonNode inserts = batches.get(0);
+        assertEquals("INSERT INTO [Customers] ([ID], [Name]) VALUES (?, ?)",
+                inserts.get("command").asText());
+        assertEquals(1, inserts.get("parameterSets").get(0).get(0).asInt());
+        assertEquals(4, inserts.get("parameterSets").get(1).get(0).asInt());
+
+        JsonNode updates = batches.get(1);
+        assertEquals("UPDATE [Customers] SET [Name] = ? WHERE [ID] = ?",
+                updates.get("command").asText());
+        assertEquals(3, updates.get("parameterSets").size());
+        assertEquals("Customer 4 again", updates.get("parameterSets").get(2).get(0).asText());
+    }
+
+    @Test
+    public void lookUpSparseAndTextKeysByList() throws Exception {
+        serveExistingKeys("abc");
+        connection = driver.connect(buildConnectionString(server.url("/")), null);
+
+        List<Map<String, Object>> records = new ArrayList<>();
+        records.add(customer("ABC", "Existing"));
+        records.add(customer("xyz", "New"));
+
+        UpsertPlanner planner = new UpsertPlanner(connection, "Customers", "ID");
+        UpsertResult result = planner.upsert(records);
+
+        assertEquals(1, result.getInsertCount());
+        assertEquals(1, result.getUpdateCount());
+        assertTrue(queries.get(0).endsWith("WHERE [ID] IN (?,?)"));
+    }
+
+    @Test
+    public void lookUpSparseNumericKeysByList() throws Exception {
+        serveExistingKeys(1000);
+        connection = driver.connect(buildConnectionString(server.url("/")), null);
+
+        // 3 records spread over a range far wider than 3 * 16 keys.
+        List<Map<String, Object>> records = new ArrayList<>();
+        records.add(customer(1, "New"));
+        records.add(customer(1000, "Existing"));
+        records.add(customer(1_000_000L, "Also new"));
+
+        UpsertResult result =
+                new UpsertPlanner(connection, "Customers", "ID").upsert(records);
+
+        assertEquals(2, result.getInsertCount());
+        assertEquals(1, result.getUpdateCount());
+        assertEquals(1, queries.size());
+        assertTrue(queries.get(0).endsWith("WHERE [ID] IN (?,?,?)"));
+        assertEquals(1000, batches.get(1).get("parameterSets").get(0).get(1).asInt());
+    }
+
+    @Test
+    public void notCountRecordsWithOnlyAKeyAsUpdated() throws Exception {
+        serveExistingKeys(1, 2);
+        connection = driver.connect(buildConnectionString(server.url("/")), null);
+
+        List<Map<String, Object>> records = new ArrayList<>();
+        for (int id = 1; id <= 3; id++) {
+            Map<String, Object> record = new LinkedHashMap<>();
+            record.put("ID", id);
+            records.add(record);
+        }
+
+        UpsertResult result =
+                new UpsertPlanner(connection, "Customers", "ID").upsert(records);
+
+        assertEquals(1, result.getInsertCount());
+        assertEquals(0, result.getUpdateCount());
+        assertEquals(1, batches.size());
+        assertTrue(batches.get(0).get("command").asText().startsWith("INSERT"));
+    }
+}
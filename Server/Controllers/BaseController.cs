@@ -37,6 +37,15 @@ namespace Kordata.AccessBridge.Server
             return await then?.Invoke();
         }
 
+        protected async Task<IActionResult> ValidateBatch(Batch batch, Func<Task<IActionResult>> then)
+        {
+            if (batch == null) return BadRequest();
+            if (string.IsNullOrEmpty(batch.Command)) return BadRequest();
+            if (batch.ParameterSets == null) return BadRequest();
+
+            return await then?.Invoke();
+        }
+
         protected async Task<IActionResult> WithConnection(string database, Func<OdbcConnection, Task<IActionResult>> then)
         {
             using (var connection = connectionFactory.CreateConnection(database))
@@ -85,6 +94,68 @@ namespace Kordata.AccessBridge.Server
             }
         }
 
+        protected Task<IActionResult> ExecuteQuery(string database, Query query)
+        {
+            return
+                WithCommand(database, query, command =>
+                WithReader(command, async reader =>
+                {
+                    var response = new JObject();
+                    response["schema"] = reader.GetSchemaJArray();
+
+                    var results = new JArray();
+                    while (await reader.ReadAsync())
+                    {
+                        results.Add(reader.GetJObject());
+                    }
+
+                    response["results"] = results;
+
+                    return new JsonResult(response);
+                }));
+        }
+
+        protected Task<IActionResult> ExecuteMutate(string database, Query query)
+        {
+            return
+                WithCommand(database, query, async command =>
+                {
+                    var rowsAffected = await command.ExecuteNonQueryAsync();
+
+                    return new JsonResult(new JObject(new JProperty("rowsAffected", rowsAffected)));
+                });
+        }
+
+        // Prepares the command once and runs it for every parameter set in one
+        // transaction, so a failing set rolls back the whole batch.
+        protected Task<IActionResult> ExecuteBatch(string database, Batch batch)
+        {
+            return
+                WithConnection(database, async connection =>
+                {
+                    using (var transaction = connection.BeginTransaction())
+                    using (var command = connection.CreateCommand())
+                    {
+                        command.Transaction = transaction;
+                        command.CommandText = batch.Command;
+                        command.Prepare();
+
+                        var rowsAffected = new JArray();
+                        foreach (var parameters in batch.ParameterSets)
+                        {
+                            command.Parameters.Clear();
+                            parameters?.ForEach((parm, i) => command.Parameters.AddWithValue(i.ToString(), parm));
+
+                            rowsAffected.Add(await command.ExecuteNonQueryAsync());
+                        }
+
+                        transaction.Commit();
+
+                        return new JsonResult(new JObject(new JProperty("rowsAffected", rowsAffected)));
+                    }
+                });
+        }
+
         protected async Task<IActionResult> WithReader(OdbcCommand command, Func<DbDataReader, Task<IActionResult>> then)
         {
             try
@@ -28,28 +28,41 @@ namespace Kordata.AccessBridge.Server
                 });
         }
 
-        [HttpPost("/v1/{database}/query")]
-        public Task<IActionResult> Query(string database, [FromBody]Query query)
+        [HttpGet("/v1/{database}/schema")]
+        public Task<IActionResult> Schema(string database)
         {
             return
                 ValidateDatabase(database, () =>
-                ValidateQuery(query, () =>
-                WithCommand(database, query, command =>
-                WithReader(command, async reader =>
+                WithConnection(database, connection =>
                 {
-                    var response = new JObject();
-                    response["schema"] = reader.GetSchemaJArray();
+                    var tables = connection.GetSchema("Tables").ToJArray();
+                    var views = connection.GetSchema("Views").ToJArray();
+                    var columns = connection.GetSchema("Columns").ToJArray();
 
-                    var results = new JArray();
-                    while (await reader.ReadAsync())
+                    // The ODBC Indexes collection can only be read one table at a time.
+                    var indexes = new JArray();
+                    foreach (var table in tables)
                     {
-                        results.Add(reader.GetJObject());
+                        var restrictions = new[] { null, null, (string)table["TABLE_NAME"] };
+                        indexes.Merge(connection.GetSchema("Indexes", restrictions).ToJArray());
                     }
 
-                    response["results"] = results;
+                    var response = new JObject();
+                    response["tables"] = new JArray(tables.Concat(views));
+                    response["columns"] = columns;
+                    response["indexes"] = indexes;
 
-                    return new JsonResult(response);
-                }))));
+                    return Task.FromResult((IActionResult)new JsonResult(response));
+                }));
+        }
+
+        [HttpPost("/v1/{database}/query")]
+        public Task<IActionResult> Query(string database, [FromBody]Query query)
+        {
+            return
+                ValidateDatabase(database, () =>
+                ValidateQuery(query, () =>
+                ExecuteQuery(database, query)));
         }
 
         [HttpPost("/v1/{database}/mutate")]
@@ -58,12 +71,16 @@ namespace Kordata.AccessBridge.Server
             return
                 ValidateDatabase(database, () =>
                 ValidateQuery(query, () =>
-                WithCommand(database, query, async command =>
-                {
-                    var rowsAffected = await command.ExecuteNonQueryAsync();
+                ExecuteMutate(database, query)));
+        }
 
-                    return new JsonResult(new JObject(new JProperty("rowsAffected", rowsAffected)));
-                })));
+        [HttpPost("/v1/{database}/batch")]
+        public Task<IActionResult> Batch(string database, [FromBody]Batch batch)
+        {
+            return
+                ValidateDatabase(database, () =>
+                ValidateBatch(batch, () =>
+                ExecuteBatch(database, batch)));
         }
     }
 }
\ No newline at end of file
@@ -2,12 +2,14 @@ using System;
 using System.Collections.Generic;
 using System.Data.Odbc;
 using System.Data;
+using System.IO;
 using System.Linq;
 using System.Threading.Tasks;
 using Microsoft.AspNetCore.Http;
 using Microsoft.AspNetCore.Mvc;
 using Microsoft.Extensions.Logging;
 using MoreLinq;
+using Newtonsoft.Json;
 using Newtonsoft.Json.Linq;
 
 namespace Kordata.AccessBridge.Server
@@ -30,14 +32,24 @@ namespace Kordata.AccessBridge.Server
                 WithCommand(database, query, command =>
                 WithReader(command, async reader =>
                 {
-                    var response = new JArray();
+                    // Rows are written as they're read so full-table exports don't
+                    // build the whole table in memory first.
+                    Response.ContentType = "application/json; charset=utf-8";
 
-                    while (await reader.ReadAsync())
+                    using (var writer = new StreamWriter(Response.Body))
+                    using (var json = new JsonTextWriter(writer))
                     {
-                        response.Add(reader.GetJObject());
+                        await json.WriteStartArrayAsync();
+
+                        while (await reader.ReadAsync())
+                        {
+                            await reader.GetJObject().WriteToAsync(json);
+                        }
+
+                        await json.WriteEndArrayAsync();
                     }
 
-                    return new JsonResult(response);
+                    return new EmptyResult();
                 }))));
         }
 
@@ -203,13 +215,54 @@ namespace Kordata.AccessBridge.Server
                 .ToList();
         }
 
+        // Access doesn't allow these in column names, and ']' would end the bracketed identifier.
+        private static readonly char[] InvalidIdentifierChars = { '[', ']', '.', '!', '`' };
+
+        private static bool IsValidIdentifier(string name)
+        {
+            return !string.IsNullOrWhiteSpace(name)
+                && name.IndexOfAny(InvalidIdentifierChars) < 0
+                && !name.Any(char.IsControl);
+        }
+
+        // Supports ?fields=A,B to project columns and ?where.Column=value for equality filters.
         private Task<IActionResult> WithQuery(string table, IQueryCollection requestQuery, Func<Query, Task<IActionResult>> then)
         {
+            var fieldNames = requestQuery.TryGetValue("fields", out var fieldValues)
+                ? fieldValues.SelectMany(f => f.Split(','))
+                    .Where(f => !string.IsNullOrWhiteSpace(f))
+                    .Select(f => f.Trim())
+                    .ToList()
+                : new List<string>();
+
+            var filters = requestQuery
+                .Where(q => q.Key.StartsWith("where.") && q.Key.Length > "where.".Length)
+                .Select(q => (Column: q.Key.Substring("where.".Length), Value: q.Value))
+                .ToList();
+
+            var invalid = fieldNames.Concat(filters.Select(f => f.Column))
+                .FirstOrDefault(name => !IsValidIdentifier(name));
+            if (invalid != null)
+            {
+                return Task.FromResult<IActionResult>(BadRequest($"Invalid column name: {invalid}"));
+            }
+
+            var fields = string.Join(",", fieldNames.Select(f => $"[{f}]"));
+            var command = $"SELECT {(fields.Length > 0 ? fields : "*")} FROM {table}";
+            if (filters.Any())
+            {
+                command += " WHERE " + string.Join(" AND ", filters.Select(f => $"[{f.Column}] = ?"));
+            }
+
             var query = new Query
             {
-                Command = $"SELECT * FROM {table}"
+                Command = command,
+                Parameters = filters.Select(f => (object)f.Value.ToString()).ToList()
             };
 
+            // Lets clients know they don't need to project or filter the rows themselves.
+            Response.Headers["X-AccessBridge-Query"] = "fields,where";
+
             return then?.Invoke(query);
         }
     }
@@ -0,0 +1,69 @@
+using System;
+using System.Threading.Tasks;
+using Microsoft.AspNetCore.Mvc;
+using Microsoft.Extensions.Logging;
+using Newtonsoft.Json.Linq;
+
+namespace Kordata.AccessBridge.Server
+{
+    public class StatementController : BaseController
+    {
+        private readonly IStatementRegistry registry;
+
+        public StatementController(ILogger<StatementController> logger,
+            IAccessConnectionFactory connectionFactory, IStatementRegistry registry)
+            : base(logger, connectionFactory)
+        {
+            this.registry = registry;
+        }
+
+        [HttpPost("/v1/{database}/statements")]
+        public Task<IActionResult> Register(string database, [FromBody]Query query)
+        {
+            return
+                ValidateDatabase(database, () =>
+                ValidateQuery(query, () =>
+                {
+                    var handle = registry.Register(database, query.Command);
+
+                    return Task.FromResult(
+                        (IActionResult)new JsonResult(new JObject(new JProperty("handle", handle))));
+                }));
+        }
+
+        [HttpPost("/v1/{database}/statements/{handle}/query")]
+        public Task<IActionResult> Query(string database, string handle, [FromBody]Query query)
+        {
+            return
+                ValidateDatabase(database, () =>
+                WithStatement(database, handle, query, statement =>
+                ExecuteQuery(database, statement)));
+        }
+
+        [HttpPost("/v1/{database}/statements/{handle}/mutate")]
+        public Task<IActionResult> Mutate(string database, string handle, [FromBody]Query query)
+        {
+            return
+                ValidateDatabase(database, () =>
+                WithStatement(database, handle, query, statement =>
+                ExecuteMutate(database, statement)));
+        }
+
+        private async Task<IActionResult> WithStatement(string database, string handle, Query query,
+            Func<Query, Task<IActionResult>> then)
+        {
+            var command = registry.Get(database, handle);
+
+            // 410 rather than 404 so clients can tell a forgotten handle from a missing table.
+            if (command == null) return StatusCode(410);
+
+            var statement = new Query
+            {
+                Command = command,
+                Parameters = query?.Parameters
+            };
+
+            return await then?.Invoke(statement);
+        }
+    }
+}
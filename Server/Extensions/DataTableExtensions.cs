@@ -0,0 +1,21 @@
+using System;
+using System.Data;
+using System.Linq;
+using Newtonsoft.Json.Linq;
+
+namespace Kordata.AccessBridge.Server
+{
+    public static class DataTableExtensions
+    {
+        public static JArray ToJArray(this DataTable table)
+        {
+            var rows = table.Rows
+                .Cast<DataRow>()
+                .Select(row => new JObject(table.Columns
+                    .Cast<DataColumn>()
+                    .Select(c => new JProperty(c.ColumnName, row[c] == DBNull.Value ? null : row[c]))));
+
+            return new JArray(rows);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+
+using System.Collections.Generic;
+
+namespace Kordata.AccessBridge.Server
+{
+    public class Batch
+    {
+        public string Command { get; set; }
+        public List<List<object>> ParameterSets { get; set; }
+    }
+}
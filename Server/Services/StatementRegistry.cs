@@ -0,0 +1,86 @@
+using System;
+using System.Collections.Concurrent;
+using System.Linq;
+using System.Security.Cryptography;
+using System.Text;
+
+namespace Kordata.AccessBridge.Server
+{
+    public interface IStatementRegistry
+    {
+        string Register(string database, string command);
+        string Get(string database, string handle);
+    }
+
+    // Keeps the SQL text of registered prepared statements so clients can send a
+    // handle instead. Handles are derived from the statement, so re-registering
+    // the same SQL returns the same handle. The registry is bounded; clients
+    // re-register when a handle has been evicted (410 Gone).
+    public class StatementRegistry : IStatementRegistry
+    {
+        private const int Capacity = 4096;
+
+        private readonly ConcurrentDictionary<string, RegisteredStatement> statements =
+            new ConcurrentDictionary<string, RegisteredStatement>();
+
+        private class RegisteredStatement
+        {
+            public string Database { get; set; }
+            public string Command { get; set; }
+            public long LastUsed { get; set; }
+        }
+
+        public string Register(string database, string command)
+        {
+            var handle = CreateHandle(database, command);
+
+            statements[handle] = new RegisteredStatement
+            {
+                Database = database,
+                Command = command,
+                LastUsed = DateTime.UtcNow.Ticks
+            };
+
+            if (statements.Count > Capacity)
+            {
+                EvictLeastRecentlyUsed();
+            }
+
+            return handle;
+        }
+
+        public string Get(string database, string handle)
+        {
+            if (!statements.TryGetValue(handle, out var statement)) return null;
+            if (statement.Database != database) return null;
+
+            statement.LastUsed = DateTime.UtcNow.Ticks;
+
+            return statement.Command;
+        }
+
+        private void EvictLeastRecentlyUsed()
+        {
+            var evicted = statements
+                .OrderBy(s => s.Value.LastUsed)
+                .Take(statements.Count - Capacity)
+                .Select(s => s.Key)
+                .ToList();
+
+            foreach (var handle in evicted)
+            {
+                statements.TryRemove(handle, out _);
+            }
+        }
+
+        private static string CreateHandle(string database, string command)
+        {
+            using (var sha = SHA256.Create())
+            {
+                var hash = sha.ComputeHash(Encoding.UTF8.GetBytes($"{database}\n{command}"));
+
+                return BitConverter.ToString(hash, 0, 16).Replace("-", "").ToLowerInvariant();
+            }
+        }
+    }
+}
@@ -38,6 +38,7 @@ namespace Kordata.AccessBridge.Server
                 new CouchbaseLiteFactory(configuration.GetSection("WatchDatabase")));
             services.AddSingleton<IAccessConnectionFactory, AccessConnectionFactory>(_ =>
                 new AccessConnectionFactory(configuration.GetSection("MicrosoftAccess")));
+            services.AddSingleton<IStatementRegistry, StatementRegistry>();
 
             services.AddTransient<IFileRepository, FileRepository>(_ =>
                 new FileRepository(configuration.GetSection("FileUpload")));